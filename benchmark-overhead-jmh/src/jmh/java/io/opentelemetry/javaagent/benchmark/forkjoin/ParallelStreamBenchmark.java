@@ -0,0 +1,50 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.benchmark.forkjoin;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// the parallel stream is run in a span, so that the executors instrumentation propagates context
+// to each of its fork join subtasks
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ParallelStreamBenchmark {
+
+  private long[] values;
+  private Span span;
+
+  @Setup
+  public void setup() {
+    values = new long[100_000];
+    Arrays.setAll(values, i -> i);
+    span = GlobalOpenTelemetry.getTracer("benchmark").spanBuilder("parallel-stream").startSpan();
+  }
+
+  @TearDown
+  public void tearDown() {
+    span.end();
+  }
+
+  @Benchmark
+  public long sum() {
+    try (io.opentelemetry.context.Scope ignored = Context.current().with(span).makeCurrent()) {
+      return Arrays.stream(values).parallel().map(value -> value * 31).sum();
+    }
+  }
+}
@@ -0,0 +1,13 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.benchmark.forkjoin;
+
+import org.openjdk.jmh.annotations.Fork;
+
+@Fork(
+    jvmArgsAppend =
+        "-Dotel.instrumentation.executors.experimental-fork-join-batch-propagation=true")
+public class ParallelStreamWithBatchPropagationBenchmark extends ParallelStreamBenchmark {}
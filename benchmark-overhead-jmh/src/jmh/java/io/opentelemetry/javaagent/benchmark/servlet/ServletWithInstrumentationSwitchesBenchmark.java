@@ -0,0 +1,12 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.benchmark.servlet;
+
+import org.openjdk.jmh.annotations.Fork;
+
+// compare with ServletBenchmark to see the overhead of checking the switch in every advice
+@Fork(jvmArgsAppend = "-Dotel.javaagent.experimental.instrumentation-switches.enabled=true")
+public class ServletWithInstrumentationSwitchesBenchmark extends ServletBenchmark {}
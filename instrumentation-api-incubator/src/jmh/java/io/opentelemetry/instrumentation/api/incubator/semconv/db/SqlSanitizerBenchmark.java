@@ -0,0 +1,96 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.incubator.semconv.db;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the uncached cost of sanitizing statements of different shapes. Run it against the
+ * previous revision of the lexer to compare, {@code gc.alloc.rate.norm} shows the saved copies.
+ */
+@Fork(3)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Thread)
+public class SqlSanitizerBenchmark {
+
+  @Param({"point_select", "join", "in_list", "batch_insert"})
+  public String corpus;
+
+  private String statement;
+
+  @Setup
+  public void setUp() {
+    switch (corpus) {
+      case "point_select":
+        statement = "SELECT id, name, email FROM users WHERE id = 12345 AND status = 'active'";
+        break;
+      case "join":
+        statement =
+            "SELECT o.id, o.total, c.name FROM orders o JOIN customers c ON o.customer_id = c.id"
+                + " WHERE o.created_at > '2024-01-01' AND c.region = 'EU' ORDER BY o.total DESC"
+                + " LIMIT 50";
+        break;
+      case "in_list":
+        statement = inList(1000);
+        break;
+      case "batch_insert":
+        statement = batchInsert(500);
+        break;
+      default:
+        throw new IllegalArgumentException(corpus);
+    }
+  }
+
+  @Benchmark
+  public SqlStatementInfo sanitize() {
+    return AutoSqlSanitizer.sanitize(statement, SqlDialect.DEFAULT);
+  }
+
+  @Benchmark
+  public SqlStatementInfo operationOnly() {
+    return AutoSqlSanitizer.sanitize(statement, SqlDialect.DEFAULT, true);
+  }
+
+  private static String inList(int size) {
+    StringBuilder sb = new StringBuilder("SELECT * FROM products WHERE id IN (");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(100_000 + i);
+    }
+    return sb.append(')').toString();
+  }
+
+  private static String batchInsert(int rows) {
+    StringBuilder sb = new StringBuilder("INSERT INTO events (id, type, payload, created) VALUES ");
+    for (int i = 0; i < rows; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append('(')
+          .append(i)
+          .append(", 'click', '{\"x\": ")
+          .append(i * 7)
+          .append("}', '2024-01-01 00:00:00')");
+    }
+    return sb.toString();
+  }
+}
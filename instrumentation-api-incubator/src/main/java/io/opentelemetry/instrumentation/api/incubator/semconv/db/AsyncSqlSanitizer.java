@@ -0,0 +1,221 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.incubator.semconv.db;
+
+import io.opentelemetry.instrumentation.api.internal.ConfigPropertiesUtil;
+import java.lang.ref.WeakReference;
+import java.security.PrivilegedAction;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * Moves the sanitization of very long SQL statements off the thread that executes them. Statements
+ * that are at least {@code otel.instrumentation.experimental.db.async-sanitization-threshold}
+ * characters long and are not in the sanitizer cache yet are handed to a small pool of background
+ * threads when the operation starts. The calling thread only extracts the operation and table name
+ * from a bounded prefix of the statement, which is all it needs for the span name, and collects the
+ * sanitized statement when the operation ends, i.e. before the span is exported. The statement is
+ * never lost: it is sanitized on the calling thread when the pool's queue is full, when no
+ * background thread has picked it up by the time the operation ends, or when the background thread
+ * takes too long.
+ */
+final class AsyncSqlSanitizer {
+
+  // 0 disables asynchronous sanitization
+  static final int DEFAULT_THRESHOLD =
+      ConfigPropertiesUtil.getInt(
+          "otel.instrumentation.experimental.db.async-sanitization-threshold", 0);
+
+  private static final int MAX_THREADS = 2;
+  private static final int MAX_QUEUED = 1000;
+  // how long the calling thread waits for a statement that a background thread is sanitizing,
+  // before it sanitizes the statement itself
+  private static final long JOIN_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  // the span name and the attributes extractor look at the same statement one after the other,
+  // this keeps the statement from being scanned twice; the statement itself is only weakly
+  // referenced, so that it isn't kept when no attributes extractor clears it
+  private static final ThreadLocal<PreparedStatement> lastPrepared = new ThreadLocal<>();
+
+  private AsyncSqlSanitizer() {}
+
+  /**
+   * Looks up a statement that is at least {@code threshold} chars long in the sanitizer cache, and
+   * extracts its operation and main identifier if it is not cached. Returns {@code null} for
+   * shorter statements. The result is kept for the calling thread until {@link #clearPrepared()} is
+   * called, so that the same statement instance is only looked at once.
+   */
+  @Nullable
+  static PreparedStatement prepare(int threshold, @Nullable String statement) {
+    if (threshold <= 0 || statement == null || statement.length() < threshold) {
+      return null;
+    }
+    PreparedStatement prepared = lastPrepared.get();
+    if (prepared != null && prepared.statement.get() == statement) {
+      return prepared;
+    }
+    prepared = PreparedStatement.create(statement);
+    lastPrepared.set(prepared);
+    return prepared;
+  }
+
+  /**
+   * Drops the statement that the calling thread prepared last. Called when every operation starts,
+   * so that the prepared statement doesn't outlive the operation it was prepared for.
+   */
+  static void clearPrepared() {
+    lastPrepared.remove();
+  }
+
+  /** Starts sanitizing the statement in the background. */
+  static PendingSanitization sanitizeAsync(
+      SqlStatementSanitizer sanitizer, String statement, PreparedStatement prepared) {
+    return sanitizeAsync(sanitizer, statement, prepared, ExecutorHolder.EXECUTOR);
+  }
+
+  // visible for testing
+  static PendingSanitization sanitizeAsync(
+      SqlStatementSanitizer sanitizer,
+      String statement,
+      PreparedStatement prepared,
+      Executor executor) {
+    SqlStatementFingerprint fingerprint = prepared.fingerprint;
+    PendingSanitization task =
+        new PendingSanitization(() -> sanitizer.sanitize(statement, fingerprint));
+    // when the queue is full the task runs on the calling thread
+    executor.execute(task);
+    return task;
+  }
+
+  /**
+   * Returns the sanitized statement. Runs the task on the calling thread if no background thread
+   * has picked it up yet, and sanitizes the statement on the calling thread as well if the
+   * background thread doesn't finish it in time.
+   */
+  static SqlStatementInfo join(PendingSanitization task) {
+    return join(task, JOIN_TIMEOUT_NANOS);
+  }
+
+  // visible for testing
+  static SqlStatementInfo join(PendingSanitization task, long timeoutNanos) {
+    // a no-op if the task is already running or done
+    task.run();
+    try {
+      return task.get(timeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (TimeoutException | ExecutionException | CancellationException e) {
+      // sanitizer never throws, the background thread is just slow
+    }
+    return task.sanitization.get();
+  }
+
+  /** A statement that is being sanitized in the background. */
+  static final class PendingSanitization extends FutureTask<SqlStatementInfo> {
+    private final Supplier<SqlStatementInfo> sanitization;
+
+    PendingSanitization(Supplier<SqlStatementInfo> sanitization) {
+      super(sanitization::get);
+      this.sanitization = sanitization;
+    }
+  }
+
+  /** A long statement as seen by the calling thread. */
+  static final class PreparedStatement {
+    final WeakReference<String> statement;
+    @Nullable final SqlStatementFingerprint fingerprint;
+    // the sanitized statement if it is cached, null if it has to be sanitized
+    @Nullable final SqlStatementInfo cached;
+    // only the operation and main identifier, if the statement is not cached
+    @Nullable final SqlStatementInfo operation;
+
+    private PreparedStatement(
+        String statement,
+        @Nullable SqlStatementFingerprint fingerprint,
+        @Nullable SqlStatementInfo cached,
+        @Nullable SqlStatementInfo operation) {
+      this.statement = new WeakReference<>(statement);
+      this.fingerprint = fingerprint;
+      this.cached = cached;
+      this.operation = operation;
+    }
+
+    static PreparedStatement create(String statement) {
+      SqlStatementInfo cached = SqlStatementSanitizer.getCachedByText(statement);
+      if (cached != null) {
+        return new PreparedStatement(statement, null, cached, null);
+      }
+      SqlStatementFingerprint fingerprint =
+          SqlStatementFingerprint.compute(statement, SqlDialect.DEFAULT);
+      cached =
+          fingerprint != null ? SqlStatementSanitizer.getCachedByFingerprint(fingerprint) : null;
+      if (cached != null) {
+        return new PreparedStatement(statement, fingerprint, cached, null);
+      }
+      // lexes at most a bounded prefix of the statement, and is not cached since the statement is
+      // about to be sanitized anyway
+      SqlStatementInfo operation =
+          AutoSqlSanitizer.sanitize(statement, SqlDialect.DEFAULT, /* operationOnly= */ true);
+      return new PreparedStatement(statement, fingerprint, null, operation);
+    }
+
+    /** Returns the info the calling thread can use when the operation starts. */
+    SqlStatementInfo getStartInfo() {
+      return cached != null ? cached : operation;
+    }
+
+    boolean shouldSanitizeAsync() {
+      return cached == null;
+    }
+  }
+
+  // lazily starts the threads only when asynchronous sanitization is actually used
+  private static final class ExecutorHolder {
+    static final Executor EXECUTOR = createExecutor(MAX_THREADS, MAX_QUEUED);
+  }
+
+  // visible for testing
+  static ThreadPoolExecutor createExecutor(int maxThreads, int maxQueued) {
+    AtomicInteger threadCount = new AtomicInteger();
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            maxThreads,
+            maxThreads,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(maxQueued),
+            runnable ->
+                doPrivileged(
+                    () -> {
+                      Thread result =
+                          new Thread(
+                              runnable, "otel-sql-sanitizer-" + threadCount.incrementAndGet());
+                      result.setDaemon(true);
+                      result.setContextClassLoader(null);
+                      return result;
+                    }),
+            // the caller sanitizes the statement itself instead of dropping it
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  private static <T> T doPrivileged(PrivilegedAction<T> action) {
+    if (System.getSecurityManager() == null) {
+      return action.run();
+    }
+    return java.security.AccessController.doPrivileged(action);
+  }
+}
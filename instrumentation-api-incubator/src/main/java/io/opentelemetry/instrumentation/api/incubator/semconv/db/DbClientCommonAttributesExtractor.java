@@ -49,7 +49,7 @@ abstract class DbClientCommonAttributesExtractor<
   }
 
   @Override
-  public final void onEnd(
+  public void onEnd(
       AttributesBuilder attributes,
       Context context,
       REQUEST request,
@@ -94,7 +94,13 @@ public abstract class DbClientSpanNameExtractor<REQUEST> implements SpanNameExtr
     @Override
     public String extract(REQUEST request) {
       String namespace = getter.getDbNamespace(request);
-      SqlStatementInfo sanitizedStatement = sanitizer.sanitize(getter.getRawQueryText(request));
+      String rawQueryText = getter.getRawQueryText(request);
+      // don't sanitize the whole statement on the calling thread if it's going to be sanitized
+      // asynchronously anyway
+      AsyncSqlSanitizer.PreparedStatement prepared =
+          AsyncSqlSanitizer.prepare(AsyncSqlSanitizer.DEFAULT_THRESHOLD, rawQueryText);
+      SqlStatementInfo sanitizedStatement =
+          prepared != null ? prepared.getStartInfo() : sanitizer.sanitize(rawQueryText);
       return computeSpanName(
           namespace, sanitizedStatement.getOperation(), sanitizedStatement.getMainIdentifier());
     }
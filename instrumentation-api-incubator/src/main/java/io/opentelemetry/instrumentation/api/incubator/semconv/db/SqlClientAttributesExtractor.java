@@ -12,6 +12,8 @@ import io.opentelemetry.api.common.AttributesBuilder;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.instrumentation.api.instrumenter.AttributesExtractor;
 import io.opentelemetry.instrumentation.api.internal.SemconvStability;
+import io.opentelemetry.instrumentation.api.internal.cache.Cache;
+import javax.annotation.Nullable;
 
 /**
  * Extractor of <a
@@ -57,14 +59,22 @@ public final class SqlClientAttributesExtractor<REQUEST, RESPONSE>
 
   private final AttributeKey<String> oldSemconvTableAttribute;
   private final boolean statementSanitizationEnabled;
+  private final int asyncSanitizationThreshold;
+  // statements that are being sanitized in the background, by the request they belong to
+  @Nullable
+  private final Cache<REQUEST, AsyncSqlSanitizer.PendingSanitization> pendingStatements;
 
   SqlClientAttributesExtractor(
       SqlClientAttributesGetter<REQUEST> getter,
       AttributeKey<String> oldSemconvTableAttribute,
-      boolean statementSanitizationEnabled) {
+      boolean statementSanitizationEnabled,
+      int asyncSanitizationThreshold) {
     super(getter);
     this.oldSemconvTableAttribute = oldSemconvTableAttribute;
     this.statementSanitizationEnabled = statementSanitizationEnabled;
+    this.asyncSanitizationThreshold = asyncSanitizationThreshold;
+    this.pendingStatements =
+        statementSanitizationEnabled && asyncSanitizationThreshold > 0 ? Cache.weak() : null;
   }
 
   @Override
@@ -72,7 +82,28 @@ public final class SqlClientAttributesExtractor<REQUEST, RESPONSE>
     super.onStart(attributes, parentContext, request);
 
     String rawQueryText = getter.getRawQueryText(request);
-    SqlStatementInfo sanitizedStatement = sanitizer.sanitize(rawQueryText);
+    SqlStatementInfo sanitizedStatement = null;
+    if (pendingStatements != null) {
+      // reuses what the span name extractor found out about the statement
+      AsyncSqlSanitizer.PreparedStatement prepared =
+          AsyncSqlSanitizer.prepare(asyncSanitizationThreshold, rawQueryText);
+      if (prepared != null) {
+        if (prepared.shouldSanitizeAsync()) {
+          // the query text attribute is set in onEnd()
+          pendingStatements.put(
+              request, AsyncSqlSanitizer.sanitizeAsync(sanitizer, rawQueryText, prepared));
+        }
+        sanitizedStatement = prepared.getStartInfo();
+      }
+    }
+    if (pendingStatements != null || AsyncSqlSanitizer.DEFAULT_THRESHOLD > 0) {
+      // the span name extractor may have prepared the statement even if this extractor doesn't
+      // sanitize it asynchronously
+      AsyncSqlSanitizer.clearPrepared();
+    }
+    if (sanitizedStatement == null) {
+      sanitizedStatement = sanitizer.sanitize(rawQueryText);
+    }
     String operation = sanitizedStatement.getOperation();
     if (SemconvStability.emitStableDatabaseSemconv()) {
       internalSet(
@@ -97,4 +128,28 @@ public final class SqlClientAttributesExtractor<REQUEST, RESPONSE>
       }
     }
   }
+
+  @Override
+  public void onEnd(
+      AttributesBuilder attributes,
+      Context context,
+      REQUEST request,
+      @Nullable RESPONSE response,
+      @Nullable Throwable error) {
+    if (pendingStatements == null) {
+      return;
+    }
+    AsyncSqlSanitizer.PendingSanitization pendingStatement = pendingStatements.get(request);
+    if (pendingStatement == null) {
+      return;
+    }
+    pendingStatements.remove(request);
+    String queryText = AsyncSqlSanitizer.join(pendingStatement).getFullStatement();
+    if (SemconvStability.emitStableDatabaseSemconv()) {
+      internalSet(attributes, DB_QUERY_TEXT, queryText);
+    }
+    if (SemconvStability.emitOldDatabaseSemconv()) {
+      internalSet(attributes, DB_STATEMENT, queryText);
+    }
+  }
 }
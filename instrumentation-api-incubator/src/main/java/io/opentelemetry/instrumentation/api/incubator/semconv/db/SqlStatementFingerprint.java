@@ -0,0 +1,236 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.incubator.semconv.db;
+
+import javax.annotation.Nullable;
+
+/**
+ * A literal-insensitive fingerprint of a SQL statement. Statements that differ only in their
+ * literal values and in the whitespace between tokens have the same fingerprint, and are sanitized
+ * to the same {@link SqlStatementInfo}.
+ *
+ * <p>The fingerprint is computed in a single pass over the statement, recognizing literals the same
+ * way as the {@code SqlSanitizer.jflex} lexer. Everything that is not a literal or whitespace is
+ * hashed verbatim. Where the scanner is less precise than the lexer, e.g. for non-ASCII letters, it
+ * errs on the side of hashing text verbatim, which can only make equal shapes look different and
+ * never the other way around. Statements with unterminated quotes get no fingerprint at all.
+ */
+final class SqlStatementFingerprint {
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final long CHECK_MULTIPLIER = 0x9e3779b97f4a7c15L;
+  private static final int UNSUPPORTED = -1;
+
+  private final long hash;
+  private final long check;
+  private final SqlDialect dialect;
+
+  private SqlStatementFingerprint(long hash, long check, SqlDialect dialect) {
+    this.hash = hash;
+    this.check = check;
+    this.dialect = dialect;
+  }
+
+  /**
+   * Returns the fingerprint of the statement, or {@code null} if the statement contains constructs
+   * that the fingerprint does not handle.
+   */
+  @Nullable
+  static SqlStatementFingerprint compute(String statement, SqlDialect dialect) {
+    long hash = FNV_OFFSET_BASIS;
+    long check = 0;
+    int length = statement.length();
+    int i = 0;
+    while (i < length) {
+      char c = statement.charAt(i);
+      int end;
+      if (isWhitespace(c)) {
+        end = i + 1;
+        while (end < length && isWhitespace(statement.charAt(end))) {
+          end++;
+        }
+        hash = (hash ^ ' ') * FNV_PRIME;
+        check = (check + ' ') * CHECK_MULTIPLIER;
+      } else if ((end = literalEnd(statement, i, dialect)) != i) {
+        if (end == UNSUPPORTED) {
+          return null;
+        }
+        // a literal is sanitized to the same "?" as a bind parameter marker
+        hash = (hash ^ '?') * FNV_PRIME;
+        check = (check + '?') * CHECK_MULTIPLIER;
+      } else {
+        end = verbatimEnd(statement, i);
+        if (end == UNSUPPORTED) {
+          return null;
+        }
+        for (int j = i; j < end; j++) {
+          char verbatim = statement.charAt(j);
+          hash = (hash ^ verbatim) * FNV_PRIME;
+          check = (check + verbatim) * CHECK_MULTIPLIER;
+        }
+      }
+      i = end;
+    }
+    return new SqlStatementFingerprint(hash, check, dialect);
+  }
+
+  /**
+   * Returns a second hash of the statement shape, computed independently of {@link #hashCode()}
+   * and {@link #equals(Object)}. Two fingerprints that are equal but have different check values
+   * are a hash collision.
+   */
+  long getCheck() {
+    return check;
+  }
+
+  // returns the end of the literal starting at i, i if there is none, or UNSUPPORTED
+  private static int literalEnd(String statement, int i, SqlDialect dialect) {
+    char c = statement.charAt(i);
+    switch (c) {
+      case '\'':
+        return quotedEnd(statement, i, '\'');
+      case '"':
+        // couchbase uses double quotes for string literals
+        return dialect == SqlDialect.COUCHBASE ? quotedEnd(statement, i, '"') : i;
+      case '$':
+        return statement.startsWith("$$", i) ? dollarQuotedEnd(statement, i) : i;
+      default:
+        return numberEnd(statement, i);
+    }
+  }
+
+  // [.+-]* [0-9] ([0-9] | [eE.+-])* or "0x" [0-9a-fA-F]+
+  private static int numberEnd(String statement, int i) {
+    int length = statement.length();
+    int digit = i;
+    while (digit < length && isSignOrDot(statement.charAt(digit))) {
+      digit++;
+    }
+    if (digit == length || !isDigit(statement.charAt(digit))) {
+      return i;
+    }
+    int end = digit + 1;
+    if (digit == i
+        && statement.charAt(i) == '0'
+        && end + 1 < length
+        && (statement.charAt(end) | 0x20) == 'x'
+        && isHexDigit(statement.charAt(end + 1))) {
+      end += 2;
+      while (end < length && isHexDigit(statement.charAt(end))) {
+        end++;
+      }
+    } else {
+      while (end < length && isNumberPart(statement.charAt(end))) {
+        end++;
+      }
+    }
+    return end;
+  }
+
+  // returns the end of the token that is copied verbatim into the sanitized statement
+  private static int verbatimEnd(String statement, int i) {
+    int length = statement.length();
+    char c = statement.charAt(i);
+    if (isIdentifierStart(c)) {
+      int end = i + 1;
+      while (end < length && isIdentifierPart(statement.charAt(end))) {
+        end++;
+      }
+      return end;
+    }
+    if (c == '"') {
+      return quotedEnd(statement, i, '"');
+    }
+    if (c == '`') {
+      int close = statement.indexOf('`', i + 1);
+      return close < 0 ? UNSUPPORTED : close + 1;
+    }
+    if (c == '$') {
+      // postgres parameter marker, "$" [0-9]*
+      int end = i + 1;
+      while (end < length && isDigit(statement.charAt(end))) {
+        end++;
+      }
+      return end;
+    }
+    return i + 1;
+  }
+
+  // "'" ("''" | [^'])* "'", with either quote char
+  private static int quotedEnd(String statement, int i, char quote) {
+    int length = statement.length();
+    int j = i + 1;
+    while (j < length) {
+      if (statement.charAt(j) == quote) {
+        if (j + 1 < length && statement.charAt(j + 1) == quote) {
+          j += 2;
+          continue;
+        }
+        return j + 1;
+      }
+      j++;
+    }
+    return UNSUPPORTED;
+  }
+
+  // "$$" [^$]* "$$"
+  private static int dollarQuotedEnd(String statement, int i) {
+    int close = statement.indexOf('$', i + 2);
+    if (close < 0 || !statement.startsWith("$$", close)) {
+      return UNSUPPORTED;
+    }
+    return close + 2;
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isHexDigit(char c) {
+    return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+  }
+
+  private static boolean isSignOrDot(char c) {
+    return c == '.' || c == '+' || c == '-';
+  }
+
+  private static boolean isNumberPart(char c) {
+    return isDigit(c) || c == 'e' || c == 'E' || isSignOrDot(c);
+  }
+
+  // treats all non-ASCII chars as letters, the lexer uses the narrower [:letter:] class
+  private static boolean isIdentifierStart(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c >= 0x80;
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return isIdentifierStart(c) || isDigit(c) || c == '.';
+  }
+
+  @Override
+  public boolean equals(@Nullable Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (!(obj instanceof SqlStatementFingerprint)) {
+      return false;
+    }
+    SqlStatementFingerprint other = (SqlStatementFingerprint) obj;
+    return hash == other.hash && dialect == other.dialect;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = Long.hashCode(hash);
+    result = 31 * result + dialect.hashCode();
+    return result;
+  }
+}
@@ -5,7 +5,9 @@
 
 package io.opentelemetry.instrumentation.api.incubator.semconv.db;
 
+import static io.opentelemetry.instrumentation.api.internal.SupportabilityMetrics.CounterNames.SQL_STATEMENT_SANITIZER_CACHE_LOOKUP;
 import static io.opentelemetry.instrumentation.api.internal.SupportabilityMetrics.CounterNames.SQL_STATEMENT_SANITIZER_CACHE_MISS;
+import static io.opentelemetry.instrumentation.api.internal.SupportabilityMetrics.CounterNames.SQL_STATEMENT_SANITIZER_FINGERPRINT_COLLISION;
 
 import com.google.auto.value.AutoValue;
 import io.opentelemetry.instrumentation.api.internal.SupportabilityMetrics;
@@ -19,8 +21,15 @@ import javax.annotation.Nullable;
 public final class SqlStatementSanitizer {
   private static final SupportabilityMetrics supportability = SupportabilityMetrics.instance();
 
+  // looked up first, computing the key only takes the hash code of the statement, which the string
+  // caches
   private static final Cache<CacheKey, SqlStatementInfo> sqlToStatementInfoCache =
-      Cache.bounded(1000);
+      Cache.boundedTinyLfu(1000);
+  // statements that differ only in literals share one entry, keyed by their fingerprint; used when
+  // the statement text itself is not cached, and only for full sanitization since the fingerprint
+  // is computed over the whole statement, while extracting the operation lexes just a prefix
+  private static final Cache<SqlStatementFingerprint, CachedShape> shapeToStatementInfoCache =
+      Cache.boundedTinyLfu(1000);
 
   public static SqlStatementSanitizer create(boolean statementSanitizationEnabled) {
     return new SqlStatementSanitizer(statementSanitizationEnabled);
@@ -40,23 +49,123 @@ public final class SqlStatementSanitizer {
     if (!statementSanitizationEnabled || statement == null) {
       return SqlStatementInfo.create(statement, null, null);
     }
-    return sqlToStatementInfoCache.computeIfAbsent(
-        CacheKey.create(statement, dialect),
-        k -> {
-          supportability.incrementCounter(SQL_STATEMENT_SANITIZER_CACHE_MISS);
-          return AutoSqlSanitizer.sanitize(statement, dialect);
-        });
+    return sanitizeCached(statement, dialect, /* operationOnly= */ false);
+  }
+
+  /**
+   * Extracts only the operation and the main identifier of the statement, without building the
+   * sanitized statement; {@link SqlStatementInfo#getFullStatement()} of the returned info is always
+   * {@code null}. Use this instead of {@link #sanitize(String)} when the sanitized statement is not
+   * needed, as the statement is scanned only up to the point where both are known.
+   *
+   * <p>Only the first {@code 32 * 1024} chars of the statement are scanned. {@link
+   * #sanitize(String)} scans until the sanitized statement reaches that length instead, so it can
+   * find a main identifier that follows long literals where this method returns {@code null}.
+   */
+  public SqlStatementInfo extractOperationAndIdentifier(@Nullable String statement) {
+    if (!statementSanitizationEnabled || statement == null) {
+      return SqlStatementInfo.create(null, null, null);
+    }
+    return sanitizeCached(statement, SqlDialect.DEFAULT, /* operationOnly= */ true);
+  }
+
+  /**
+   * Returns the sanitized statement if its text is cached, or {@code null} if it is not. Doesn't
+   * compute the fingerprint of the statement.
+   */
+  @Nullable
+  static SqlStatementInfo getCachedByText(String statement) {
+    return sqlToStatementInfoCache.get(
+        CacheKey.create(statement, SqlDialect.DEFAULT, /* operationOnly= */ false));
+  }
+
+  /**
+   * Returns the sanitized statement of a statement with the same fingerprint, or {@code null} if
+   * there is none cached.
+   */
+  @Nullable
+  static SqlStatementInfo getCachedByFingerprint(SqlStatementFingerprint fingerprint) {
+    CachedShape cached = shapeToStatementInfoCache.get(fingerprint);
+    return cached != null && cached.check == fingerprint.getCheck() ? cached.info : null;
+  }
+
+  /**
+   * Same as {@link #sanitize(String)}, for a statement whose fingerprint was already computed with
+   * {@link SqlStatementFingerprint#compute(String, SqlDialect)}.
+   */
+  SqlStatementInfo sanitize(String statement, @Nullable SqlStatementFingerprint fingerprint) {
+    if (!statementSanitizationEnabled) {
+      return SqlStatementInfo.create(statement, null, null);
+    }
+    supportability.incrementCounter(SQL_STATEMENT_SANITIZER_CACHE_LOOKUP);
+    CacheKey key = CacheKey.create(statement, SqlDialect.DEFAULT, /* operationOnly= */ false);
+    SqlStatementInfo info = sqlToStatementInfoCache.get(key);
+    return info != null ? info : sanitizeUncached(key, fingerprint);
+  }
+
+  private static SqlStatementInfo sanitizeCached(
+      String statement, SqlDialect dialect, boolean operationOnly) {
+    supportability.incrementCounter(SQL_STATEMENT_SANITIZER_CACHE_LOOKUP);
+    CacheKey key = CacheKey.create(statement, dialect, operationOnly);
+    SqlStatementInfo info = sqlToStatementInfoCache.get(key);
+    if (info != null) {
+      return info;
+    }
+    if (operationOnly) {
+      // lexing the bounded prefix is cheaper than fingerprinting the whole statement
+      return sanitizeUncached(key, null);
+    }
+    // the statement text was not seen recently, but one that differs only in literals may have been
+    return sanitizeUncached(key, SqlStatementFingerprint.compute(statement, dialect));
+  }
+
+  private static SqlStatementInfo sanitizeUncached(
+      CacheKey key, @Nullable SqlStatementFingerprint fingerprint) {
+    String statement = key.getStatement();
+    SqlDialect dialect = key.getDialect();
+    boolean operationOnly = key.isOperationOnly();
+    SqlStatementInfo info = null;
+    if (fingerprint != null) {
+      CachedShape cached = shapeToStatementInfoCache.get(fingerprint);
+      if (cached == null) {
+        supportability.incrementCounter(SQL_STATEMENT_SANITIZER_CACHE_MISS);
+        info = AutoSqlSanitizer.sanitize(statement, dialect, operationOnly);
+        shapeToStatementInfoCache.put(fingerprint, new CachedShape(fingerprint.getCheck(), info));
+      } else if (cached.check == fingerprint.getCheck()) {
+        info = cached.info;
+      } else {
+        supportability.incrementCounter(SQL_STATEMENT_SANITIZER_FINGERPRINT_COLLISION);
+      }
+    }
+    if (info == null) {
+      supportability.incrementCounter(SQL_STATEMENT_SANITIZER_CACHE_MISS);
+      info = AutoSqlSanitizer.sanitize(statement, dialect, operationOnly);
+    }
+    sqlToStatementInfoCache.put(key, info);
+    return info;
+  }
+
+  private static final class CachedShape {
+    private final long check;
+    private final SqlStatementInfo info;
+
+    private CachedShape(long check, SqlStatementInfo info) {
+      this.check = check;
+      this.info = info;
+    }
   }
 
   @AutoValue
   abstract static class CacheKey {
 
-    static CacheKey create(String statement, SqlDialect dialect) {
-      return new AutoValue_SqlStatementSanitizer_CacheKey(statement, dialect);
+    static CacheKey create(String statement, SqlDialect dialect, boolean operationOnly) {
+      return new AutoValue_SqlStatementSanitizer_CacheKey(statement, dialect, operationOnly);
     }
 
     abstract String getStatement();
 
     abstract SqlDialect getDialect();
+
+    abstract boolean isOperationOnly();
   }
 }
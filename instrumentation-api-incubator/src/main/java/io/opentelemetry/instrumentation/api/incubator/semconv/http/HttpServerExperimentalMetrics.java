@@ -19,8 +19,10 @@ import io.opentelemetry.context.Context;
 import io.opentelemetry.context.ContextKey;
 import io.opentelemetry.instrumentation.api.instrumenter.OperationListener;
 import io.opentelemetry.instrumentation.api.instrumenter.OperationMetrics;
+import io.opentelemetry.instrumentation.api.internal.OperationAttributesListener;
 import io.opentelemetry.instrumentation.api.internal.OperationMetricsUtil;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 
 /**
  * {@link OperationListener} which keeps track of <a
@@ -33,7 +35,7 @@ import java.util.logging.Logger;
  * href="https://github.com/open-telemetry/semantic-conventions/blob/main/docs/http/http-metrics.md#metric-httpserverresponsebodysize">the
  * response size</a>.
  */
-public final class HttpServerExperimentalMetrics implements OperationListener {
+public final class HttpServerExperimentalMetrics implements OperationAttributesListener {
 
   private static final ContextKey<Attributes> HTTP_SERVER_EXPERIMENTAL_METRICS_START_ATTRIBUTES =
       ContextKey.named("http-server-experimental-metrics-start-attributes");
@@ -90,6 +92,20 @@ public final class HttpServerExperimentalMetrics implements OperationListener {
 
   @Override
   public void onEnd(Context context, Attributes endAttributes, long endNanos) {
+    doEnd(context, endAttributes, null, endNanos);
+  }
+
+  @Override
+  public void onEnd(
+      Context context, Attributes endAttributes, Attributes operationAttributes, long endNanos) {
+    doEnd(context, endAttributes, operationAttributes, endNanos);
+  }
+
+  private void doEnd(
+      Context context,
+      Attributes endAttributes,
+      @Nullable Attributes operationAttributes,
+      long endNanos) {
     Attributes startAttributes = context.get(HTTP_SERVER_EXPERIMENTAL_METRICS_START_ATTRIBUTES);
     if (startAttributes == null) {
       logger.log(
@@ -102,7 +118,10 @@ public final class HttpServerExperimentalMetrics implements OperationListener {
     // request count (otherwise it will split the timeseries)
     activeRequests.add(-1, startAttributes, context);
 
-    Attributes sizeAttributes = startAttributes.toBuilder().putAll(endAttributes).build();
+    Attributes sizeAttributes =
+        operationAttributes != null
+            ? operationAttributes
+            : startAttributes.toBuilder().putAll(endAttributes).build();
 
     Long requestBodySize = getHttpRequestBodySize(endAttributes, startAttributes);
     if (requestBodySize != null) {
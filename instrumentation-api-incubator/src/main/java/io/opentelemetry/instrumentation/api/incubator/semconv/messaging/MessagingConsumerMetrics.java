@@ -20,16 +20,18 @@ import io.opentelemetry.context.Context;
 import io.opentelemetry.context.ContextKey;
 import io.opentelemetry.instrumentation.api.instrumenter.OperationListener;
 import io.opentelemetry.instrumentation.api.instrumenter.OperationMetrics;
+import io.opentelemetry.instrumentation.api.internal.OperationAttributesListener;
 import io.opentelemetry.instrumentation.api.internal.OperationMetricsUtil;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 
 /**
  * {@link OperationListener} which keeps track of <a
  * href="https://github.com/open-telemetry/semantic-conventions/blob/v1.26.0/docs/messaging/messaging-metrics.md#consumer-metrics">Consumer
  * metrics</a>.
  */
-public final class MessagingConsumerMetrics implements OperationListener {
+public final class MessagingConsumerMetrics implements OperationAttributesListener {
   private static final double NANOS_PER_S = TimeUnit.SECONDS.toNanos(1);
 
   // copied from MessagingIncubatingAttributes
@@ -75,6 +77,20 @@ public final class MessagingConsumerMetrics implements OperationListener {
 
   @Override
   public void onEnd(Context context, Attributes endAttributes, long endNanos) {
+    doEnd(context, endAttributes, null, endNanos);
+  }
+
+  @Override
+  public void onEnd(
+      Context context, Attributes endAttributes, Attributes operationAttributes, long endNanos) {
+    doEnd(context, endAttributes, operationAttributes, endNanos);
+  }
+
+  private void doEnd(
+      Context context,
+      Attributes endAttributes,
+      @Nullable Attributes operationAttributes,
+      long endNanos) {
     MessagingConsumerMetrics.State state = context.get(MESSAGING_CONSUMER_METRICS_STATE);
     if (state == null) {
       logger.log(
@@ -84,7 +100,10 @@ public final class MessagingConsumerMetrics implements OperationListener {
       return;
     }
 
-    Attributes attributes = state.startAttributes().toBuilder().putAll(endAttributes).build();
+    Attributes attributes =
+        operationAttributes != null
+            ? operationAttributes
+            : state.startAttributes().toBuilder().putAll(endAttributes).build();
     receiveDurationHistogram.record(
         (endNanos - state.startTimeNanos()) / NANOS_PER_S, attributes, context);
 
@@ -17,16 +17,18 @@ import io.opentelemetry.context.Context;
 import io.opentelemetry.context.ContextKey;
 import io.opentelemetry.instrumentation.api.instrumenter.OperationListener;
 import io.opentelemetry.instrumentation.api.instrumenter.OperationMetrics;
+import io.opentelemetry.instrumentation.api.internal.OperationAttributesListener;
 import io.opentelemetry.instrumentation.api.internal.OperationMetricsUtil;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 
 /**
  * {@link OperationListener} which keeps track of <a
  * href="https://github.com/open-telemetry/semantic-conventions/blob/v1.26.0/docs/messaging/messaging-metrics.md#metric-messagingpublishduration">Producer
  * metrics</a>.
  */
-public final class MessagingProducerMetrics implements OperationListener {
+public final class MessagingProducerMetrics implements OperationAttributesListener {
   private static final double NANOS_PER_S = TimeUnit.SECONDS.toNanos(1);
 
   private static final ContextKey<MessagingProducerMetrics.State> MESSAGING_PRODUCER_METRICS_STATE =
@@ -60,6 +62,20 @@ public final class MessagingProducerMetrics implements OperationListener {
 
   @Override
   public void onEnd(Context context, Attributes endAttributes, long endNanos) {
+    doEnd(context, endAttributes, null, endNanos);
+  }
+
+  @Override
+  public void onEnd(
+      Context context, Attributes endAttributes, Attributes operationAttributes, long endNanos) {
+    doEnd(context, endAttributes, operationAttributes, endNanos);
+  }
+
+  private void doEnd(
+      Context context,
+      Attributes endAttributes,
+      @Nullable Attributes operationAttributes,
+      long endNanos) {
     MessagingProducerMetrics.State state = context.get(MESSAGING_PRODUCER_METRICS_STATE);
     if (state == null) {
       logger.log(
@@ -69,7 +85,10 @@ public final class MessagingProducerMetrics implements OperationListener {
       return;
     }
 
-    Attributes attributes = state.startAttributes().toBuilder().putAll(endAttributes).build();
+    Attributes attributes =
+        operationAttributes != null
+            ? operationAttributes
+            : state.startAttributes().toBuilder().putAll(endAttributes).build();
 
     publishDurationHistogram.record(
         (endNanos - state.startTimeNanos()) / NANOS_PER_S, attributes, context);
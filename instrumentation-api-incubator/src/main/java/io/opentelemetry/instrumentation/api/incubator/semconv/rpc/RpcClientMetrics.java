@@ -9,23 +9,25 @@ import static java.util.logging.Level.FINE;
 
 import com.google.auto.value.AutoValue;
 import io.opentelemetry.api.common.Attributes;
-import io.opentelemetry.api.metrics.DoubleHistogram;
 import io.opentelemetry.api.metrics.DoubleHistogramBuilder;
 import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.context.ContextKey;
 import io.opentelemetry.instrumentation.api.instrumenter.OperationListener;
 import io.opentelemetry.instrumentation.api.instrumenter.OperationMetrics;
+import io.opentelemetry.instrumentation.api.internal.OperationAttributesListener;
 import io.opentelemetry.instrumentation.api.internal.OperationMetricsUtil;
+import io.opentelemetry.instrumentation.api.internal.metrics.DoubleHistogramRecorder;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 
 /**
  * {@link OperationListener} which keeps track of <a
  * href="https://github.com/open-telemetry/semantic-conventions/blob/main/docs/rpc/rpc-metrics.md#rpc-client">RPC
  * client metrics</a>.
  */
-public final class RpcClientMetrics implements OperationListener {
+public final class RpcClientMetrics implements OperationAttributesListener {
 
   private static final double NANOS_PER_MS = TimeUnit.MILLISECONDS.toNanos(1);
 
@@ -34,7 +36,7 @@ public final class RpcClientMetrics implements OperationListener {
 
   private static final Logger logger = Logger.getLogger(RpcClientMetrics.class.getName());
 
-  private final DoubleHistogram clientDurationHistogram;
+  private final DoubleHistogramRecorder clientDurationHistogram;
 
   private RpcClientMetrics(Meter meter) {
     DoubleHistogramBuilder durationBuilder =
@@ -43,7 +45,9 @@ public final class RpcClientMetrics implements OperationListener {
             .setDescription("The duration of an outbound RPC invocation")
             .setUnit("ms");
     RpcMetricsAdvice.applyClientDurationAdvice(durationBuilder);
-    clientDurationHistogram = durationBuilder.build();
+    clientDurationHistogram =
+        DoubleHistogramRecorder.create(
+            durationBuilder.build(), RpcMetricsAdvice.DURATION_ATTRIBUTES);
   }
 
   /**
@@ -64,6 +68,20 @@ public final class RpcClientMetrics implements OperationListener {
 
   @Override
   public void onEnd(Context context, Attributes endAttributes, long endNanos) {
+    doEnd(context, endAttributes, null, endNanos);
+  }
+
+  @Override
+  public void onEnd(
+      Context context, Attributes endAttributes, Attributes operationAttributes, long endNanos) {
+    doEnd(context, endAttributes, operationAttributes, endNanos);
+  }
+
+  private void doEnd(
+      Context context,
+      Attributes endAttributes,
+      @Nullable Attributes operationAttributes,
+      long endNanos) {
     State state = context.get(RPC_CLIENT_REQUEST_METRICS_STATE);
     if (state == null) {
       logger.log(
@@ -72,10 +90,12 @@ public final class RpcClientMetrics implements OperationListener {
           context);
       return;
     }
+    Attributes attributes =
+        operationAttributes != null
+            ? operationAttributes
+            : state.startAttributes().toBuilder().putAll(endAttributes).build();
     clientDurationHistogram.record(
-        (endNanos - state.startTimeNanos()) / NANOS_PER_MS,
-        state.startAttributes().toBuilder().putAll(endAttributes).build(),
-        context);
+        (endNanos - state.startTimeNanos()) / NANOS_PER_MS, attributes, context);
   }
 
   @AutoValue
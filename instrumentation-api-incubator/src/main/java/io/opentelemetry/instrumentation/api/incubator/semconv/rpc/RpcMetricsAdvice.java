@@ -11,6 +11,8 @@ import io.opentelemetry.api.metrics.DoubleHistogramBuilder;
 import io.opentelemetry.semconv.NetworkAttributes;
 import io.opentelemetry.semconv.ServerAttributes;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 final class RpcMetricsAdvice {
 
@@ -18,42 +20,32 @@ final class RpcMetricsAdvice {
   private static final AttributeKey<Long> RPC_GRPC_STATUS_CODE =
       AttributeKey.longKey("rpc.grpc.status_code");
 
+  // the list of recommended metrics attributes is from
+  // https://github.com/open-telemetry/semantic-conventions/blob/main/docs/rpc/rpc-metrics.md
+  static final List<AttributeKey<?>> DURATION_ATTRIBUTES =
+      Collections.unmodifiableList(
+          Arrays.asList(
+              RpcCommonAttributesExtractor.RPC_SYSTEM,
+              RpcCommonAttributesExtractor.RPC_SERVICE,
+              RpcCommonAttributesExtractor.RPC_METHOD,
+              RPC_GRPC_STATUS_CODE,
+              NetworkAttributes.NETWORK_TYPE,
+              NetworkAttributes.NETWORK_TRANSPORT,
+              ServerAttributes.SERVER_ADDRESS,
+              ServerAttributes.SERVER_PORT));
+
   static void applyClientDurationAdvice(DoubleHistogramBuilder builder) {
     if (!(builder instanceof ExtendedDoubleHistogramBuilder)) {
       return;
     }
-    // the list of recommended metrics attributes is from
-    // https://github.com/open-telemetry/semantic-conventions/blob/main/docs/rpc/rpc-metrics.md
-    ((ExtendedDoubleHistogramBuilder) builder)
-        .setAttributesAdvice(
-            Arrays.asList(
-                RpcCommonAttributesExtractor.RPC_SYSTEM,
-                RpcCommonAttributesExtractor.RPC_SERVICE,
-                RpcCommonAttributesExtractor.RPC_METHOD,
-                RPC_GRPC_STATUS_CODE,
-                NetworkAttributes.NETWORK_TYPE,
-                NetworkAttributes.NETWORK_TRANSPORT,
-                ServerAttributes.SERVER_ADDRESS,
-                ServerAttributes.SERVER_PORT));
+    ((ExtendedDoubleHistogramBuilder) builder).setAttributesAdvice(DURATION_ATTRIBUTES);
   }
 
   static void applyServerDurationAdvice(DoubleHistogramBuilder builder) {
     if (!(builder instanceof ExtendedDoubleHistogramBuilder)) {
       return;
     }
-    // the list of recommended metrics attributes is from
-    // https://github.com/open-telemetry/semantic-conventions/blob/main/docs/rpc/rpc-metrics.md
-    ((ExtendedDoubleHistogramBuilder) builder)
-        .setAttributesAdvice(
-            Arrays.asList(
-                RpcCommonAttributesExtractor.RPC_SYSTEM,
-                RpcCommonAttributesExtractor.RPC_SERVICE,
-                RpcCommonAttributesExtractor.RPC_METHOD,
-                RPC_GRPC_STATUS_CODE,
-                NetworkAttributes.NETWORK_TYPE,
-                NetworkAttributes.NETWORK_TRANSPORT,
-                ServerAttributes.SERVER_ADDRESS,
-                ServerAttributes.SERVER_PORT));
+    ((ExtendedDoubleHistogramBuilder) builder).setAttributesAdvice(DURATION_ATTRIBUTES);
   }
 
   private RpcMetricsAdvice() {}
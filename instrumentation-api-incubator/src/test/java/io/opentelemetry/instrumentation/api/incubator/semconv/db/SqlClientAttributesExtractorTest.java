@@ -18,6 +18,10 @@ import io.opentelemetry.semconv.incubating.DbIncubatingAttributes;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
 @SuppressWarnings("deprecation") // using deprecated semconv
@@ -115,6 +119,124 @@ class SqlClientAttributesExtractorTest {
     assertThat(endAttributes.build().isEmpty()).isTrue();
   }
 
+  @Test
+  void shouldSanitizeLongStatementsAsynchronously() {
+    // given
+    Map<String, String> request = new HashMap<>();
+    request.put("db.statement", "SELECT * FROM async_potato WHERE id=12345");
+
+    Context context = Context.root();
+
+    SqlClientAttributesExtractorBuilder<Map<String, String>, Void> builder =
+        SqlClientAttributesExtractor.builder(new TestAttributesGetter());
+    builder.asyncSanitizationThreshold = 10;
+    AttributesExtractor<Map<String, String>, Void> underTest = builder.build();
+
+    // when
+    AttributesBuilder startAttributes = Attributes.builder();
+    underTest.onStart(startAttributes, context, request);
+
+    // onEnd() collects the sanitized statement even if the background sanitization isn't done
+    AttributesBuilder endAttributes = Attributes.builder();
+    underTest.onEnd(endAttributes, context, request, null, null);
+
+    // then
+    if (SemconvStability.emitOldDatabaseSemconv()) {
+      assertThat(startAttributes.build().get(DbIncubatingAttributes.DB_STATEMENT)).isNull();
+      assertThat(startAttributes.build().get(DbIncubatingAttributes.DB_OPERATION))
+          .isEqualTo("SELECT");
+      assertThat(startAttributes.build().get(DbIncubatingAttributes.DB_SQL_TABLE))
+          .isEqualTo("async_potato");
+      assertThat(endAttributes.build().get(DbIncubatingAttributes.DB_STATEMENT))
+          .isEqualTo("SELECT * FROM async_potato WHERE id=?");
+    }
+    if (SemconvStability.emitStableDatabaseSemconv()) {
+      assertThat(startAttributes.build().get(stringKey("db.query.text"))).isNull();
+      assertThat(startAttributes.build().get(stringKey("db.collection.name")))
+          .isEqualTo("async_potato");
+      assertThat(endAttributes.build().get(stringKey("db.query.text")))
+          .isEqualTo("SELECT * FROM async_potato WHERE id=?");
+    }
+  }
+
+  @Test
+  void shouldRunPendingSanitizationOnCallingThread() {
+    AsyncSqlSanitizer.PendingSanitization notStarted =
+        new AsyncSqlSanitizer.PendingSanitization(
+            () -> SqlStatementInfo.create("SELECT ?", "SELECT", null));
+
+    assertThat(AsyncSqlSanitizer.join(notStarted))
+        .isEqualTo(SqlStatementInfo.create("SELECT ?", "SELECT", null));
+    assertThat(notStarted.isDone()).isTrue();
+  }
+
+  @Test
+  void shouldSanitizeOnCallingThreadWhenBackgroundSanitizationIsSlow() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+    AsyncSqlSanitizer.PendingSanitization slow =
+        new AsyncSqlSanitizer.PendingSanitization(
+            () -> {
+              if (calls.incrementAndGet() == 1) {
+                started.countDown();
+                awaitUninterruptibly(release);
+              }
+              return SqlStatementInfo.create("SELECT ?", "SELECT", null);
+            });
+    Thread background = new Thread(slow);
+    background.start();
+    try {
+      started.await();
+
+      assertThat(AsyncSqlSanitizer.join(slow, TimeUnit.MILLISECONDS.toNanos(1)))
+          .isEqualTo(SqlStatementInfo.create("SELECT ?", "SELECT", null));
+      assertThat(calls.get()).isEqualTo(2);
+    } finally {
+      release.countDown();
+      background.join();
+    }
+  }
+
+  @Test
+  void shouldSanitizeOnCallingThreadWhenQueueIsFull() throws Exception {
+    ThreadPoolExecutor executor = AsyncSqlSanitizer.createExecutor(1, 1);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      // occupies the only thread and the only queue slot
+      executor.execute(
+          () -> {
+            started.countDown();
+            awaitUninterruptibly(release);
+          });
+      started.await();
+      executor.execute(() -> {});
+
+      String statement = "SELECT * FROM full_queue_potato WHERE id=12345";
+      AsyncSqlSanitizer.PreparedStatement prepared =
+          AsyncSqlSanitizer.PreparedStatement.create(statement);
+      AsyncSqlSanitizer.PendingSanitization task =
+          AsyncSqlSanitizer.sanitizeAsync(
+              SqlStatementSanitizer.create(true), statement, prepared, executor);
+
+      assertThat(task.isDone()).isTrue();
+      assertThat(AsyncSqlSanitizer.join(task).getFullStatement())
+          .isEqualTo("SELECT * FROM full_queue_potato WHERE id=?");
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   @Test
   void shouldNotExtractTableIfAttributeIsNotSet() {
     // given
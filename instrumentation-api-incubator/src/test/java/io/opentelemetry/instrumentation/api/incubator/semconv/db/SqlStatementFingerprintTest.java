@@ -0,0 +1,115 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.incubator.semconv.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.ArgumentsProvider;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+
+class SqlStatementFingerprintTest {
+
+  @ParameterizedTest
+  @ArgumentsSource(SameShapeArgs.class)
+  void sameShape(String first, String second) {
+    assertThat(fingerprint(first)).isEqualTo(fingerprint(second));
+    assertThat(fingerprint(first).getCheck()).isEqualTo(fingerprint(second).getCheck());
+  }
+
+  @ParameterizedTest
+  @ArgumentsSource(DifferentShapeArgs.class)
+  void differentShape(String first, String second) {
+    assertThat(fingerprint(first)).isNotEqualTo(fingerprint(second));
+  }
+
+  @Test
+  void dialect() {
+    String first = "SELECT * FROM t WHERE a = \"x\"";
+    String second = "SELECT * FROM t WHERE a = \"y\"";
+
+    assertThat(fingerprint(first)).isNotEqualTo(fingerprint(second));
+    assertThat(SqlStatementFingerprint.compute(first, SqlDialect.COUCHBASE))
+        .isEqualTo(SqlStatementFingerprint.compute(second, SqlDialect.COUCHBASE))
+        .isNotEqualTo(fingerprint(first));
+  }
+
+  @Test
+  void unterminatedQuotes() {
+    assertThat(fingerprint("SELECT * FROM t WHERE a = 'x")).isNull();
+    assertThat(fingerprint("SELECT * FROM t WHERE a = \"x")).isNull();
+    assertThat(fingerprint("SELECT * FROM `t")).isNull();
+    assertThat(fingerprint("SELECT * FROM t WHERE a = $$x")).isNull();
+  }
+
+  @Test
+  void statementsWithSameFingerprintAreSanitizedTheSame() {
+    String[] fragments = {
+      "SELECT ", "FROM ", " in ", "IN", "a", "b1", "_c", "x.y", "1", "42", "0x1f", "0X", "1e5", "e",
+      ".", "+", "-", "'s'", "'it''s'", "'", "\"d\"", "\"", "`e`", "$", "$1", "$$f$$", " ", "\t\n",
+      "(", ")", ",", "?", "/*", "*/", "*", "=", "é", "ß1",
+    };
+    Random random = new Random(0);
+    Map<SqlStatementFingerprint, SqlStatementInfo> sanitizedByFingerprint = new HashMap<>();
+    for (int i = 0; i < 100_000; i++) {
+      StringBuilder statement = new StringBuilder();
+      int fragmentCount = 1 + random.nextInt(8);
+      for (int j = 0; j < fragmentCount; j++) {
+        statement.append(fragments[random.nextInt(fragments.length)]);
+      }
+      for (SqlDialect dialect : SqlDialect.values()) {
+        SqlStatementFingerprint fingerprint =
+            SqlStatementFingerprint.compute(statement.toString(), dialect);
+        if (fingerprint == null) {
+          continue;
+        }
+        SqlStatementInfo sanitized = AutoSqlSanitizer.sanitize(statement.toString(), dialect);
+        SqlStatementInfo previous = sanitizedByFingerprint.putIfAbsent(fingerprint, sanitized);
+        if (previous != null) {
+          assertThat(sanitized).as(statement.toString()).isEqualTo(previous);
+        }
+      }
+    }
+  }
+
+  private static SqlStatementFingerprint fingerprint(String statement) {
+    return SqlStatementFingerprint.compute(statement, SqlDialect.DEFAULT);
+  }
+
+  static class SameShapeArgs implements ArgumentsProvider {
+
+    @Override
+    public Stream<? extends Arguments> provideArguments(ExtensionContext context) {
+      return Stream.of(
+          Arguments.of("SELECT * FROM t WHERE id = 1", "SELECT * FROM t WHERE id = 12345"),
+          Arguments.of("SELECT * FROM t WHERE a = 'x'", "SELECT  *\tFROM t\nWHERE a = 'it''s'"),
+          Arguments.of("SELECT * FROM t WHERE a = -1.5e-3", "SELECT * FROM t WHERE a = 0x1F"),
+          Arguments.of("SELECT * FROM t WHERE a = $$x$$", "SELECT * FROM t WHERE a = ?"),
+          Arguments.of("SELECT * FROM t WHERE a=1 AND b=2", "SELECT * FROM t WHERE a=3 AND b=4"));
+    }
+  }
+
+  static class DifferentShapeArgs implements ArgumentsProvider {
+
+    @Override
+    public Stream<? extends Arguments> provideArguments(ExtensionContext context) {
+      return Stream.of(
+          Arguments.of("SELECT * FROM t WHERE id = 1", "SELECT * FROM u WHERE id = 1"),
+          Arguments.of("SELECT * FROM t1", "SELECT * FROM t2"),
+          Arguments.of("SELECT \"a b\" FROM t", "SELECT \"a  b\" FROM t"),
+          Arguments.of("SELECT `a` FROM t", "SELECT `b` FROM t"),
+          Arguments.of("SELECT $1 FROM t", "SELECT $2 FROM t"),
+          Arguments.of("SELECT a FROM t", "select a from t"));
+    }
+  }
+}
@@ -44,6 +44,18 @@ public class SqlStatementSanitizerTest {
     assertThat(result.getMainIdentifier()).isEqualToIgnoringCase(expected.getMainIdentifier());
   }
 
+  @ParameterizedTest
+  @ArgumentsSource(SimplifyArgs.class)
+  void extractOperationAndIdentifier(
+      String original, Function<String, SqlStatementInfo> expectedFunction) {
+    SqlStatementInfo result =
+        SqlStatementSanitizer.create(true).extractOperationAndIdentifier(original);
+    SqlStatementInfo expected = expectedFunction.apply(original);
+    assertThat(result.getFullStatement()).isNull();
+    assertThat(result.getOperation()).isEqualTo(expected.getOperation());
+    assertThat(result.getMainIdentifier()).isEqualToIgnoringCase(expected.getMainIdentifier());
+  }
+
   @Test
   void veryLongSelectStatementsAreOk() {
     StringBuilder sb = new StringBuilder("SELECT * FROM table WHERE");
@@ -60,6 +72,53 @@ public class SqlStatementSanitizerTest {
     assertThat(result).isEqualTo(expected);
   }
 
+  @Test
+  void extractOperationAndIdentifierOnlyLexesPrefix() {
+    StringBuilder sb = new StringBuilder("SELECT ");
+    while (sb.length() < AutoSqlSanitizer.LIMIT) {
+      sb.append("column, ");
+    }
+
+    SqlStatementInfo result =
+        SqlStatementSanitizer.create(true)
+            .extractOperationAndIdentifier(sb + "column FROM table WHERE id = 1");
+
+    assertThat(result.getOperation()).isEqualTo("SELECT");
+    // the table name is past the prefix that is lexed, and past the prefix that is sanitized as
+    // the columns are not shortened by sanitizing them
+    assertThat(result.getMainIdentifier()).isNull();
+  }
+
+  @Test
+  void extractOperationAndIdentifierCutsOffLongLiteralsBeforeSanitizing() {
+    StringBuilder literal = new StringBuilder();
+    while (literal.length() < AutoSqlSanitizer.LIMIT) {
+      literal.append("value ");
+    }
+    String statement = "SELECT '" + literal + "' FROM table WHERE id = 1";
+    SqlStatementSanitizer sanitizer = SqlStatementSanitizer.create(true);
+
+    // the sanitized statement is cut off after LIMIT chars, the literal is replaced by ? before
+    assertThat(sanitizer.sanitize(statement).getMainIdentifier()).isEqualTo("table");
+    // the operation is extracted from the first LIMIT chars of the statement, before sanitizing
+    SqlStatementInfo result = sanitizer.extractOperationAndIdentifier(statement);
+    assertThat(result.getOperation()).isEqualTo("SELECT");
+    assertThat(result.getMainIdentifier()).isNull();
+  }
+
+  @Test
+  void extractOperationAndIdentifierDoesNotFingerprintStatement() {
+    String statement = "SELECT * FROM operation_only_not_fingerprinted WHERE id = 1";
+    SqlStatementFingerprint fingerprint =
+        SqlStatementFingerprint.compute(statement, SqlDialect.DEFAULT);
+
+    SqlStatementSanitizer.create(true).extractOperationAndIdentifier(statement);
+    assertThat(SqlStatementSanitizer.getCachedByFingerprint(fingerprint)).isNull();
+
+    SqlStatementSanitizer.create(true).sanitize(statement);
+    assertThat(SqlStatementSanitizer.getCachedByFingerprint(fingerprint)).isNotNull();
+  }
+
   @ParameterizedTest
   @ArgumentsSource(DdlArgs.class)
   void checkDdlOperationStatementsAreOk(
@@ -228,7 +287,16 @@ public class SqlStatementSanitizerTest {
               "SELECT * FROM TABLE WHERE FIELD1 = ? AND FIELD2 = ?"),
 
           // hibernate/jpa query language
-          Arguments.of("FROM TABLE WHERE FIELD=1234", "FROM TABLE WHERE FIELD=?"));
+          Arguments.of("FROM TABLE WHERE FIELD=1234", "FROM TABLE WHERE FIELD=?"),
+
+          // in lists
+          Arguments.of("SELECT a FROM b WHERE c IN\n( 1 ,\t? )", "SELECT a FROM b WHERE c IN (?)"),
+          Arguments.of("SELECT a FROM b WHERE c IN (1, d)", "SELECT a FROM b WHERE c IN (?, d)"),
+          Arguments.of("SELECT a FROM b WHERE c IN (?,)", "SELECT a FROM b WHERE c IN (?,)"),
+          Arguments.of("SELECT a FROM b WHERE cIN (1, 2)", "SELECT a FROM b WHERE cIN (?, ?)"),
+          Arguments.of(
+              "SELECT a FROM b WHERE c IN (IN (1, 2)) /* in (3, 4) */",
+              "SELECT a FROM b WHERE c IN (IN (?, ?)) /* in (?) */"));
     }
   }
 
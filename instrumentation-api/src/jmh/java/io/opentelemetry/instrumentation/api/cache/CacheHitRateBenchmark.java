@@ -0,0 +1,119 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.cache;
+
+import io.opentelemetry.instrumentation.api.internal.cache.Cache;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the hit rate of the bounded cache implementations on a skewed (Zipfian) key
+ * distribution, with and without bursts of one-off keys mixed in. The hit rate is reported through
+ * the {@code hits} and {@code misses} auxiliary counters.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class CacheHitRateBenchmark {
+
+  private static final int CAPACITY = 1000;
+  private static final int KEY_SPACE = 100_000;
+  private static final int TRACE_LENGTH = 1 << 20;
+
+  @Param({"lru", "tinylfu"})
+  public String cacheType;
+
+  @Param({"zipfian", "zipfian_scan"})
+  public String trace;
+
+  private Cache<Integer, Integer> cache;
+  private Integer[] keys;
+  private int index;
+  private long loads;
+  private final Function<Integer, Integer> mappingFunction =
+      key -> {
+        loads++;
+        return key;
+      };
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    cache = "lru".equals(cacheType) ? Cache.bounded(CAPACITY) : Cache.boundedTinyLfu(CAPACITY);
+    keys = generateTrace("zipfian_scan".equals(trace));
+  }
+
+  @Benchmark
+  public Integer lookup(HitCounters counters) {
+    Integer key = keys[index++ & (TRACE_LENGTH - 1)];
+    // a single lookup per key, so that each miss is recorded once in the frequency sketch
+    long loadsBefore = loads;
+    Integer value = cache.computeIfAbsent(key, mappingFunction);
+    if (loads == loadsBefore) {
+      counters.hits++;
+    } else {
+      counters.misses++;
+    }
+    return value;
+  }
+
+  private static Integer[] generateTrace(boolean withScans) {
+    double[] cdf = new double[KEY_SPACE];
+    double sum = 0;
+    for (int i = 0; i < KEY_SPACE; i++) {
+      sum += 1.0 / (i + 1);
+      cdf[i] = sum;
+    }
+
+    Random random = new Random(42);
+    Integer[] keys = new Integer[TRACE_LENGTH];
+    int scanKey = KEY_SPACE;
+    for (int i = 0; i < TRACE_LENGTH; i++) {
+      // every 64k lookups, a burst of 4k keys that are each seen once
+      if (withScans && (i & 0xffff) < 0x1000) {
+        keys[i] = scanKey++;
+        continue;
+      }
+      int rank = binarySearch(cdf, random.nextDouble() * sum);
+      keys[i] = rank;
+    }
+    return keys;
+  }
+
+  private static int binarySearch(double[] cdf, double value) {
+    int low = 0;
+    int high = cdf.length - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (cdf[mid] < value) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class HitCounters {
+    public long hits;
+    public long misses;
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.cache;
+
+import io.opentelemetry.instrumentation.api.internal.cache.Cache;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the weak caches the way the virtual field fallback uses them when context is propagated
+ * to tasks: a value is put for a new key, read once and removed again.
+ */
+@Fork(3)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WeakCacheBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class CacheState {
+    @Param({"weak", "weakStriped", "weakGenerational"})
+    String implementation;
+
+    Cache<Object, Object> cache;
+
+    @Setup
+    public void setUp() {
+      switch (implementation) {
+        case "weak":
+          cache = Cache.weak();
+          break;
+        case "weakStriped":
+          cache = Cache.weakStriped();
+          break;
+        default:
+          cache = Cache.weakGenerational();
+          break;
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    // keys that stay in the cache, like the tasks that wait in a queue
+    final Object[] queuedKeys = new Object[64];
+    int index;
+
+    @Setup
+    public void setUp(CacheState cacheState) {
+      for (int i = 0; i < queuedKeys.length; i++) {
+        queuedKeys[i] = new Object();
+        cacheState.cache.put(queuedKeys[i], "queued");
+      }
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void threads01_task(CacheState cacheState, ThreadState threadState, Blackhole blackhole) {
+    task(cacheState.cache, blackhole);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void threads08_task(CacheState cacheState, ThreadState threadState, Blackhole blackhole) {
+    task(cacheState.cache, blackhole);
+  }
+
+  @Benchmark
+  @Threads(32)
+  public void threads32_task(CacheState cacheState, ThreadState threadState, Blackhole blackhole) {
+    task(cacheState.cache, blackhole);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void threads01_get(CacheState cacheState, ThreadState threadState, Blackhole blackhole) {
+    get(cacheState.cache, threadState, blackhole);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void threads08_get(CacheState cacheState, ThreadState threadState, Blackhole blackhole) {
+    get(cacheState.cache, threadState, blackhole);
+  }
+
+  @Benchmark
+  @Threads(32)
+  public void threads32_get(CacheState cacheState, ThreadState threadState, Blackhole blackhole) {
+    get(cacheState.cache, threadState, blackhole);
+  }
+
+  private static void task(Cache<Object, Object> cache, Blackhole blackhole) {
+    Object key = new Object();
+    cache.put(key, "context");
+    blackhole.consume(cache.get(key));
+    cache.remove(key);
+  }
+
+  private static void get(
+      Cache<Object, Object> cache, ThreadState threadState, Blackhole blackhole) {
+    Object[] keys = threadState.queuedKeys;
+    int index = threadState.index = (threadState.index + 1) & (keys.length - 1);
+    blackhole.consume(cache.get(keys[index]));
+  }
+}
@@ -7,6 +7,7 @@ package io.opentelemetry.instrumentation.api.instrumenter;
 
 import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.api.internal.InstrumenterUtil;
 import io.opentelemetry.instrumentation.api.semconv.http.HttpClientAttributesExtractor;
 import io.opentelemetry.instrumentation.api.semconv.http.HttpClientAttributesGetter;
 import io.opentelemetry.instrumentation.api.semconv.http.HttpSpanNameExtractor;
@@ -33,14 +34,20 @@ import org.openjdk.jmh.annotations.Warmup;
 @State(Scope.Thread)
 public class InstrumenterBenchmark {
 
-  private static final Instrumenter<Void, Void> INSTRUMENTER =
-      Instrumenter.<Void, Void>builder(
-              OpenTelemetry.noop(),
-              "benchmark",
-              HttpSpanNameExtractor.create(ConstantHttpAttributesGetter.INSTANCE))
-          .addAttributesExtractor(
-              HttpClientAttributesExtractor.create(ConstantHttpAttributesGetter.INSTANCE))
-          .buildInstrumenter();
+  private static final Instrumenter<Void, Void> INSTRUMENTER = builder().buildInstrumenter();
+
+  // compare gc.alloc.rate.norm (reported by the gc profiler) of startEnd and startEnd_reuseBuffers
+  private static final Instrumenter<Void, Void> REUSING_INSTRUMENTER =
+      InstrumenterUtil.reuseBuffers(builder(), true).buildInstrumenter();
+
+  private static InstrumenterBuilder<Void, Void> builder() {
+    return Instrumenter.<Void, Void>builder(
+            OpenTelemetry.noop(),
+            "benchmark",
+            HttpSpanNameExtractor.create(ConstantHttpAttributesGetter.INSTANCE))
+        .addAttributesExtractor(
+            HttpClientAttributesExtractor.create(ConstantHttpAttributesGetter.INSTANCE));
+  }
 
   @Benchmark
   public Context start() {
@@ -54,6 +61,13 @@ public class InstrumenterBenchmark {
     return context;
   }
 
+  @Benchmark
+  public Context startEnd_reuseBuffers() {
+    Context context = REUSING_INSTRUMENTER.start(Context.root(), null);
+    REUSING_INSTRUMENTER.end(context, null, null, null);
+    return context;
+  }
+
   enum ConstantHttpAttributesGetter implements HttpClientAttributesGetter<Void, Void> {
     INSTANCE;
 
@@ -6,6 +6,7 @@
 package io.opentelemetry.instrumentation.api.instrumenter;
 
 import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanBuilder;
 import io.opentelemetry.api.trace.SpanKind;
@@ -15,6 +16,7 @@ import io.opentelemetry.context.ContextKey;
 import io.opentelemetry.instrumentation.api.internal.HttpRouteState;
 import io.opentelemetry.instrumentation.api.internal.InstrumenterAccess;
 import io.opentelemetry.instrumentation.api.internal.InstrumenterUtil;
+import io.opentelemetry.instrumentation.api.internal.OperationAttributesListener;
 import io.opentelemetry.instrumentation.api.internal.SupportabilityMetrics;
 import java.time.Instant;
 import java.util.concurrent.TimeUnit;
@@ -44,6 +46,8 @@ public class Instrumenter<REQUEST, RESPONSE> {
 
   private static final ContextKey<OperationListener[]> START_OPERATION_LISTENERS =
       ContextKey.named("instrumenter-start-operation-listeners");
+  private static final ContextKey<Attributes> OPERATION_START_ATTRIBUTES =
+      ContextKey.named("instrumenter-operation-start-attributes");
 
   /**
    * Returns a new {@link InstrumenterBuilder}.
@@ -77,8 +81,10 @@ public class Instrumenter<REQUEST, RESPONSE> {
   private final AttributesExtractor<? super REQUEST, ? super RESPONSE>[] attributesExtractors;
   private final ContextCustomizer<? super REQUEST>[] contextCustomizers;
   private final OperationListener[] operationListeners;
+  private final boolean hasOperationAttributesListeners;
   private final ErrorCauseExtractor errorCauseExtractor;
   private final boolean propagateOperationListenersToOnEnd;
+  private final boolean reuseBuffers;
   private final boolean enabled;
   private final SpanSuppressor spanSuppressor;
 
@@ -93,8 +99,10 @@ public class Instrumenter<REQUEST, RESPONSE> {
     this.attributesExtractors = builder.attributesExtractors.toArray(new AttributesExtractor[0]);
     this.contextCustomizers = builder.contextCustomizers.toArray(new ContextCustomizer[0]);
     this.operationListeners = builder.buildOperationListeners().toArray(new OperationListener[0]);
+    this.hasOperationAttributesListeners = hasOperationAttributesListeners(operationListeners);
     this.errorCauseExtractor = builder.errorCauseExtractor;
     this.propagateOperationListenersToOnEnd = builder.propagateOperationListenersToOnEnd;
+    this.reuseBuffers = builder.reuseBuffers;
     this.enabled = builder.enabled;
     this.spanSuppressor = builder.buildSpanSuppressor();
   }
@@ -172,11 +180,15 @@ public class Instrumenter<REQUEST, RESPONSE> {
       spanBuilder.setStartTimestamp(startTime);
     }
 
-    SpanLinksBuilder spanLinksBuilder = new SpanLinksBuilderImpl(spanBuilder);
-    for (SpanLinksExtractor<? super REQUEST> spanLinksExtractor : spanLinksExtractors) {
-      spanLinksExtractor.extract(spanLinksBuilder, parentContext, request);
+    if (spanLinksExtractors.length != 0) {
+      SpanLinksBuilder spanLinksBuilder = new SpanLinksBuilderImpl(spanBuilder);
+      for (SpanLinksExtractor<? super REQUEST> spanLinksExtractor : spanLinksExtractors) {
+        spanLinksExtractor.extract(spanLinksBuilder, parentContext, request);
+      }
     }
 
+    // start attributes are never taken from InstrumenterBuffers: context customizers and operation
+    // listeners are allowed to hold on to them until the operation ends
     UnsafeAttributes attributes = new UnsafeAttributes();
     for (AttributesExtractor<? super REQUEST, ? super RESPONSE> extractor : attributesExtractors) {
       extractor.onStart(attributes, parentContext, request);
@@ -203,6 +215,10 @@ public class Instrumenter<REQUEST, RESPONSE> {
       for (int i = 0; i < operationListeners.length; i++) {
         context = operationListeners[i].onStart(context, attributes, startNanos);
       }
+      if (hasOperationAttributesListeners) {
+        // keep the start attributes so that they can be merged with the end attributes only once
+        context = context.with(OPERATION_START_ATTRIBUTES, attributes);
+      }
     }
     if (propagateOperationListenersToOnEnd || context.get(START_OPERATION_LISTENERS) != null) {
       // when start and end are not called on the same instrumenter we need to use the operation
@@ -230,6 +246,23 @@ public class Instrumenter<REQUEST, RESPONSE> {
       @Nullable RESPONSE response,
       @Nullable Throwable error,
       @Nullable Instant endTime) {
+    InstrumenterBuffers buffers = reuseBuffers ? InstrumenterBuffers.borrow() : null;
+    try {
+      doEnd(context, request, response, error, endTime, buffers);
+    } finally {
+      if (buffers != null) {
+        buffers.release();
+      }
+    }
+  }
+
+  private void doEnd(
+      Context context,
+      REQUEST request,
+      @Nullable RESPONSE response,
+      @Nullable Throwable error,
+      @Nullable Instant endTime,
+      @Nullable InstrumenterBuffers buffers) {
     Span span = Span.fromContext(context);
 
     if (error != null) {
@@ -237,7 +270,9 @@ public class Instrumenter<REQUEST, RESPONSE> {
       span.recordException(error);
     }
 
-    UnsafeAttributes attributes = new UnsafeAttributes();
+    // end attributes are only passed to the span (which copies them) and to the operation
+    // listeners, which must not keep a reference to them after onEnd() returns
+    UnsafeAttributes attributes = buffers != null ? buffers.endAttributes : new UnsafeAttributes();
     for (AttributesExtractor<? super REQUEST, ? super RESPONSE> extractor : attributesExtractors) {
       extractor.onEnd(attributes, context, request, response, error);
     }
@@ -249,12 +284,30 @@ public class Instrumenter<REQUEST, RESPONSE> {
     }
     if (operationListeners.length != 0) {
       long endNanos = getNanos(endTime);
+      Attributes startAttributes = context.get(OPERATION_START_ATTRIBUTES);
+      Attributes operationAttributes = null;
       for (int i = operationListeners.length - 1; i >= 0; i--) {
-        operationListeners[i].onEnd(context, attributes, endNanos);
+        OperationListener operationListener = operationListeners[i];
+        if (startAttributes != null && operationListener instanceof OperationAttributesListener) {
+          if (operationAttributes == null) {
+            operationAttributes =
+                Attributes.builder().putAll(startAttributes).putAll(attributes).build();
+          }
+          ((OperationAttributesListener) operationListener)
+              .onEnd(context, attributes, operationAttributes, endNanos);
+        } else {
+          operationListener.onEnd(context, attributes, endNanos);
+        }
       }
     }
 
-    SpanStatusBuilder spanStatusBuilder = new SpanStatusBuilderImpl(span);
+    SpanStatusBuilderImpl spanStatusBuilder;
+    if (buffers != null) {
+      spanStatusBuilder = buffers.spanStatusBuilder;
+      spanStatusBuilder.reset(span);
+    } else {
+      spanStatusBuilder = new SpanStatusBuilderImpl(span);
+    }
     spanStatusExtractor.extract(spanStatusBuilder, request, response, error);
 
     if (endTime != null) {
@@ -264,6 +317,15 @@ public class Instrumenter<REQUEST, RESPONSE> {
     }
   }
 
+  private static boolean hasOperationAttributesListeners(OperationListener[] operationListeners) {
+    for (OperationListener operationListener : operationListeners) {
+      if (operationListener instanceof OperationAttributesListener) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private static long getNanos(@Nullable Instant time) {
     if (time == null) {
       return System.nanoTime();
@@ -0,0 +1,50 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.instrumenter;
+
+import javax.annotation.Nullable;
+
+/**
+ * Per-thread scratch objects that the {@link Instrumenter} reuses across operations when buffer
+ * reuse is enabled.
+ *
+ * <p>Buffers are borrowed for the duration of a single {@code end()} call and released right
+ * after. A nested call on the same thread (e.g. an {@link OperationListener} that ends another
+ * operation) finds the buffers already borrowed and falls back to allocating fresh objects, so
+ * reuse never leaks state between operations.
+ */
+final class InstrumenterBuffers {
+
+  private static final ThreadLocal<InstrumenterBuffers> buffers =
+      ThreadLocal.withInitial(InstrumenterBuffers::new);
+
+  final UnsafeAttributes endAttributes = new UnsafeAttributes();
+  final SpanStatusBuilderImpl spanStatusBuilder = new SpanStatusBuilderImpl(null);
+
+  private boolean borrowed;
+
+  private InstrumenterBuffers() {}
+
+  /**
+   * Returns the buffers of the current thread, or {@code null} if they are already in use by an
+   * enclosing call.
+   */
+  @Nullable
+  static InstrumenterBuffers borrow() {
+    InstrumenterBuffers current = buffers.get();
+    if (current.borrowed) {
+      return null;
+    }
+    current.borrowed = true;
+    return current;
+  }
+
+  void release() {
+    endAttributes.clear();
+    spanStatusBuilder.reset(null);
+    borrowed = false;
+  }
+}
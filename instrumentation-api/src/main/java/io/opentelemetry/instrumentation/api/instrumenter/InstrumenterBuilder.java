@@ -49,6 +49,10 @@ public final class InstrumenterBuilder<REQUEST, RESPONSE> {
           ConfigPropertiesUtil.getString(
               "otel.instrumentation.experimental.span-suppression-strategy"));
 
+  private static final boolean defaultReuseBuffers =
+      ConfigPropertiesUtil.getBoolean(
+          "otel.instrumentation.experimental.instrumenter.reuse-buffers", false);
+
   final OpenTelemetry openTelemetry;
   final String instrumentationName;
   final SpanNameExtractor<? super REQUEST> spanNameExtractor;
@@ -67,6 +71,7 @@ public final class InstrumenterBuilder<REQUEST, RESPONSE> {
       SpanStatusExtractor.getDefault();
   ErrorCauseExtractor errorCauseExtractor = ErrorCauseExtractor.getDefault();
   boolean propagateOperationListenersToOnEnd = false;
+  boolean reuseBuffers = defaultReuseBuffers;
   boolean enabled = true;
 
   InstrumenterBuilder(
@@ -375,6 +380,10 @@ public final class InstrumenterBuilder<REQUEST, RESPONSE> {
     propagateOperationListenersToOnEnd = true;
   }
 
+  private void reuseBuffers(boolean reuseBuffers) {
+    this.reuseBuffers = reuseBuffers;
+  }
+
   private interface InstrumenterConstructor<RQ, RS> {
     Instrumenter<RQ, RS> create(InstrumenterBuilder<RQ, RS> builder);
 
@@ -417,6 +426,11 @@ public final class InstrumenterBuilder<REQUEST, RESPONSE> {
               InstrumenterBuilder<RQ, RS> builder) {
             builder.propagateOperationListenersToOnEnd();
           }
+
+          @Override
+          public <RQ, RS> void reuseBuffers(InstrumenterBuilder<RQ, RS> builder, boolean reuse) {
+            builder.reuseBuffers(reuse);
+          }
         });
   }
 }
@@ -77,5 +77,20 @@ public final class InstrumenterUtil {
     return builder;
   }
 
+  /**
+   * Makes the built {@link Instrumenter} reuse per-thread scratch buffers for the end attributes
+   * and the span status builder instead of allocating them for every operation. Operation listeners
+   * registered on such an instrumenter must not keep a reference to the {@code endAttributes}
+   * passed to them after {@code onEnd()} returns. Defaults to the value of the {@code
+   * otel.instrumentation.experimental.instrumenter.reuse-buffers} property.
+   */
+  @CanIgnoreReturnValue
+  public static <REQUEST, RESPONSE> InstrumenterBuilder<REQUEST, RESPONSE> reuseBuffers(
+      InstrumenterBuilder<REQUEST, RESPONSE> builder, boolean reuseBuffers) {
+    // instrumenterBuilderAccess is guaranteed to be non-null here
+    instrumenterBuilderAccess.reuseBuffers(builder, reuseBuffers);
+    return builder;
+  }
+
   private InstrumenterUtil() {}
 }
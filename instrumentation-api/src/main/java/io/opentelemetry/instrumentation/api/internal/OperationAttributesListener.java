@@ -0,0 +1,35 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.api.instrumenter.Instrumenter;
+import io.opentelemetry.instrumentation.api.instrumenter.OperationListener;
+
+/**
+ * An {@link OperationListener} that records its telemetry using the start and end attributes of an
+ * operation merged together. The {@link Instrumenter} merges the attributes once per operation and
+ * passes the same immutable instance to all listeners implementing this interface, instead of
+ * calling {@link OperationListener#onEnd(Context, Attributes, long)} and having each of them merge
+ * the attributes on its own.
+ *
+ * <p>This class is internal and is hence not for public use. Its APIs are unstable and can change
+ * at any time.
+ */
+public interface OperationAttributesListener extends OperationListener {
+
+  /**
+   * Listener method that is called at the end of an instrumented operation, in place of {@link
+   * OperationListener#onEnd(Context, Attributes, long)}.
+   *
+   * @param endAttributes The attributes extracted at the end of the operation.
+   * @param operationAttributes The start attributes with the end attributes merged on top of them.
+   * @param endNanos The nanosecond timestamp marking the end of the operation.
+   */
+  void onEnd(
+      Context context, Attributes endAttributes, Attributes operationAttributes, long endNanos);
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that spreads concurrent increments across several cache-line-padded cells, similar to
+ * {@code java.util.concurrent.atomic.LongAdder} (which is not available on all Android API levels
+ * this library supports). Increments from different threads usually land on different cells, so
+ * the counter can be bumped on hot paths without all cores contending on a single cache line.
+ *
+ * <p>Reading the counter sums all cells without locking. The returned value is exact when there are
+ * no concurrent updates, otherwise it may miss increments that happen during the read; those are
+ * included in subsequent reads.
+ *
+ * <p>This class is internal and is hence not for public use. Its APIs are unstable and can change
+ * at any time.
+ */
+public final class StripedCounter {
+
+  // 8 longs == 64 bytes, the cache line size on most hardware
+  private static final int PADDING = 8;
+  private static final int MAX_STRIPES = 32;
+  private static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+  private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+  public void increment() {
+    cells.incrementAndGet(cellIndex());
+  }
+
+  public void add(long value) {
+    cells.addAndGet(cellIndex(), value);
+  }
+
+  public long sum() {
+    long sum = 0;
+    for (int i = 0; i < STRIPES; i++) {
+      sum += cells.get(i * PADDING);
+    }
+    return sum;
+  }
+
+  private static int cellIndex() {
+    long id = Thread.currentThread().getId();
+    int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+    return ((hash >>> 16) & (STRIPES - 1)) * PADDING;
+  }
+
+  // visible for testing
+  static int stripes(int availableProcessors) {
+    int stripes = 1;
+    while (stripes < availableProcessors && stripes < MAX_STRIPES) {
+      stripes <<= 1;
+    }
+    return stripes;
+  }
+}
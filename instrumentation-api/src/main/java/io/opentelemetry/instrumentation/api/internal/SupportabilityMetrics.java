@@ -5,6 +5,11 @@
 
 package io.opentelemetry.instrumentation.api.internal;
 
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
 import io.opentelemetry.api.trace.SpanKind;
 import java.security.PrivilegedAction;
 import java.util.concurrent.ConcurrentHashMap;
@@ -12,7 +17,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
 import java.util.logging.Logger;
 
@@ -22,11 +27,18 @@ import java.util.logging.Logger;
  */
 public final class SupportabilityMetrics {
   private static final Logger logger = Logger.getLogger(SupportabilityMetrics.class.getName());
+
+  private static final AttributeKey<String> INSTRUMENTATION_NAME =
+      AttributeKey.stringKey("otel.instrumentation.name");
+  private static final AttributeKey<String> SPAN_KIND = AttributeKey.stringKey("span.kind");
+  private static final AttributeKey<String> COUNTER_NAME = AttributeKey.stringKey("name");
+
   private final boolean agentDebugEnabled;
   private final Consumer<String> reporter;
+  private volatile boolean enabled;
 
   private final ConcurrentMap<String, KindCounters> suppressionCounters = new ConcurrentHashMap<>();
-  private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
 
   private static final SupportabilityMetrics INSTANCE =
       new SupportabilityMetrics(
@@ -41,24 +53,61 @@ public final class SupportabilityMetrics {
   SupportabilityMetrics(boolean agentDebugEnabled, Consumer<String> reporter) {
     this.agentDebugEnabled = agentDebugEnabled;
     this.reporter = reporter;
+    this.enabled = agentDebugEnabled;
   }
 
   public void recordSuppressedSpan(SpanKind kind, String instrumentationName) {
-    if (!agentDebugEnabled) {
+    if (!enabled) {
       return;
     }
 
-    suppressionCounters
-        .computeIfAbsent(instrumentationName, s -> new KindCounters())
-        .increment(kind);
+    KindCounters kindCounters = suppressionCounters.get(instrumentationName);
+    if (kindCounters == null) {
+      kindCounters = suppressionCounters.computeIfAbsent(instrumentationName, KindCounters::new);
+    }
+    kindCounters.increment(kind);
   }
 
   public void incrementCounter(String counterName) {
-    if (!agentDebugEnabled) {
+    addToCounter(counterName, 1);
+  }
+
+  public void addToCounter(String counterName, long value) {
+    if (!enabled) {
       return;
     }
 
-    counters.computeIfAbsent(counterName, k -> new AtomicLong()).incrementAndGet();
+    Counter counter = counters.get(counterName);
+    if (counter == null) {
+      counter =
+          counters.computeIfAbsent(
+              counterName, name -> new Counter(Attributes.of(COUNTER_NAME, name)));
+    }
+    counter.add(value);
+  }
+
+  /**
+   * Starts counting (if not already enabled by {@code otel.javaagent.debug}) and exports the
+   * counters as cumulative {@code otel.instrumentation.suppressed_spans} and {@code
+   * otel.instrumentation.supportability.counter} metrics through the passed {@link OpenTelemetry}
+   * instance.
+   */
+  public void registerMetrics(OpenTelemetry openTelemetry) {
+    Meter meter = openTelemetry.getMeter("io.opentelemetry.instrumentation-api");
+    meter
+        .counterBuilder("otel.instrumentation.suppressed_spans")
+        .setUnit("{span}")
+        .setDescription("Number of spans that were not started because they were suppressed.")
+        .buildWithCallback(
+            measurement ->
+                suppressionCounters.forEach(
+                    (instrumentationName, kindCounters) -> kindCounters.observe(measurement)));
+    meter
+        .counterBuilder("otel.instrumentation.supportability.counter")
+        .setDescription("Counts of internal instrumentation events, e.g. sanitizer cache misses.")
+        .buildWithCallback(
+            measurement -> counters.forEach((name, counter) -> counter.observe(measurement)));
+    enabled = true;
   }
 
   // visible for testing
@@ -66,7 +115,7 @@ public final class SupportabilityMetrics {
     suppressionCounters.forEach(
         (instrumentationName, countsByKind) -> {
           for (SpanKind kind : SpanKind.values()) {
-            long value = countsByKind.getAndReset(kind);
+            long value = countsByKind.getSinceLastReport(kind);
             if (value > 0) {
               reporter.accept(
                   "Suppressed Spans by '" + instrumentationName + "' (" + kind + ") : " + value);
@@ -75,7 +124,7 @@ public final class SupportabilityMetrics {
         });
     counters.forEach(
         (counterName, counter) -> {
-          long value = counter.getAndSet(0);
+          long value = counter.getSinceLastReport();
           if (value > 0) {
             reporter.accept("Counter '" + counterName + "' : " + value);
           }
@@ -122,54 +171,94 @@ public final class SupportabilityMetrics {
    * any time.
    */
   public static final class CounterNames {
+    public static final String SQL_STATEMENT_SANITIZER_CACHE_LOOKUP =
+        "SqlStatementSanitizer cache lookup";
     public static final String SQL_STATEMENT_SANITIZER_CACHE_MISS =
         "SqlStatementSanitizer cache miss";
+    public static final String SQL_STATEMENT_SANITIZER_FINGERPRINT_COLLISION =
+        "SqlStatementSanitizer fingerprint collision";
+    public static final String RETRANSFORMATION_BATCHES = "Retransformation batches";
+    public static final String RETRANSFORMATION_FAILED_BATCHES = "Retransformation failed batches";
+    public static final String RETRANSFORMED_CLASSES = "Retransformed classes";
+    public static final String RETRANSFORMATION_TIME_MILLIS = "Retransformation time (ms)";
+    public static final String HELPER_CLASSES_INJECTED = "Helper classes injected";
+    public static final String HELPER_INJECTION_TIME_MICROS = "Helper class injection time (us)";
 
     private CounterNames() {}
   }
 
+  // this class is threadsafe; getSinceLastReport() is only called from the reporter thread
+  private static class Counter {
+    private final StripedCounter count = new StripedCounter();
+    private final Attributes attributes;
+    private long lastReported;
+
+    Counter(Attributes attributes) {
+      this.attributes = attributes;
+    }
+
+    void increment() {
+      count.increment();
+    }
+
+    void add(long value) {
+      count.add(value);
+    }
+
+    // the cells are never reset, so increments that race with the report are not lost, they are
+    // just included in the next report
+    long getSinceLastReport() {
+      long sum = count.sum();
+      long value = sum - lastReported;
+      lastReported = sum;
+      return value;
+    }
+
+    void observe(ObservableLongMeasurement measurement) {
+      long sum = count.sum();
+      if (sum > 0) {
+        measurement.record(sum, attributes);
+      }
+    }
+  }
+
   // this class is threadsafe.
   private static class KindCounters {
-    private final AtomicLong server = new AtomicLong();
-    private final AtomicLong client = new AtomicLong();
-    private final AtomicLong internal = new AtomicLong();
-    private final AtomicLong consumer = new AtomicLong();
-    private final AtomicLong producer = new AtomicLong();
+    private final String instrumentationName;
+    // indexed by SpanKind ordinal, created lazily since most instrumentations suppress spans of a
+    // single kind only
+    private final AtomicReferenceArray<Counter> counters =
+        new AtomicReferenceArray<>(SpanKind.values().length);
+
+    KindCounters(String instrumentationName) {
+      this.instrumentationName = instrumentationName;
+    }
 
     void increment(SpanKind kind) {
-      switch (kind) {
-        case INTERNAL:
-          internal.incrementAndGet();
-          break;
-        case SERVER:
-          server.incrementAndGet();
-          break;
-        case CLIENT:
-          client.incrementAndGet();
-          break;
-        case PRODUCER:
-          producer.incrementAndGet();
-          break;
-        case CONSUMER:
-          consumer.incrementAndGet();
-          break;
+      Counter counter = counters.get(kind.ordinal());
+      if (counter == null) {
+        counters.compareAndSet(
+            kind.ordinal(),
+            null,
+            new Counter(
+                Attributes.of(INSTRUMENTATION_NAME, instrumentationName, SPAN_KIND, kind.name())));
+        counter = counters.get(kind.ordinal());
       }
+      counter.increment();
+    }
+
+    long getSinceLastReport(SpanKind kind) {
+      Counter counter = counters.get(kind.ordinal());
+      return counter == null ? 0 : counter.getSinceLastReport();
     }
 
-    long getAndReset(SpanKind kind) {
-      switch (kind) {
-        case INTERNAL:
-          return internal.getAndSet(0);
-        case SERVER:
-          return server.getAndSet(0);
-        case CLIENT:
-          return client.getAndSet(0);
-        case PRODUCER:
-          return producer.getAndSet(0);
-        case CONSUMER:
-          return consumer.getAndSet(0);
+    void observe(ObservableLongMeasurement measurement) {
+      for (int i = 0; i < counters.length(); i++) {
+        Counter counter = counters.get(i);
+        if (counter != null) {
+          counter.observe(measurement);
+        }
       }
-      return 0;
     }
   }
 }
@@ -27,6 +27,32 @@ public interface Cache<K, V> {
     return new WeakLockFreeCache<>();
   }
 
+  /**
+   * Returns new unbounded cache that is split into segments, about one per core, and cleans up the
+   * entries of collected keys while writing instead of through a shared reference queue. Prefer it
+   * over {@link #weak()} for caches that are written to on hot paths by many threads.
+   *
+   * <p>Keys are referenced weakly and compared using identity comparison, not {@link
+   * Object#equals(Object)}. The entries of collected keys, and so their values, are only released
+   * by later writes to the cache.
+   */
+  static <K, V> Cache<K, V> weakStriped() {
+    return new WeakStripedCache<>();
+  }
+
+  /**
+   * Returns new unbounded cache for keys that are usually removed soon after they were put. New
+   * entries reference their key strongly, which saves allocating a weak reference for them. They
+   * are moved to a {@link #weakStriped()} cache when they haven't been removed after a few thousand
+   * writes.
+   *
+   * <p>Keys are compared using identity comparison, not {@link Object#equals(Object)}. Keys that
+   * are not removed are kept reachable until later writes to the cache move their entries.
+   */
+  static <K, V> Cache<K, V> weakGenerational() {
+    return new GenerationalWeakCache<>();
+  }
+
   /**
    * Returns new bounded cache.
    *
@@ -38,6 +64,16 @@ public interface Cache<K, V> {
     return new MapBackedCache<>(map);
   }
 
+  /**
+   * Returns new bounded cache that uses a frequency-based admission policy (W-TinyLFU) instead of
+   * plain LRU, so that a burst of one-off keys does not evict the keys that are looked up often.
+   *
+   * <p>Both keys and values are strongly referenced.
+   */
+  static <K, V> TinyLfuCache<K, V> boundedTinyLfu(int capacity) {
+    return new TinyLfuCache<>(capacity);
+  }
+
   /**
    * Returns the cached value associated with the provided {@code key}. If no value is cached yet,
    * computes the value using {@code mappingFunction}, stores the result, and returns it.
@@ -0,0 +1,96 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal.cache;
+
+/**
+ * A probabilistic estimate of how often each key was accessed recently, used by {@link
+ * TinyLfuCache} to decide whether a new entry is worth evicting an existing one.
+ *
+ * <p>This is a count-min sketch with four 4-bit counters per key, packed sixteen to a {@code long}.
+ * Once the number of recorded accesses reaches ten times the cache capacity all counters are
+ * halved, so that the sketch tracks recent popularity instead of all-time popularity.
+ *
+ * <p>This class is not thread-safe, {@link TinyLfuCache} only accesses it while holding its lock
+ * and buffers the accesses recorded by reads until then.
+ */
+final class FrequencySketch {
+
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final int MAX_COUNT = 15;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int size;
+
+  FrequencySketch(int capacity) {
+    int tableSize = 1;
+    while (tableSize < Math.max(capacity, 16)) {
+      tableSize <<= 1;
+    }
+    table = new long[tableSize];
+    tableMask = tableSize - 1;
+    sampleSize = 10 * Math.max(capacity, 16);
+  }
+
+  /** Returns the estimated number of recent accesses of the key with the given hash, up to 15. */
+  int frequency(int keyHash) {
+    int hash = spread(keyHash);
+    int start = (hash & 3) << 2;
+    int frequency = MAX_COUNT;
+    for (int i = 0; i < 4; i++) {
+      int index = indexOf(hash, i);
+      int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /** Records an access of the key with the given hash. */
+  void increment(int keyHash) {
+    int hash = spread(keyHash);
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && ++size >= sampleSize) {
+      reset();
+    }
+  }
+
+  private boolean incrementAt(int index, int counter) {
+    int offset = counter << 2;
+    long mask = 0xfL << offset;
+    if ((table[index] & mask) != mask) {
+      table[index] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size = size >>> 1;
+  }
+
+  private int indexOf(int hash, int i) {
+    long index = (hash + SEEDS[i]) * SEEDS[i];
+    index += index >>> 32;
+    return ((int) index) & tableMask;
+  }
+
+  private static int spread(int hash) {
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    return (hash >>> 16) ^ hash;
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * A weak-key identity cache for keys that are usually removed soon after they were put, like tasks
+ * whose context is removed when they run. New entries reference their key strongly, from a plain
+ * entry in a striped open addressing table, so that neither a {@link java.lang.ref.WeakReference}
+ * is allocated nor the garbage collector has to process one for them. The entries that are still
+ * there after a few thousand writes per segment to the whole cache are moved to a {@link
+ * WeakStripedCache}.
+ *
+ * <p>A key that is dropped without being removed is kept reachable until its entry is moved. Stale
+ * entries are moved while writing to their segment, and the segments are also swept one after the
+ * other while writing to any segment, so that the entries of a segment that isn't written to
+ * anymore are moved as well.
+ */
+final class GenerationalWeakCache<K, V> implements Cache<K, V> {
+
+  // number of writes to a segment after which the clock of the cache advances and a segment is
+  // swept, a power of two
+  private static final int TICK_WRITES = 256;
+  // number of clock ticks per segment after which an entry is old
+  private static final int MAX_YOUNG_TICKS = 8;
+
+  private final AtomicReferenceArray<Segment<K, V>> segments;
+  private final int segmentMask;
+  private final WeakStripedCache<K, V> oldEntries;
+  // the age of the entries is measured in ticks of this clock, it advances on writes to any segment
+  private final AtomicInteger clock = new AtomicInteger();
+  private final int maxYoungAge;
+  private final AtomicInteger sweepIndex = new AtomicInteger();
+
+  GenerationalWeakCache() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  // Visible for testing
+  GenerationalWeakCache(int concurrency) {
+    int segmentCount = OpenAddressingSegment.segmentCount(concurrency);
+    segments = new AtomicReferenceArray<>(segmentCount);
+    segmentMask = segmentCount - 1;
+    oldEntries = new WeakStripedCache<>(concurrency);
+    maxYoungAge = MAX_YOUNG_TICKS * segmentCount;
+  }
+
+  @Override
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+    V value = get(key);
+    if (value != null) {
+      return value;
+    }
+    int hash = OpenAddressingSegment.hash(key);
+    Segment<K, V> segment = getOrCreateSegment(hash);
+    value = segment.computeIfAbsent(key, hash, mappingFunction);
+    sweepIfDue(segment);
+    return value;
+  }
+
+  @Override
+  @Nullable
+  public V get(K key) {
+    int hash = OpenAddressingSegment.hash(key);
+    Segment<K, V> segment = segments.get(hash & segmentMask);
+    if (segment != null) {
+      V value = segment.get(key, hash);
+      if (value != null) {
+        return value;
+      }
+    }
+    // entries are put into the old entries before they're removed from the young ones, the value
+    // of a young entry is cleared when it is removed or moved
+    return oldEntries.get(key);
+  }
+
+  @Override
+  public void put(K key, V value) {
+    int hash = OpenAddressingSegment.hash(key);
+    Segment<K, V> segment = getOrCreateSegment(hash);
+    segment.put(key, hash, value);
+    sweepIfDue(segment);
+  }
+
+  @Override
+  public void remove(K key) {
+    int hash = OpenAddressingSegment.hash(key);
+    Segment<K, V> segment = segments.get(hash & segmentMask);
+    if (segment != null) {
+      segment.put(key, hash, null);
+      sweepIfDue(segment);
+    } else {
+      oldEntries.remove(key);
+    }
+  }
+
+  // Visible for testing
+  int youngSize() {
+    int size = 0;
+    for (int i = 0; i < segments.length(); i++) {
+      Segment<K, V> segment = segments.get(i);
+      if (segment != null) {
+        size += segment.storedEntries();
+      }
+    }
+    return size;
+  }
+
+  // Visible for testing
+  int oldSize() {
+    return oldEntries.size();
+  }
+
+  private Segment<K, V> getOrCreateSegment(int hash) {
+    int index = hash & segmentMask;
+    Segment<K, V> segment = segments.get(index);
+    if (segment == null) {
+      segments.compareAndSet(index, null, new Segment<>(oldEntries, clock, maxYoungAge));
+      segment = segments.get(index);
+    }
+    return segment;
+  }
+
+  // called without holding the lock of any segment, sweeping locks the swept segment
+  private void sweepIfDue(Segment<K, V> segment) {
+    if (!segment.sweepDue) {
+      return;
+    }
+    // racing writers may sweep twice, that's harmless
+    segment.sweepDue = false;
+    Segment<K, V> swept = segments.get(sweepIndex.getAndIncrement() & segmentMask);
+    if (swept != null) {
+      swept.removeStaleEntries();
+    }
+  }
+
+  /**
+   * The young entries of a segment, the entries that are old are stale and are moved to the old
+   * entries. All writes of a key, including moving it to the old entries, happen under the lock of
+   * its segment.
+   */
+  private static final class Segment<K, V> extends OpenAddressingSegment<K, V, Entry<K, V>> {
+
+    private final WeakStripedCache<K, V> oldEntries;
+    private final AtomicInteger clock;
+    private final int maxYoungAge;
+    // guarded by this
+    private int writes;
+    // set when the clock was advanced by a write to this segment
+    volatile boolean sweepDue;
+
+    Segment(WeakStripedCache<K, V> oldEntries, AtomicInteger clock, int maxYoungAge) {
+      this.oldEntries = oldEntries;
+      this.clock = clock;
+      this.maxYoungAge = maxYoungAge;
+    }
+
+    @Override
+    synchronized V computeIfAbsent(
+        K key, int hash, Function<? super K, ? extends V> mappingFunction) {
+      V value = get(key, hash);
+      if (value == null) {
+        value = oldEntries.get(key);
+      }
+      if (value == null) {
+        value = mappingFunction.apply(key);
+        if (value != null) {
+          put(key, hash, value);
+        }
+      }
+      return value;
+    }
+
+    @Override
+    synchronized void put(K key, int hash, @Nullable V value) {
+      if ((++writes & (TICK_WRITES - 1)) == 0) {
+        clock.incrementAndGet();
+        sweepDue = true;
+      }
+      super.put(key, hash, value);
+    }
+
+    @Override
+    boolean writeAbsent(K key, @Nullable V value) {
+      // the key isn't young, it may be old
+      if (value == null) {
+        oldEntries.remove(key);
+        return true;
+      }
+      if (oldEntries.get(key) != null) {
+        oldEntries.put(key, value);
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    Entry<K, V> createEntry(K key, int hash, V value) {
+      return new Entry<>(key, value, clock.get());
+    }
+
+    @Override
+    boolean hasKey(Entry<K, V> entry, K key, int hash) {
+      return entry.key == key;
+    }
+
+    @Override
+    int getHash(Entry<K, V> entry) {
+      return OpenAddressingSegment.hash(entry.key);
+    }
+
+    @Override
+    @Nullable
+    V getValue(Entry<K, V> entry) {
+      return entry.value;
+    }
+
+    @Override
+    void setValue(Entry<K, V> entry, @Nullable V value) {
+      entry.value = value;
+    }
+
+    @Override
+    boolean isStale(Entry<K, V> entry) {
+      // overflow safe
+      return clock.get() - entry.tick > maxYoungAge;
+    }
+
+    @Override
+    void onRemoveStale(Entry<K, V> entry) {
+      // readers that don't find the entry anymore look the key up in the old entries
+      V value = entry.value;
+      if (value != null) {
+        oldEntries.put(entry.key, value);
+      }
+    }
+  }
+
+  private static final class Entry<K, V> {
+    private final K key;
+    @Nullable private volatile V value;
+    // the clock of the cache when the entry was put
+    private final int tick;
+
+    Entry(K key, V value, int tick) {
+      this.key = key;
+      this.value = value;
+      this.tick = tick;
+    }
+  }
+}
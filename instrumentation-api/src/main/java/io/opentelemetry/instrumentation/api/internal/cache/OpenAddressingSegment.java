@@ -0,0 +1,290 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal.cache;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * A segment of an identity cache that is split into segments by the identity hash of the keys. A
+ * segment is an open addressing hash table, reads don't lock, writes lock the segment. Subclasses
+ * define the entries of the table, and which entries are stale; stale entries are removed
+ * incrementally while writing to the segment, a few slots on every write, and whenever the segment
+ * is resized.
+ *
+ * @param <E> the type of the entries of the table
+ */
+abstract class OpenAddressingSegment<K, V, E> {
+
+  static final int MAX_SEGMENTS = 64;
+  // the low bits of the hash select the segment, the bits above select the slot in the segment
+  private static final int SEGMENT_BITS = Integer.numberOfTrailingZeros(MAX_SEGMENTS);
+  private static final int INITIAL_CAPACITY = 8;
+  // number of slots that are checked for stale entries on every write
+  private static final int CLEANUP_STEPS = 4;
+  // marks a removed entry, so that lookups continue probing past it
+  private static final Object TOMBSTONE = new Object();
+
+  // slots are null, TOMBSTONE or an entry; there is always at least one null slot, so that probing
+  // ends. The array is replaced as a whole when the segment is resized, readers that still see the
+  // old array find all the entries that were there before the resize.
+  private volatile AtomicReferenceArray<Object> table =
+      new AtomicReferenceArray<>(INITIAL_CAPACITY);
+  // guarded by this, includes stale entries that weren't removed yet
+  private int count;
+  // guarded by this
+  private int tombstones;
+  // guarded by this
+  private int cleanupIndex;
+
+  /** Returns the number of segments for about one segment per thread, a power of two. */
+  static int segmentCount(int concurrency) {
+    int segmentCount = 1;
+    while (segmentCount < concurrency && segmentCount < MAX_SEGMENTS) {
+      segmentCount <<= 1;
+    }
+    return segmentCount;
+  }
+
+  static int hash(Object key) {
+    int hash = System.identityHashCode(key);
+    return hash ^ (hash >>> 16);
+  }
+
+  private static int index(int hash, int mask) {
+    return (hash >>> SEGMENT_BITS) & mask;
+  }
+
+  abstract E createEntry(K key, int hash, V value);
+
+  abstract boolean hasKey(E entry, K key, int hash);
+
+  abstract int getHash(E entry);
+
+  @Nullable
+  abstract V getValue(E entry);
+
+  abstract void setValue(E entry, @Nullable V value);
+
+  /** Returns whether the entry is to be removed, checked while writing to the segment. */
+  abstract boolean isStale(E entry);
+
+  /** Called with the lock held before a stale entry is removed. */
+  void onRemoveStale(E entry) {}
+
+  /**
+   * Called with the lock held when the key of a write isn't in the segment. Returns whether the
+   * write is done, otherwise a new entry is put for the key, unless the key is being removed.
+   */
+  boolean writeAbsent(K key, @Nullable V value) {
+    return false;
+  }
+
+  @Nullable
+  final E getEntry(K key, int hash) {
+    AtomicReferenceArray<Object> table = this.table;
+    int mask = table.length() - 1;
+    for (int i = index(hash, mask); ; i = (i + 1) & mask) {
+      Object slot = table.get(i);
+      if (slot == null) {
+        return null;
+      }
+      if (slot != TOMBSTONE) {
+        E entry = cast(slot);
+        if (hasKey(entry, key, hash)) {
+          return entry;
+        }
+      }
+    }
+  }
+
+  @Nullable
+  V get(K key, int hash) {
+    E entry = getEntry(key, hash);
+    return entry != null ? getValue(entry) : null;
+  }
+
+  synchronized V computeIfAbsent(
+      K key, int hash, Function<? super K, ? extends V> mappingFunction) {
+    V value = get(key, hash);
+    if (value == null) {
+      value = mappingFunction.apply(key);
+      if (value != null) {
+        put(key, hash, value);
+      }
+    }
+    return value;
+  }
+
+  /** Puts the value for the key, or removes the key when the value is {@code null}. */
+  synchronized void put(K key, int hash, @Nullable V value) {
+    removeSomeStaleEntries();
+    if (value != null && count + tombstones + 1 > table.length() * 3 / 4) {
+      resize();
+    }
+
+    AtomicReferenceArray<Object> table = this.table;
+    int mask = table.length() - 1;
+    int free = -1;
+    int i = index(hash, mask);
+    for (Object slot = table.get(i); slot != null; i = (i + 1) & mask, slot = table.get(i)) {
+      if (slot == TOMBSTONE) {
+        if (free < 0) {
+          free = i;
+        }
+        continue;
+      }
+      E entry = cast(slot);
+      if (hasKey(entry, key, hash)) {
+        if (value != null) {
+          setValue(entry, value);
+        } else {
+          removeEntry(table, i, entry);
+        }
+        return;
+      }
+      if (isStale(entry)) {
+        onRemoveStale(entry);
+        removeEntry(table, i, entry);
+        if (free < 0) {
+          free = i;
+        }
+      }
+    }
+    if (writeAbsent(key, value) || value == null) {
+      return;
+    }
+
+    if (free >= 0) {
+      i = free;
+    }
+    // the free slot may have been emptied while removing an entry
+    if (table.get(i) == TOMBSTONE) {
+      tombstones--;
+    }
+    table.set(i, createEntry(key, hash, value));
+    count++;
+  }
+
+  /** Returns the number of entries, including the stale ones that weren't removed yet. */
+  synchronized int storedEntries() {
+    return count;
+  }
+
+  /** Returns the number of entries that aren't stale. */
+  int liveEntries() {
+    AtomicReferenceArray<Object> table = this.table;
+    int live = 0;
+    for (int i = 0; i < table.length(); i++) {
+      Object slot = table.get(i);
+      if (slot != null && slot != TOMBSTONE && !isStale(cast(slot))) {
+        live++;
+      }
+    }
+    return live;
+  }
+
+  /** Removes all the stale entries of the segment. */
+  synchronized void removeStaleEntries() {
+    AtomicReferenceArray<Object> table = this.table;
+    for (int i = 0; i < table.length(); i++) {
+      Object slot = table.get(i);
+      if (slot != null && slot != TOMBSTONE) {
+        E entry = cast(slot);
+        if (isStale(entry)) {
+          onRemoveStale(entry);
+          removeEntry(table, i, entry);
+        }
+      }
+    }
+  }
+
+  private void removeSomeStaleEntries() {
+    AtomicReferenceArray<Object> table = this.table;
+    int mask = table.length() - 1;
+    for (int step = 0; step < CLEANUP_STEPS; step++) {
+      int i = cleanupIndex = (cleanupIndex + 1) & mask;
+      Object slot = table.get(i);
+      if (slot != null && slot != TOMBSTONE) {
+        E entry = cast(slot);
+        if (isStale(entry)) {
+          onRemoveStale(entry);
+          removeEntry(table, i, entry);
+        }
+      }
+    }
+  }
+
+  private void removeEntry(AtomicReferenceArray<Object> table, int index, E entry) {
+    // don't keep the value reachable from readers that still hold on to the entry
+    setValue(entry, null);
+    count--;
+    int mask = table.length() - 1;
+    if (table.get((index + 1) & mask) != null) {
+      table.set(index, TOMBSTONE);
+      tombstones++;
+      return;
+    }
+    // the slot ends all the probe sequences that reach it, so it and the tombstones right before
+    // it can be emptied, which keeps removing entries right after putting them from filling the
+    // table with tombstones
+    table.set(index, null);
+    for (int i = (index - 1) & mask; table.get(i) == TOMBSTONE; i = (i - 1) & mask) {
+      table.set(i, null);
+      tombstones--;
+    }
+  }
+
+  // drops the tombstones and the stale entries, and sizes the new table for twice the remaining
+  // entries, so the segment may also shrink
+  private void resize() {
+    AtomicReferenceArray<Object> oldTable = table;
+    int live = 0;
+    for (int i = 0; i < oldTable.length(); i++) {
+      Object slot = oldTable.get(i);
+      if (slot != null && slot != TOMBSTONE && !isStale(cast(slot))) {
+        live++;
+      }
+    }
+    int capacity = INITIAL_CAPACITY;
+    while (capacity < (live + 1) * 2) {
+      capacity <<= 1;
+    }
+
+    AtomicReferenceArray<Object> newTable = new AtomicReferenceArray<>(capacity);
+    int mask = capacity - 1;
+    // entries may have become stale since they were counted
+    live = 0;
+    for (int i = 0; i < oldTable.length(); i++) {
+      Object slot = oldTable.get(i);
+      if (slot == null || slot == TOMBSTONE) {
+        continue;
+      }
+      E entry = cast(slot);
+      if (isStale(entry)) {
+        onRemoveStale(entry);
+        setValue(entry, null);
+        continue;
+      }
+      int j = index(getHash(entry), mask);
+      while (newTable.get(j) != null) {
+        j = (j + 1) & mask;
+      }
+      newTable.set(j, entry);
+      live++;
+    }
+    table = newTable;
+    count = live;
+    tombstones = 0;
+    cleanupIndex = 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  private E cast(Object slot) {
+    return (E) slot;
+  }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal.cache;
+
+import io.opentelemetry.instrumentation.api.internal.StripedCounter;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * A bounded cache using a W-TinyLFU eviction policy with sampled victim selection.
+ *
+ * <p>New entries are first placed in a small admission window (1% of the capacity) that is
+ * evicted in second-chance FIFO order. An entry leaving the window is admitted to the main region
+ * only if a {@link FrequencySketch} estimates that it was accessed more often than a victim
+ * sampled from the main region; otherwise the new entry itself is dropped. Unlike pure LRU, a scan
+ * of one-off keys can therefore not flush out the entries that are used over and over again.
+ *
+ * <p>Reads never block and don't write to the sketch: they record the hash of the key in one of
+ * several small buffers, picked by the reading thread so that concurrent readers rarely share one.
+ * The buffers are drained into the sketch while holding the lock, before an entry leaves the window
+ * and whenever a buffer fills up; reads that find their buffer full while another thread holds the
+ * lock are not recorded. Writes that insert or remove entries are serialized. The mapping
+ * function passed to {@link #computeIfAbsent(Object, Function)} is called outside of the lock, so
+ * it may be called more than once for the same key by racing threads; only one of the results is
+ * stored.
+ *
+ * <p>This class is internal and is hence not for public use. Its APIs are unstable and can change
+ * at any time.
+ */
+public final class TinyLfuCache<K, V> implements Cache<K, V> {
+
+  private static final int VICTIM_SAMPLE_SIZE = 8;
+  private static final int MAX_READ_BUFFERS = 16;
+  private static final int READ_BUFFERS = readBuffers(Runtime.getRuntime().availableProcessors());
+  private static final int READ_BUFFER_SIZE = 16;
+  // 16 ints == 64 bytes, the cache line size on most hardware
+  private static final int PADDING = 16;
+
+  private final ConcurrentHashMap<K, Node<K, V>> data;
+  private final FrequencySketch sketch;
+  private final StripedCounter hits = new StripedCounter();
+  private final StripedCounter misses = new StripedCounter();
+  // the number of hashes in each read buffer, one per cache line
+  private final AtomicIntegerArray readCounts = new AtomicIntegerArray(READ_BUFFERS * PADDING);
+  private final AtomicIntegerArray readHashes =
+      new AtomicIntegerArray(READ_BUFFERS * READ_BUFFER_SIZE);
+
+  // guards the sketch too
+  private final ReentrantLock lock = new ReentrantLock();
+  private final int windowMaximum;
+  private final int mainMaximum;
+  // window and main are guarded by lock
+  private final ArrayDeque<Node<K, V>> window = new ArrayDeque<>();
+  private final Node<K, V>[] main;
+  private int mainSize;
+  private volatile long evictions;
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  TinyLfuCache(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive, was " + capacity);
+    }
+    data = new ConcurrentHashMap<>();
+    sketch = new FrequencySketch(capacity);
+    windowMaximum = Math.max(1, capacity / 100);
+    mainMaximum = capacity - windowMaximum;
+    main = new Node[mainMaximum];
+  }
+
+  @Override
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+    V value = get(key);
+    if (value != null) {
+      return value;
+    }
+    value = mappingFunction.apply(key);
+    if (value == null) {
+      return null;
+    }
+    return insert(key, value, /* onlyIfAbsent= */ true);
+  }
+
+  @Nullable
+  @Override
+  public V get(K key) {
+    recordRead(key.hashCode());
+    Node<K, V> node = data.get(key);
+    if (node == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    node.accessed = true;
+    return node.value;
+  }
+
+  @Override
+  public void put(K key, V value) {
+    insert(key, value, /* onlyIfAbsent= */ false);
+  }
+
+  @Override
+  public void remove(K key) {
+    lock.lock();
+    try {
+      Node<K, V> node = data.remove(key);
+      if (node == null) {
+        return;
+      }
+      if (node.mainIndex < 0) {
+        window.remove(node);
+      } else {
+        removeFromMain(node);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Returns a snapshot of the hit, miss and eviction counts of this cache. */
+  public CacheStats stats() {
+    return new CacheStats(hits.sum(), misses.sum(), evictions);
+  }
+
+  // visible for testing
+  int size() {
+    return data.size();
+  }
+
+  private V insert(K key, V value, boolean onlyIfAbsent) {
+    lock.lock();
+    try {
+      Node<K, V> existing = data.get(key);
+      if (existing != null) {
+        if (!onlyIfAbsent) {
+          existing.value = value;
+        }
+        return existing.value;
+      }
+      Node<K, V> node = new Node<>(key, value);
+      data.put(key, node);
+      window.addLast(node);
+      if (window.size() > windowMaximum) {
+        drainReadBuffers();
+        evictFromWindow();
+      }
+      return value;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void recordRead(int keyHash) {
+    int buffer = readBufferIndex();
+    int countIndex = buffer * PADDING;
+    int count = readCounts.get(countIndex);
+    if (count < READ_BUFFER_SIZE) {
+      // a lost race only loses this read
+      if (readCounts.compareAndSet(countIndex, count, count + 1)) {
+        readHashes.set(buffer * READ_BUFFER_SIZE + count, keyHash);
+      }
+      return;
+    }
+    // the buffer is full; this read is not recorded if another thread is holding the lock
+    if (lock.tryLock()) {
+      try {
+        drainReadBuffers();
+        sketch.increment(keyHash);
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  // guarded by lock; reads that are recorded while the buffers are drained may be lost
+  private void drainReadBuffers() {
+    for (int buffer = 0; buffer < READ_BUFFERS; buffer++) {
+      int countIndex = buffer * PADDING;
+      int count = readCounts.get(countIndex);
+      for (int i = 0; i < count; i++) {
+        sketch.increment(readHashes.get(buffer * READ_BUFFER_SIZE + i));
+      }
+      readCounts.set(countIndex, 0);
+    }
+  }
+
+  private static int readBufferIndex() {
+    long id = Thread.currentThread().getId();
+    int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+    return (hash >>> 16) & (READ_BUFFERS - 1);
+  }
+
+  // visible for testing
+  static int readBuffers(int availableProcessors) {
+    int buffers = 1;
+    while (buffers < availableProcessors && buffers < MAX_READ_BUFFERS) {
+      buffers <<= 1;
+    }
+    return buffers;
+  }
+
+  // guarded by lock
+  private void evictFromWindow() {
+    Node<K, V> candidate = pollWindow();
+    if (mainSize < mainMaximum) {
+      candidate.mainIndex = mainSize;
+      main[mainSize++] = candidate;
+      return;
+    }
+
+    evictions++;
+    if (mainMaximum == 0) {
+      data.remove(candidate.key, candidate);
+      return;
+    }
+    int victimIndex = sampleVictim();
+    Node<K, V> victim = main[victimIndex];
+    if (sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+      data.remove(victim.key, victim);
+      victim.mainIndex = -1;
+      candidate.mainIndex = victimIndex;
+      main[victimIndex] = candidate;
+    } else {
+      data.remove(candidate.key, candidate);
+    }
+  }
+
+  // guarded by lock; gives entries that were read while in the window a second chance
+  private Node<K, V> pollWindow() {
+    for (int i = window.size(); i > 1; i--) {
+      Node<K, V> node = window.pollFirst();
+      if (!node.accessed) {
+        return node;
+      }
+      node.accessed = false;
+      window.addLast(node);
+    }
+    return window.pollFirst();
+  }
+
+  // guarded by lock; returns the index of the least frequently used of a few random entries
+  private int sampleVictim() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int victimIndex = random.nextInt(mainSize);
+    int victimFrequency = sketch.frequency(main[victimIndex].key.hashCode());
+    for (int i = 1; i < VICTIM_SAMPLE_SIZE && victimFrequency > 0; i++) {
+      int index = random.nextInt(mainSize);
+      int frequency = sketch.frequency(main[index].key.hashCode());
+      if (frequency < victimFrequency) {
+        victimIndex = index;
+        victimFrequency = frequency;
+      }
+    }
+    return victimIndex;
+  }
+
+  // guarded by lock
+  private void removeFromMain(Node<K, V> node) {
+    Node<K, V> last = main[--mainSize];
+    main[node.mainIndex] = last;
+    last.mainIndex = node.mainIndex;
+    main[mainSize] = null;
+    node.mainIndex = -1;
+  }
+
+  private static final class Node<K, V> {
+    final K key;
+    volatile V value;
+    // set on reads without synchronization, a lost update only costs the entry its second chance
+    boolean accessed;
+    // position in the main region, or -1 while in the window; guarded by lock
+    int mainIndex = -1;
+
+    Node(K key, V value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+}
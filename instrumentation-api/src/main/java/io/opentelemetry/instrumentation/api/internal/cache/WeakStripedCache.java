@@ -0,0 +1,152 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal.cache;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * A weak-key identity cache that is split into segments by the identity hash of the keys, about
+ * one segment per core. Each segment is an open addressing hash table of weak references, reads
+ * don't lock, writes lock only their segment.
+ *
+ * <p>Unlike {@link WeakLockFreeCache} there is no reference queue, entries whose key was collected
+ * are cleaned up incrementally while writing to their segment, a few slots on every write, and
+ * whenever the segment is resized.
+ */
+final class WeakStripedCache<K, V> implements Cache<K, V> {
+
+  private final AtomicReferenceArray<Segment<K, V>> segments;
+  private final int segmentMask;
+
+  WeakStripedCache() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  // Visible for testing
+  WeakStripedCache(int concurrency) {
+    int segmentCount = OpenAddressingSegment.segmentCount(concurrency);
+    segments = new AtomicReferenceArray<>(segmentCount);
+    segmentMask = segmentCount - 1;
+  }
+
+  @Override
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+    int hash = OpenAddressingSegment.hash(key);
+    Segment<K, V> segment = getOrCreateSegment(hash);
+    V value = segment.get(key, hash);
+    if (value != null) {
+      return value;
+    }
+    return segment.computeIfAbsent(key, hash, mappingFunction);
+  }
+
+  @Override
+  @Nullable
+  public V get(K key) {
+    int hash = OpenAddressingSegment.hash(key);
+    Segment<K, V> segment = segments.get(hash & segmentMask);
+    return segment == null ? null : segment.get(key, hash);
+  }
+
+  @Override
+  public void put(K key, V value) {
+    int hash = OpenAddressingSegment.hash(key);
+    getOrCreateSegment(hash).put(key, hash, value);
+  }
+
+  @Override
+  public void remove(K key) {
+    int hash = OpenAddressingSegment.hash(key);
+    Segment<K, V> segment = segments.get(hash & segmentMask);
+    // avoid locking when there's nothing to remove
+    if (segment != null && segment.get(key, hash) != null) {
+      segment.put(key, hash, null);
+    }
+  }
+
+  // Visible for testing
+  int size() {
+    int size = 0;
+    for (int i = 0; i < segments.length(); i++) {
+      Segment<K, V> segment = segments.get(i);
+      if (segment != null) {
+        size += segment.liveEntries();
+      }
+    }
+    return size;
+  }
+
+  // Visible for testing
+  int storedEntries() {
+    int count = 0;
+    for (int i = 0; i < segments.length(); i++) {
+      Segment<K, V> segment = segments.get(i);
+      if (segment != null) {
+        count += segment.storedEntries();
+      }
+    }
+    return count;
+  }
+
+  private Segment<K, V> getOrCreateSegment(int hash) {
+    int index = hash & segmentMask;
+    Segment<K, V> segment = segments.get(index);
+    if (segment == null) {
+      segments.compareAndSet(index, null, new Segment<>());
+      segment = segments.get(index);
+    }
+    return segment;
+  }
+
+  /** A segment of weak references, the entries whose key was collected are stale. */
+  private static final class Segment<K, V> extends OpenAddressingSegment<K, V, Entry<K, V>> {
+
+    @Override
+    Entry<K, V> createEntry(K key, int hash, V value) {
+      return new Entry<>(key, hash, value);
+    }
+
+    @Override
+    boolean hasKey(Entry<K, V> entry, K key, int hash) {
+      return entry.hash == hash && entry.get() == key;
+    }
+
+    @Override
+    int getHash(Entry<K, V> entry) {
+      return entry.hash;
+    }
+
+    @Override
+    @Nullable
+    V getValue(Entry<K, V> entry) {
+      return entry.value;
+    }
+
+    @Override
+    void setValue(Entry<K, V> entry, @Nullable V value) {
+      entry.value = value;
+    }
+
+    @Override
+    boolean isStale(Entry<K, V> entry) {
+      return entry.get() == null;
+    }
+  }
+
+  private static final class Entry<K, V> extends WeakReference<K> {
+    private final int hash;
+    @Nullable private volatile V value;
+
+    Entry(K key, int hash, V value) {
+      super(key);
+      this.hash = hash;
+      this.value = value;
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal.metrics;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.api.internal.cache.Cache;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link DoubleHistogramRecorder} that keeps a bounded cache of pre-bound histogram handles, one
+ * per distinct combination of values of the bound attribute keys.
+ *
+ * <p>Only the bound attribute keys (the histogram's attributes advice) are recorded, all other
+ * attributes of a measurement are dropped, even if a metric view would otherwise retain them.
+ */
+final class BoundDoubleHistogramRecorder implements DoubleHistogramRecorder {
+
+  // the number of distinct (method, route, status, ...) combinations is expected to be small; if
+  // it's not, least recently used handles are evicted and rebuilt on demand
+  static final int DEFAULT_CAPACITY = 1000;
+
+  private final DoubleHistogram histogram;
+  private final AttributeKey<?>[] keys;
+  private final Cache<AttributeValues, BoundDoubleHistogram> handles;
+  // reused by each thread to look up handles, so that finding a cached handle allocates nothing
+  private final ThreadLocal<AttributeValues> lookupKeys;
+  private final BoundDoubleHistogram unboundHandle;
+
+  BoundDoubleHistogramRecorder(
+      DoubleHistogram histogram, List<? extends AttributeKey<?>> keys, int capacity) {
+    this.histogram = histogram;
+    this.keys = keys.toArray(new AttributeKey<?>[0]);
+    this.handles = Cache.bounded(capacity);
+    int keyCount = this.keys.length;
+    this.lookupKeys = ThreadLocal.withInitial(() -> new AttributeValues(new Object[keyCount]));
+    this.unboundHandle = new BoundDoubleHistogram(histogram, Attributes.empty());
+  }
+
+  /**
+   * Records into the handle of the bound attribute values of {@code attributes}. Finding the handle
+   * takes one cache lookup and allocates nothing once the combination has been seen, as long as it
+   * wasn't evicted since.
+   */
+  @Override
+  public void record(double value, Attributes attributes, Context context) {
+    bind(attributes).record(value, context);
+  }
+
+  // visible for testing
+  BoundDoubleHistogram bind(Attributes attributes) {
+    if (keys.length == 0) {
+      return unboundHandle;
+    }
+    AttributeValues lookupKey = lookupKeys.get();
+    Object[] values = lookupKey.values;
+    for (int i = 0; i < keys.length; i++) {
+      values[i] = attributes.get(keys[i]);
+    }
+    lookupKey.updateHashCode();
+    BoundDoubleHistogram handle = handles.get(lookupKey);
+    if (handle != null) {
+      return handle;
+    }
+    // the lookup key is never stored, the cache keeps a copy
+    return handles.computeIfAbsent(new AttributeValues(values.clone()), this::createHandle);
+  }
+
+  @SuppressWarnings("unchecked")
+  private BoundDoubleHistogram createHandle(AttributeValues attributeValues) {
+    AttributesBuilder builder = Attributes.builder();
+    for (int i = 0; i < keys.length; i++) {
+      Object value = attributeValues.values[i];
+      if (value != null) {
+        builder.put((AttributeKey<Object>) keys[i], value);
+      }
+    }
+    return new BoundDoubleHistogram(histogram, builder.build());
+  }
+
+  /** A histogram together with the interned attributes of one of its time series. */
+  static final class BoundDoubleHistogram {
+
+    private final DoubleHistogram histogram;
+    private final Attributes attributes;
+
+    BoundDoubleHistogram(DoubleHistogram histogram, Attributes attributes) {
+      this.histogram = histogram;
+      this.attributes = attributes;
+    }
+
+    void record(double value, Context context) {
+      histogram.record(value, attributes, context);
+    }
+
+    Attributes getAttributes() {
+      return attributes;
+    }
+  }
+
+  /**
+   * Lookup key made of the values of the bound attribute keys, in key order. Attribute values are
+   * strings, numbers and booleans, all of which have cheap (and for strings cached) hash codes.
+   */
+  private static final class AttributeValues {
+
+    private final Object[] values;
+    private int hashCode;
+
+    AttributeValues(Object[] values) {
+      this.values = values;
+      updateHashCode();
+    }
+
+    // only called on the lookup key of the calling thread, keys in the cache are never changed
+    void updateHashCode() {
+      hashCode = Arrays.hashCode(values);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof AttributeValues)) {
+        return false;
+      }
+      AttributeValues other = (AttributeValues) obj;
+      return hashCode == other.hashCode && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
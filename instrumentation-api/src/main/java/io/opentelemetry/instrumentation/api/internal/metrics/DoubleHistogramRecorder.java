@@ -0,0 +1,43 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal.metrics;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.api.internal.ConfigPropertiesUtil;
+import java.util.List;
+
+/**
+ * Records measurements into a {@link DoubleHistogram}.
+ *
+ * <p>By default measurements are passed to the histogram unchanged. When the {@code
+ * otel.instrumentation.experimental.metrics.bound-instruments} property is enabled, attributes are
+ * first reduced to the given low-cardinality keys (usually the keys used as the histogram's
+ * attributes advice) and interned, so that every distinct attribute set is built and hashed only
+ * once and the SDK receives the same {@link Attributes} instance for every measurement of a given
+ * time series. Note that in this mode attributes that are not part of {@code boundAttributeKeys}
+ * are dropped, even if a metric view would otherwise retain them.
+ *
+ * <p>This class is internal and is hence not for public use. Its APIs are unstable and can change
+ * at any time.
+ */
+@FunctionalInterface
+public interface DoubleHistogramRecorder {
+
+  static DoubleHistogramRecorder create(
+      DoubleHistogram histogram, List<? extends AttributeKey<?>> boundAttributeKeys) {
+    if (ConfigPropertiesUtil.getBoolean(
+        "otel.instrumentation.experimental.metrics.bound-instruments", false)) {
+      return new BoundDoubleHistogramRecorder(
+          histogram, boundAttributeKeys, BoundDoubleHistogramRecorder.DEFAULT_CAPACITY);
+    }
+    return histogram::record;
+  }
+
+  void record(double value, Attributes attributes, Context context);
+}
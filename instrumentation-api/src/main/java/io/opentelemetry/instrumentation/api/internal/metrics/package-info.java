@@ -0,0 +1,4 @@
+@ParametersAreNonnullByDefault
+package io.opentelemetry.instrumentation.api.internal.metrics;
+
+import javax.annotation.ParametersAreNonnullByDefault;
@@ -9,7 +9,6 @@ import static java.util.logging.Level.FINE;
 
 import com.google.auto.value.AutoValue;
 import io.opentelemetry.api.common.Attributes;
-import io.opentelemetry.api.metrics.DoubleHistogram;
 import io.opentelemetry.api.metrics.DoubleHistogramBuilder;
 import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.context.Context;
@@ -17,9 +16,12 @@ import io.opentelemetry.context.ContextKey;
 import io.opentelemetry.instrumentation.api.instrumenter.InstrumenterBuilder;
 import io.opentelemetry.instrumentation.api.instrumenter.OperationListener;
 import io.opentelemetry.instrumentation.api.instrumenter.OperationMetrics;
+import io.opentelemetry.instrumentation.api.internal.OperationAttributesListener;
 import io.opentelemetry.instrumentation.api.internal.OperationMetricsUtil;
+import io.opentelemetry.instrumentation.api.internal.metrics.DoubleHistogramRecorder;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 
 /**
  * {@link OperationListener} which keeps track of <a
@@ -28,7 +30,7 @@ import java.util.logging.Logger;
  *
  * @since 2.0.0
  */
-public final class HttpClientMetrics implements OperationListener {
+public final class HttpClientMetrics implements OperationAttributesListener {
 
   private static final double NANOS_PER_S = TimeUnit.SECONDS.toNanos(1);
 
@@ -47,7 +49,7 @@ public final class HttpClientMetrics implements OperationListener {
     return OperationMetricsUtil.create("http client", HttpClientMetrics::new);
   }
 
-  private final DoubleHistogram duration;
+  private final DoubleHistogramRecorder duration;
 
   private HttpClientMetrics(Meter meter) {
     DoubleHistogramBuilder stableDurationBuilder =
@@ -57,7 +59,9 @@ public final class HttpClientMetrics implements OperationListener {
             .setDescription("Duration of HTTP client requests.")
             .setExplicitBucketBoundariesAdvice(HttpMetricsAdvice.DURATION_SECONDS_BUCKETS);
     HttpMetricsAdvice.applyClientDurationAdvice(stableDurationBuilder);
-    duration = stableDurationBuilder.build();
+    duration =
+        DoubleHistogramRecorder.create(
+            stableDurationBuilder.build(), HttpMetricsAdvice.CLIENT_DURATION_ATTRIBUTES);
   }
 
   @Override
@@ -69,6 +73,20 @@ public final class HttpClientMetrics implements OperationListener {
 
   @Override
   public void onEnd(Context context, Attributes endAttributes, long endNanos) {
+    doEnd(context, endAttributes, null, endNanos);
+  }
+
+  @Override
+  public void onEnd(
+      Context context, Attributes endAttributes, Attributes operationAttributes, long endNanos) {
+    doEnd(context, endAttributes, operationAttributes, endNanos);
+  }
+
+  private void doEnd(
+      Context context,
+      Attributes endAttributes,
+      @Nullable Attributes operationAttributes,
+      long endNanos) {
     State state = context.get(HTTP_CLIENT_REQUEST_METRICS_STATE);
     if (state == null) {
       logger.log(
@@ -78,7 +96,10 @@ public final class HttpClientMetrics implements OperationListener {
       return;
     }
 
-    Attributes attributes = state.startAttributes().toBuilder().putAll(endAttributes).build();
+    Attributes attributes =
+        operationAttributes != null
+            ? operationAttributes
+            : state.startAttributes().toBuilder().putAll(endAttributes).build();
 
     duration.record((endNanos - state.startTimeNanos()) / NANOS_PER_S, attributes, context);
   }
@@ -18,6 +18,7 @@ import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.SpanContext;
 import io.opentelemetry.api.trace.SpanId;
 import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
 import io.opentelemetry.api.trace.TraceFlags;
 import io.opentelemetry.api.trace.TraceId;
 import io.opentelemetry.api.trace.TraceState;
@@ -25,6 +26,8 @@ import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.context.ContextKey;
 import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.instrumentation.api.internal.InstrumenterUtil;
+import io.opentelemetry.instrumentation.api.internal.OperationAttributesListener;
 import io.opentelemetry.instrumentation.api.internal.SchemaUrlProvider;
 import io.opentelemetry.instrumentation.api.internal.SpanKey;
 import io.opentelemetry.instrumentation.api.internal.SpanKeyProvider;
@@ -32,8 +35,10 @@ import io.opentelemetry.sdk.common.InstrumentationScopeInfo;
 import io.opentelemetry.sdk.testing.junit5.OpenTelemetryExtension;
 import io.opentelemetry.sdk.trace.data.LinkData;
 import io.opentelemetry.sdk.trace.data.StatusData;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
@@ -503,6 +508,91 @@ class InstrumenterTest {
     assertThat(Span.fromContext(endContext.get()).getSpanContext().isValid()).isTrue();
   }
 
+  @Test
+  void operationAttributesListeners() {
+    List<Attributes> operationAttributes = new ArrayList<>();
+
+    class TestListener implements OperationAttributesListener {
+      @Override
+      public Context onStart(Context context, Attributes startAttributes, long startNanos) {
+        return context;
+      }
+
+      @Override
+      public void onEnd(Context context, Attributes endAttributes, long endNanos) {
+        throw new AssertionError("merged attributes variant should have been called");
+      }
+
+      @Override
+      public void onEnd(
+          Context context, Attributes endAttributes, Attributes mergedAttributes, long endNanos) {
+        operationAttributes.add(mergedAttributes);
+      }
+    }
+
+    Instrumenter<Map<String, String>, Map<String, String>> instrumenter =
+        Instrumenter.<Map<String, String>, Map<String, String>>builder(
+                otelTesting.getOpenTelemetry(), "test", unused -> "span")
+            .addAttributesExtractor(new AttributesExtractor1())
+            .addOperationListener(new TestListener())
+            .addOperationListener(new TestListener())
+            .buildInstrumenter();
+
+    Context context = instrumenter.start(Context.root(), REQUEST);
+    instrumenter.end(context, REQUEST, RESPONSE, null);
+
+    assertThat(operationAttributes).hasSize(2);
+    assertThat(operationAttributes.get(0)).isSameAs(operationAttributes.get(1));
+    assertThat(operationAttributes.get(0))
+        .containsOnly(
+            entry(AttributeKey.stringKey("req1"), "req1_value"),
+            entry(AttributeKey.stringKey("req2"), "req2_value"),
+            entry(AttributeKey.stringKey("resp1"), "resp1_value"),
+            entry(AttributeKey.stringKey("resp2"), "resp2_value"));
+  }
+
+  @Test
+  void reuseBuffers() {
+    InstrumenterBuilder<Map<String, String>, Map<String, String>> builder =
+        Instrumenter.<Map<String, String>, Map<String, String>>builder(
+                otelTesting.getOpenTelemetry(), "test", unused -> "span")
+            .addAttributesExtractor(new AttributesExtractor1())
+            .setSpanStatusExtractor(
+                (spanStatusBuilder, request, response, error) ->
+                    spanStatusBuilder.setStatus(error != null ? StatusCode.ERROR : StatusCode.OK));
+    Instrumenter<Map<String, String>, Map<String, String>> instrumenter =
+        InstrumenterUtil.reuseBuffers(builder, true).buildInstrumenter();
+
+    Context context = instrumenter.start(Context.root(), REQUEST);
+    instrumenter.end(context, REQUEST, RESPONSE, new IllegalStateException("test"));
+    context = instrumenter.start(Context.root(), REQUEST);
+    instrumenter.end(context, REQUEST, RESPONSE, null);
+
+    otelTesting
+        .assertTraces()
+        .hasTracesSatisfyingExactly(
+            trace ->
+                trace.hasSpansSatisfyingExactly(
+                    span ->
+                        span.hasName("span")
+                            .hasStatus(StatusData.error())
+                            .hasAttributesSatisfyingExactly(
+                                equalTo(AttributeKey.stringKey("req1"), "req1_value"),
+                                equalTo(AttributeKey.stringKey("req2"), "req2_value"),
+                                equalTo(AttributeKey.stringKey("resp1"), "resp1_value"),
+                                equalTo(AttributeKey.stringKey("resp2"), "resp2_value"))),
+            trace ->
+                trace.hasSpansSatisfyingExactly(
+                    span ->
+                        span.hasName("span")
+                            .hasStatus(StatusData.ok())
+                            .hasAttributesSatisfyingExactly(
+                                equalTo(AttributeKey.stringKey("req1"), "req1_value"),
+                                equalTo(AttributeKey.stringKey("req2"), "req2_value"),
+                                equalTo(AttributeKey.stringKey("resp1"), "resp1_value"),
+                                equalTo(AttributeKey.stringKey("resp2"), "resp2_value"))));
+  }
+
   @Test
   void shouldNotAddInvalidLink() {
     // given
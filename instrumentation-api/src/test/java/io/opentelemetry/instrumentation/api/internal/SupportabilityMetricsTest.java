@@ -5,9 +5,14 @@
 
 package io.opentelemetry.instrumentation.api.internal;
 
-import static org.assertj.core.api.Assertions.assertThat;
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+import static io.opentelemetry.sdk.testing.assertj.OpenTelemetryAssertions.assertThat;
+import static io.opentelemetry.sdk.testing.assertj.OpenTelemetryAssertions.equalTo;
 
 import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
 import java.util.ArrayList;
 import java.util.List;
 import org.junit.jupiter.api.Test;
@@ -71,4 +76,57 @@ class SupportabilityMetricsTest {
             "Suppressed Spans by 'favoriteInstrumentation' (CLIENT) : 1",
             "Counter 'some counter' : 1");
   }
+
+  @Test
+  void exportsMetrics() {
+    InMemoryMetricReader metricReader = InMemoryMetricReader.create();
+    OpenTelemetrySdk openTelemetry =
+        OpenTelemetrySdk.builder()
+            .setMeterProvider(SdkMeterProvider.builder().registerMetricReader(metricReader).build())
+            .build();
+    List<String> reports = new ArrayList<>();
+    SupportabilityMetrics metrics = new SupportabilityMetrics(false, reports::add);
+    metrics.registerMetrics(openTelemetry);
+
+    metrics.recordSuppressedSpan(SpanKind.CLIENT, "favoriteInstrumentation");
+    metrics.recordSuppressedSpan(SpanKind.CLIENT, "favoriteInstrumentation");
+    metrics.incrementCounter("some counter");
+    metrics.report();
+    metrics.incrementCounter("some counter");
+
+    assertThat(metricReader.collectAllMetrics())
+        .satisfiesExactlyInAnyOrder(
+            metric ->
+                assertThat(metric)
+                    .hasName("otel.instrumentation.suppressed_spans")
+                    .hasLongSumSatisfying(
+                        sum ->
+                            sum.isMonotonic()
+                                .hasPointsSatisfying(
+                                    point ->
+                                        point
+                                            .hasValue(2)
+                                            .hasAttributesSatisfyingExactly(
+                                                equalTo(
+                                                    stringKey("otel.instrumentation.name"),
+                                                    "favoriteInstrumentation"),
+                                                equalTo(stringKey("span.kind"), "CLIENT")))),
+            metric ->
+                assertThat(metric)
+                    .hasName("otel.instrumentation.supportability.counter")
+                    .hasLongSumSatisfying(
+                        sum ->
+                            sum.isMonotonic()
+                                .hasPointsSatisfying(
+                                    point ->
+                                        point
+                                            .hasValue(2)
+                                            .hasAttributesSatisfyingExactly(
+                                                equalTo(stringKey("name"), "some counter")))));
+    // reporting to the log does not reset the exported cumulative values
+    assertThat(reports)
+        .containsExactlyInAnyOrder(
+            "Suppressed Spans by 'favoriteInstrumentation' (CLIENT) : 2",
+            "Counter 'some counter' : 1");
+  }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.lang.ref.WeakReference;
+import org.junit.jupiter.api.Test;
+
+class GenerationalWeakCacheTest {
+
+  @SuppressWarnings("StringOperationCanBeSimplified")
+  @Test
+  void putGetRemove() {
+    GenerationalWeakCache<String, String> cache = new GenerationalWeakCache<>(4);
+
+    String cat = new String("cat");
+    assertThat(cache.computeIfAbsent(cat, unused -> "meow")).isEqualTo("meow");
+    assertThat(cache.computeIfAbsent(cat, unused -> "purr")).isEqualTo("meow");
+    assertThat(cache.get(new String("cat"))).isNull();
+
+    cache.put(cat, "purr");
+    assertThat(cache.get(cat)).isEqualTo("purr");
+    assertThat(cache.youngSize()).isEqualTo(1);
+
+    cache.remove(cat);
+    assertThat(cache.get(cat)).isNull();
+    assertThat(cache.youngSize()).isEqualTo(0);
+  }
+
+  @Test
+  void removedKeysDontReachOldEntries() {
+    GenerationalWeakCache<Object, Object> cache = new GenerationalWeakCache<>(1);
+
+    for (int i = 0; i < 100_000; i++) {
+      Object task = new Object();
+      cache.put(task, "context");
+      assertThat(cache.get(task)).isEqualTo("context");
+      cache.remove(task);
+    }
+
+    assertThat(cache.youngSize()).isEqualTo(0);
+    assertThat(cache.oldSize()).isEqualTo(0);
+  }
+
+  @Test
+  void keysThatAreNotRemovedBecomeOldAndWeak() {
+    GenerationalWeakCache<Object, Object> cache = new GenerationalWeakCache<>(1);
+    Object queued = new Object();
+    Object dropped = new Object();
+    cache.put(queued, "queued");
+    cache.put(dropped, "dropped");
+
+    for (int i = 0; i < 10_000; i++) {
+      Object task = new Object();
+      cache.put(task, "context");
+      cache.remove(task);
+    }
+
+    assertThat(cache.youngSize()).isEqualTo(0);
+    assertThat(cache.oldSize()).isEqualTo(2);
+    assertThat(cache.get(queued)).isEqualTo("queued");
+
+    cache.put(queued, "updated");
+    assertThat(cache.get(queued)).isEqualTo("updated");
+    assertThat(cache.youngSize()).isEqualTo(0);
+
+    dropped = null;
+    System.gc();
+    // Wait for GC to be reflected.
+    await().untilAsserted(() -> assertThat(cache.oldSize()).isEqualTo(1));
+
+    cache.remove(queued);
+    assertThat(cache.get(queued)).isNull();
+    assertThat(cache.oldSize()).isEqualTo(0);
+  }
+
+  @Test
+  void droppedKeysBecomeWeakWithoutWritesToTheirSegment() {
+    GenerationalWeakCache<Object, Object> cache = new GenerationalWeakCache<>(2);
+    Object dropped = new Object();
+    int droppedSegment = OpenAddressingSegment.hash(dropped) & 1;
+    cache.put(dropped, "dropped");
+    WeakReference<Object> droppedReference = new WeakReference<>(dropped);
+    dropped = null;
+
+    // only the other segment is written to
+    for (int i = 0; i < 100_000; i++) {
+      Object task = new Object();
+      if ((OpenAddressingSegment.hash(task) & 1) == droppedSegment) {
+        continue;
+      }
+      cache.put(task, "context");
+      cache.remove(task);
+    }
+
+    assertThat(cache.youngSize()).isEqualTo(0);
+    await()
+        .untilAsserted(
+            () -> {
+              System.gc();
+              assertThat(droppedReference.get()).isNull();
+            });
+  }
+}
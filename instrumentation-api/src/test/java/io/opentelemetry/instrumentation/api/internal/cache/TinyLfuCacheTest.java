@@ -0,0 +1,116 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TinyLfuCacheTest {
+
+  @Test
+  void basicOperations() {
+    TinyLfuCache<String, String> cache = Cache.boundedTinyLfu(10);
+
+    assertThat(cache.computeIfAbsent("bear", unused -> "roar")).isEqualTo("roar");
+    assertThat(cache.computeIfAbsent("bear", unused -> "growl")).isEqualTo("roar");
+    assertThat(cache.size()).isEqualTo(1);
+
+    cache.put("bear", "growl");
+    assertThat(cache.get("bear")).isEqualTo("growl");
+
+    cache.remove("bear");
+    assertThat(cache.get("bear")).isNull();
+    assertThat(cache.size()).isEqualTo(0);
+
+    assertThat(cache.computeIfAbsent("cat", unused -> null)).isNull();
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  void staysWithinCapacity() {
+    TinyLfuCache<Integer, Integer> cache = Cache.boundedTinyLfu(10);
+
+    for (int i = 0; i < 1000; i++) {
+      cache.computeIfAbsent(i, key -> key);
+      assertThat(cache.size()).isLessThanOrEqualTo(10);
+    }
+    for (int i = 0; i < 1000; i++) {
+      cache.remove(i);
+    }
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  void frequentKeysSurviveScan() {
+    TinyLfuCache<Integer, Integer> cache = Cache.boundedTinyLfu(100);
+
+    // 50 hot keys looked up over and over, interleaved with 10000 keys that are only seen once
+    for (int i = 0; i < 10_000; i++) {
+      cache.computeIfAbsent(-1 - (i % 50), key -> key);
+      cache.computeIfAbsent(i, key -> key);
+    }
+
+    for (int i = 0; i < 50; i++) {
+      assertThat(cache.get(-1 - i)).isEqualTo(-1 - i);
+    }
+  }
+
+  @Test
+  void frequentKeysSurviveScanFromConcurrentThreads() throws InterruptedException {
+    TinyLfuCache<Integer, Integer> cache = Cache.boundedTinyLfu(100);
+
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      int offset = t * 10_000;
+      threads.add(
+          new Thread(
+              () -> {
+                for (int i = 0; i < 10_000; i++) {
+                  cache.computeIfAbsent(-1 - (i % 50), key -> key);
+                  cache.computeIfAbsent(offset + i, key -> key);
+                }
+              }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    for (int i = 0; i < 50; i++) {
+      assertThat(cache.get(-1 - i)).isEqualTo(-1 - i);
+    }
+  }
+
+  @Test
+  void readBuffers() {
+    assertThat(TinyLfuCache.readBuffers(1)).isEqualTo(1);
+    assertThat(TinyLfuCache.readBuffers(3)).isEqualTo(4);
+    assertThat(TinyLfuCache.readBuffers(8)).isEqualTo(8);
+    assertThat(TinyLfuCache.readBuffers(256)).isEqualTo(16);
+  }
+
+  @Test
+  void stats() {
+    TinyLfuCache<Integer, Integer> cache = Cache.boundedTinyLfu(1);
+
+    cache.computeIfAbsent(1, key -> key);
+    cache.computeIfAbsent(1, key -> key);
+    cache.get(2);
+    cache.put(2, 2);
+
+    CacheStats stats = cache.stats();
+    assertThat(stats.hitCount()).isEqualTo(1);
+    assertThat(stats.missCount()).isEqualTo(2);
+    assertThat(stats.evictionCount()).isEqualTo(1);
+    assertThat(stats.hitRate()).isEqualTo(1.0 / 3);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class WeakStripedCacheTest {
+
+  @SuppressWarnings("StringOperationCanBeSimplified")
+  @Test
+  void unbounded() {
+    WeakStripedCache<String, String> cache = new WeakStripedCache<>(4);
+
+    assertThat(cache.computeIfAbsent("bear", unused -> "roar")).isEqualTo("roar");
+    cache.remove("bear");
+    assertThat(cache.get("bear")).isNull();
+
+    String cat = new String("cat");
+    String dog = new String("dog");
+    assertThat(cache.computeIfAbsent(cat, unused -> "meow")).isEqualTo("meow");
+    assertThat(cache.size()).isEqualTo(1);
+
+    assertThat(cache.computeIfAbsent(cat, unused -> "bark")).isEqualTo("meow");
+    assertThat(cache.size()).isEqualTo(1);
+
+    cache.put(dog, "bark");
+    assertThat(cache.get(dog)).isEqualTo("bark");
+    assertThat(cache.get(cat)).isEqualTo("meow");
+    assertThat(cache.get(new String("dog"))).isNull();
+    assertThat(cache.size()).isEqualTo(2);
+
+    cache.put(dog, "woof");
+    assertThat(cache.get(dog)).isEqualTo("woof");
+    assertThat(cache.size()).isEqualTo(2);
+
+    cat = null;
+    System.gc();
+    // Wait for GC to be reflected.
+    await().untilAsserted(() -> assertThat(cache.size()).isEqualTo(1));
+    assertThat(cache.get(dog)).isEqualTo("woof");
+  }
+
+  @Test
+  void cleansUpCollectedKeysOnWrite() {
+    WeakStripedCache<Object, Object> cache = new WeakStripedCache<>(1);
+    List<Object> keys = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Object key = new Object();
+      keys.add(key);
+      cache.put(key, "value" + i);
+    }
+    assertThat(cache.storedEntries()).isEqualTo(100);
+
+    keys.clear();
+    System.gc();
+    // Wait for GC to be reflected.
+    await().untilAsserted(() -> assertThat(cache.size()).isEqualTo(0));
+    // there is no reference queue, the entries stay until they're cleaned up by writes
+    assertThat(cache.storedEntries()).isEqualTo(100);
+
+    Object key = new Object();
+    for (int i = 0; i < 100; i++) {
+      cache.put(key, "value");
+      cache.remove(key);
+    }
+    assertThat(cache.storedEntries()).isEqualTo(0);
+  }
+
+  @Test
+  void concurrentWrites() throws Exception {
+    WeakStripedCache<Object, Object> cache = new WeakStripedCache<>(4);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < 8; thread++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  List<Object> keys = new ArrayList<>();
+                  for (int i = 0; i < 10_000; i++) {
+                    Object key = new Object();
+                    keys.add(key);
+                    cache.put(key, key);
+                    assertThat(cache.get(key)).isSameAs(key);
+                    if (i % 2 == 0) {
+                      cache.remove(key);
+                      assertThat(cache.get(key)).isNull();
+                    }
+                  }
+                  for (int i = 0; i < keys.size(); i++) {
+                    Object key = keys.get(i);
+                    assertThat(cache.get(key)).isEqualTo(i % 2 == 0 ? null : key);
+                  }
+                  return keys;
+                }));
+      }
+      List<Object> results = new ArrayList<>();
+      for (Future<?> future : futures) {
+        results.add(future.get());
+      }
+      assertThat(cache.size()).isEqualTo(8 * 5_000);
+      assertThat(results).hasSize(8);
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.instrumentation.api.internal.metrics;
+
+import static io.opentelemetry.api.common.AttributeKey.longKey;
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+import static io.opentelemetry.sdk.testing.assertj.OpenTelemetryAssertions.assertThat;
+import static io.opentelemetry.sdk.testing.assertj.OpenTelemetryAssertions.equalTo;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import org.junit.jupiter.api.Test;
+
+class BoundDoubleHistogramRecorderTest {
+
+  private static final AttributeKey<String> METHOD = stringKey("method");
+  private static final AttributeKey<Long> STATUS = longKey("status");
+  private static final AttributeKey<String> PATH = stringKey("path");
+
+  @Test
+  void reusesHandlesForEqualBoundAttributes() {
+    InMemoryMetricReader metricReader = InMemoryMetricReader.create();
+    SdkMeterProvider meterProvider =
+        SdkMeterProvider.builder().registerMetricReader(metricReader).build();
+    BoundDoubleHistogramRecorder recorder =
+        new BoundDoubleHistogramRecorder(
+            meterProvider.get("test").histogramBuilder("duration").build(),
+            asList(METHOD, STATUS),
+            10);
+
+    Attributes first = Attributes.of(METHOD, "GET", STATUS, 200L, PATH, "/a");
+    Attributes second = Attributes.of(METHOD, "GET", STATUS, 200L, PATH, "/b");
+    Attributes third = Attributes.of(METHOD, "GET", PATH, "/b");
+
+    assertThat(recorder.bind(first)).isSameAs(recorder.bind(second));
+    assertThat(recorder.bind(first).getAttributes())
+        .isEqualTo(Attributes.of(METHOD, "GET", STATUS, 200L));
+    assertThat(recorder.bind(third).getAttributes()).isEqualTo(Attributes.of(METHOD, "GET"));
+
+    recorder.record(1, first, Context.root());
+    recorder.record(2, second, Context.root());
+    recorder.record(3, third, Context.root());
+
+    assertThat(metricReader.collectAllMetrics())
+        .satisfiesExactly(
+            metric ->
+                assertThat(metric)
+                    .hasName("duration")
+                    .hasHistogramSatisfying(
+                        histogram ->
+                            histogram.hasPointsSatisfying(
+                                point ->
+                                    point
+                                        .hasSum(3)
+                                        .hasCount(2)
+                                        .hasAttributesSatisfyingExactly(
+                                            equalTo(METHOD, "GET"), equalTo(STATUS, 200L)),
+                                point ->
+                                    point
+                                        .hasSum(3)
+                                        .hasCount(1)
+                                        .hasAttributesSatisfyingExactly(equalTo(METHOD, "GET")))));
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedHandlesAtCapacity() {
+    BoundDoubleHistogramRecorder recorder =
+        new BoundDoubleHistogramRecorder(
+            SdkMeterProvider.builder().build().get("test").histogramBuilder("duration").build(),
+            asList(METHOD, STATUS),
+            1);
+
+    BoundDoubleHistogramRecorder.BoundDoubleHistogram get =
+        recorder.bind(Attributes.of(METHOD, "GET"));
+    BoundDoubleHistogramRecorder.BoundDoubleHistogram post =
+        recorder.bind(Attributes.of(METHOD, "POST"));
+
+    // the most recent combination is cached, the one before it was evicted instead of being pinned
+    assertThat(recorder.bind(Attributes.of(METHOD, "POST"))).isSameAs(post);
+    BoundDoubleHistogramRecorder.BoundDoubleHistogram reboundGet =
+        recorder.bind(Attributes.of(METHOD, "GET"));
+    assertThat(reboundGet).isNotSameAs(get);
+    assertThat(reboundGet.getAttributes()).isEqualTo(Attributes.of(METHOD, "GET"));
+    assertThat(recorder.bind(Attributes.of(METHOD, "GET"))).isSameAs(reboundGet);
+  }
+
+  @Test
+  void bindsAllAttributesToOneHandleWithoutKeys() {
+    BoundDoubleHistogramRecorder recorder =
+        new BoundDoubleHistogramRecorder(
+            SdkMeterProvider.builder().build().get("test").histogramBuilder("duration").build(),
+            emptyList(),
+            10);
+
+    assertThat(recorder.bind(Attributes.of(METHOD, "GET")))
+        .isSameAs(recorder.bind(Attributes.of(METHOD, "POST")));
+    assertThat(recorder.bind(Attributes.of(METHOD, "GET")).getAttributes()).isEmpty();
+  }
+}
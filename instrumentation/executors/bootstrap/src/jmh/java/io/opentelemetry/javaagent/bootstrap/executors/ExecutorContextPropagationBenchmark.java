@@ -0,0 +1,134 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.bootstrap.executors;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.instrumentation.api.internal.cache.Cache;
+import io.opentelemetry.instrumentation.api.util.VirtualField;
+import io.opentelemetry.javaagent.bootstrap.InstrumentedTaskClasses;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures propagating context to tasks whose virtual field falls back to a map, from submitting
+ * the task to the end of its execution, for the caches that can back the map. Run with the gc
+ * profiler to compare the allocations per task.
+ */
+@Fork(3)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+public class ExecutorContextPropagationBenchmark {
+
+  private static final ContextKey<String> KEY = ContextKey.named("benchmark");
+
+  @Param({"weak", "weakStriped", "weakGenerational"})
+  String implementation;
+
+  private VirtualField<Runnable, PropagatedContext> virtualField;
+  private Context context;
+
+  @Setup
+  public void setUp() {
+    InstrumentedTaskClasses.setIgnoredTaskClassesPredicate(className -> false);
+    Cache<Runnable, PropagatedContext> cache;
+    switch (implementation) {
+      case "weak":
+        cache = Cache.weak();
+        break;
+      case "weakStriped":
+        cache = Cache.weakStriped();
+        break;
+      default:
+        cache = Cache.weakGenerational();
+        break;
+    }
+    virtualField = new MapBackedVirtualField<>(cache);
+    context = Context.root().with(KEY, "value");
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void threads01() {
+    runTask();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void threads08() {
+    runTask();
+  }
+
+  @Benchmark
+  @Threads(32)
+  public void threads32() {
+    runTask();
+  }
+
+  private void runTask() {
+    Runnable task = new Task();
+
+    // what the executor instrumentation does when the task is submitted
+    if (!ExecutorAdviceHelper.shouldPropagateContext(context, task)) {
+      throw new AssertionError();
+    }
+    PropagatedContext propagatedContext =
+        ExecutorAdviceHelper.attachContextToTask(context, virtualField, task);
+    ExecutorAdviceHelper.cleanUpAfterSubmit(propagatedContext, null, virtualField, task);
+
+    // what the task instrumentation does when the task runs
+    Scope scope = TaskAdviceHelper.makePropagatedContextCurrent(virtualField, task);
+    try {
+      task.run();
+    } finally {
+      if (scope != null) {
+        scope.close();
+      }
+    }
+    ExecutorAdviceHelper.cleanPropagatedContext(virtualField, task);
+  }
+
+  private static class Task implements Runnable {
+    @Override
+    public void run() {}
+  }
+
+  // same as the map fallback of the generated virtual fields
+  private static class MapBackedVirtualField<T, F> extends VirtualField<T, F> {
+    private final Cache<T, F> map;
+
+    private MapBackedVirtualField(Cache<T, F> map) {
+      this.map = map;
+    }
+
+    @Override
+    @Nullable
+    public F get(T object) {
+      return map.get(object);
+    }
+
+    @Override
+    public void set(T object, @Nullable F fieldValue) {
+      if (fieldValue == null) {
+        map.remove(object);
+      } else {
+        map.put(object, fieldValue);
+      }
+    }
+  }
+}
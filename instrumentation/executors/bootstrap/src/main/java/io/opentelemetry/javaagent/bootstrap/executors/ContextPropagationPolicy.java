@@ -0,0 +1,27 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.bootstrap.executors;
+
+/** Decides how contexts are propagated to the tasks that are submitted to executors. */
+public final class ContextPropagationPolicy {
+
+  private static volatile boolean forkJoinBatchPropagation;
+
+  /**
+   * Sets whether the subtasks that a fork join worker forks with the same context share the
+   * propagated context, instead of each of them getting its own. This method is called from the
+   * agent class loader during the agent startup.
+   */
+  public static void setForkJoinBatchPropagation(boolean forkJoinBatchPropagation) {
+    ContextPropagationPolicy.forkJoinBatchPropagation = forkJoinBatchPropagation;
+  }
+
+  static boolean isForkJoinBatchPropagation() {
+    return forkJoinBatchPropagation;
+  }
+
+  private ContextPropagationPolicy() {}
+}
@@ -10,6 +10,8 @@ import io.opentelemetry.instrumentation.api.internal.ContextPropagationDebug;
 import io.opentelemetry.instrumentation.api.util.VirtualField;
 import io.opentelemetry.javaagent.bootstrap.InstrumentedTaskClasses;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import javax.annotation.Nullable;
 
 /**
@@ -19,6 +21,11 @@ public final class ExecutorAdviceHelper {
 
   private static final ThreadLocal<Boolean> propagationDisabled = new ThreadLocal<>();
 
+  // the shared PropagatedContext that the current fork join worker attached to the last task it
+  // forked, it is dropped when the worker finishes the outermost task it runs
+  private static final ThreadLocal<ForkedContext> forkedContext =
+      ThreadLocal.withInitial(ForkedContext::new);
+
   /**
    * Temporarily disable context propagation for current thread. Call {@link #enablePropagation()}
    * to re-enable the propagation.
@@ -83,6 +90,11 @@ public final class ExecutorAdviceHelper {
           && (propagated == context || ContextPropagationDebug.unwrap(propagated) == context)) {
         return null;
       }
+      if (propagatedContext.isShared()) {
+        // the shared instance is never cleared, so it can't take another context
+        propagatedContext = new PropagatedContext();
+        virtualField.set(task, propagatedContext);
+      }
     }
 
     context = ContextPropagationDebug.addDebugInfo(context, task);
@@ -90,6 +102,63 @@ public final class ExecutorAdviceHelper {
     return propagatedContext;
   }
 
+  /**
+   * Associate {@code context} with a {@link ForkJoinTask} that is forked. When fork join batch
+   * propagation is enabled in the {@link ContextPropagationPolicy} and the task is forked from a
+   * worker thread, the tasks that the worker forks with the same context share one {@link
+   * PropagatedContext}, otherwise this is the same as {@link #attachContextToTask(Context,
+   * VirtualField, Object)}.
+   */
+  @Nullable
+  public static <T extends ForkJoinTask<?>> PropagatedContext attachContextToForkedTask(
+      Context context, VirtualField<T, PropagatedContext> virtualField, T task) {
+    if (!ContextPropagationPolicy.isForkJoinBatchPropagation()
+        || !(Thread.currentThread() instanceof ForkJoinWorkerThread)
+        || virtualField.get(task) != null) {
+      return attachContextToTask(context, virtualField, task);
+    }
+
+    // subtasks can be stolen by other workers, so each of them still gets the context attached,
+    // only without allocating anything for the subtasks of the same task
+    ForkedContext forked = forkedContext.get();
+    PropagatedContext propagatedContext = forked.propagatedContext;
+    if (propagatedContext == null
+        || ContextPropagationDebug.unwrap(propagatedContext.get()) != context) {
+      propagatedContext =
+          PropagatedContext.shared(ContextPropagationDebug.addDebugInfo(context, task));
+      forked.propagatedContext = propagatedContext;
+    }
+    virtualField.set(task, propagatedContext);
+    return propagatedContext;
+  }
+
+  /**
+   * Called when a {@link ForkJoinTask} starts running. Must be followed by a {@link
+   * #onForkJoinTaskEnd()} call when it is done.
+   */
+  public static void onForkJoinTaskStart() {
+    if (ContextPropagationPolicy.isForkJoinBatchPropagation()
+        && Thread.currentThread() instanceof ForkJoinWorkerThread) {
+      forkedContext.get().depth++;
+    }
+  }
+
+  /**
+   * Called when a {@link ForkJoinTask} is done running. The context shared by the subtasks the
+   * worker forked is not kept once the worker finished its outermost task, subtasks that haven't
+   * run yet still have it attached.
+   */
+  public static void onForkJoinTaskEnd() {
+    if (ContextPropagationPolicy.isForkJoinBatchPropagation()
+        && Thread.currentThread() instanceof ForkJoinWorkerThread) {
+      ForkedContext forked = forkedContext.get();
+      if (--forked.depth <= 0) {
+        forked.depth = 0;
+        forked.propagatedContext = null;
+      }
+    }
+  }
+
   /**
    * Clean up {@code propagatedContext} in case of any submission errors. Call this method after the
    * submission method has exited.
@@ -130,4 +199,10 @@ public final class ExecutorAdviceHelper {
   }
 
   private ExecutorAdviceHelper() {}
+
+  private static final class ForkedContext {
+    @Nullable PropagatedContext propagatedContext;
+    // the number of fork join tasks the worker is running, tasks run nested when joining
+    int depth;
+  }
 }
@@ -23,7 +23,30 @@ public final class PropagatedContext {
   @SuppressWarnings("UnusedVariable")
   private volatile Context context;
 
-  PropagatedContext() {}
+  // a shared instance is attached to many tasks and is never cleared, each task drops its reference
+  // to it when it starts running, so that a task that runs again doesn't get the context again
+  private final boolean shared;
+
+  PropagatedContext() {
+    shared = false;
+  }
+
+  private PropagatedContext(Context context) {
+    this.context = context;
+    shared = true;
+  }
+
+  /**
+   * Returns an instance that can be attached to any number of tasks, each of them gets the {@code
+   * context} when it runs.
+   */
+  static PropagatedContext shared(Context context) {
+    return new PropagatedContext(context);
+  }
+
+  boolean isShared() {
+    return shared;
+  }
 
   void setContext(Context context) {
     boolean result = contextUpdater.compareAndSet(this, null, context);
@@ -39,10 +62,15 @@ public final class PropagatedContext {
   }
 
   void clear() {
-    contextUpdater.set(this, null);
+    if (!shared) {
+      contextUpdater.set(this, null);
+    }
   }
 
   Context getAndClear() {
+    if (shared) {
+      return contextUpdater.get(this);
+    }
     return contextUpdater.getAndSet(this, null);
   }
 
@@ -0,0 +1,27 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.instrumentation.executors;
+
+import com.google.auto.service.AutoService;
+import io.opentelemetry.javaagent.bootstrap.executors.ContextPropagationPolicy;
+import io.opentelemetry.javaagent.extension.AgentListener;
+import io.opentelemetry.javaagent.tooling.BeforeAgentListener;
+import io.opentelemetry.sdk.autoconfigure.AutoConfiguredOpenTelemetrySdk;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+
+/** Configures the {@link ContextPropagationPolicy} before the executors are instrumented. */
+@AutoService(BeforeAgentListener.class)
+public class ContextPropagationPolicyInstaller implements BeforeAgentListener {
+
+  @Override
+  public void beforeAgent(AutoConfiguredOpenTelemetrySdk autoConfiguredOpenTelemetrySdk) {
+    ConfigProperties config = AgentListener.resolveConfigProperties(autoConfiguredOpenTelemetrySdk);
+
+    ContextPropagationPolicy.setForkJoinBatchPropagation(
+        config.getBoolean(
+            "otel.instrumentation.executors.experimental-fork-join-batch-propagation", false));
+  }
+}
@@ -61,6 +61,7 @@ public class JavaForkJoinTaskInstrumentation implements TypeInstrumentation {
      */
     @Advice.OnMethodEnter(suppress = Throwable.class)
     public static Scope enter(@Advice.This ForkJoinTask<?> task) {
+      ExecutorAdviceHelper.onForkJoinTaskStart();
       VirtualField<ForkJoinTask<?>, PropagatedContext> virtualField =
           VirtualField.find(ForkJoinTask.class, PropagatedContext.class);
       Scope scope = TaskAdviceHelper.makePropagatedContextCurrent(virtualField, task);
@@ -98,6 +99,7 @@ public class JavaForkJoinTaskInstrumentation implements TypeInstrumentation {
       if (scope != null) {
         scope.close();
       }
+      ExecutorAdviceHelper.onForkJoinTaskEnd();
     }
   }
 
@@ -110,7 +112,7 @@ public class JavaForkJoinTaskInstrumentation implements TypeInstrumentation {
       if (ExecutorAdviceHelper.shouldPropagateContext(context, task)) {
         VirtualField<ForkJoinTask<?>, PropagatedContext> virtualField =
             VirtualField.find(ForkJoinTask.class, PropagatedContext.class);
-        return ExecutorAdviceHelper.attachContextToTask(context, virtualField, task);
+        return ExecutorAdviceHelper.attachContextToForkedTask(context, virtualField, task);
       }
       return null;
     }
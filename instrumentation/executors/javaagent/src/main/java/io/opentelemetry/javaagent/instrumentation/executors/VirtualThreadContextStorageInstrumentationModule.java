@@ -0,0 +1,38 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.instrumentation.executors;
+
+import static java.util.Collections.singletonList;
+
+import com.google.auto.service.AutoService;
+import io.opentelemetry.javaagent.extension.instrumentation.InstrumentationModule;
+import io.opentelemetry.javaagent.extension.instrumentation.TypeInstrumentation;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import java.util.List;
+
+/**
+ * Injects the field that keeps the current context of virtual threads into {@code
+ * java.lang.VirtualThread}. Separate from {@link ExecutorsInstrumentationModule} so that the field
+ * is only injected when the context storage that uses it is enabled.
+ */
+@AutoService(InstrumentationModule.class)
+public class VirtualThreadContextStorageInstrumentationModule extends InstrumentationModule {
+
+  public VirtualThreadContextStorageInstrumentationModule() {
+    super("executors-virtual-thread-context-storage");
+  }
+
+  @Override
+  public boolean defaultEnabled(ConfigProperties config) {
+    return config.getBoolean(
+        "otel.javaagent.experimental.virtual-thread-context-storage.enabled", false);
+  }
+
+  @Override
+  public List<TypeInstrumentation> typeInstrumentations() {
+    return singletonList(new VirtualThreadContextStorageInstrumentation());
+  }
+}
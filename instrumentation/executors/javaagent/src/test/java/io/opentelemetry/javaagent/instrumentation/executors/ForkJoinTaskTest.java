@@ -0,0 +1,83 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.instrumentation.executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.Scope;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+class ForkJoinTaskTest {
+
+  private static final ContextKey<String> KEY = ContextKey.named("key");
+
+  private static final ForkJoinPool pool = new ForkJoinPool(2);
+
+  @AfterAll
+  static void tearDown() {
+    pool.shutdown();
+  }
+
+  @Test
+  void forkedTaskGetsContext() {
+    ContextRecordingTask child = new ContextRecordingTask();
+
+    try (Scope ignored = Context.current().with(KEY, "value").makeCurrent()) {
+      pool.invoke(new ForkingTask(child));
+    }
+
+    assertThat(child.context.get(KEY)).isEqualTo("value");
+  }
+
+  @Test
+  void rerunTaskDoesNotGetPreviousContext() {
+    ContextRecordingTask child = new ContextRecordingTask();
+    try (Scope ignored = Context.current().with(KEY, "value").makeCurrent()) {
+      pool.invoke(new ForkingTask(child));
+    }
+
+    // runs again without being forked again
+    child.reinitialize();
+    pool.invoke(child);
+    assertThat(child.context.get(KEY)).isNull();
+
+    child.reinitialize();
+    child.invoke();
+    assertThat(child.context.get(KEY)).isNull();
+  }
+
+  private static class ForkingTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final ContextRecordingTask child;
+
+    ForkingTask(ContextRecordingTask child) {
+      this.child = child;
+    }
+
+    @Override
+    protected void compute() {
+      child.fork();
+      child.join();
+    }
+  }
+
+  private static class ContextRecordingTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    volatile Context context;
+
+    @Override
+    protected void compute() {
+      context = Context.current();
+    }
+  }
+}
@@ -24,6 +24,25 @@ otelJava {
   )))
 }
 
+testing {
+  suites {
+    val testVirtualThreadContextStorage by registering(JvmTestSuite::class) {
+      dependencies {
+        implementation(project(":instrumentation:executors:testing"))
+        compileOnly(project(":javaagent-bootstrap"))
+      }
+
+      targets {
+        all {
+          testTask.configure {
+            jvmArgs("-Dotel.javaagent.experimental.virtual-thread-context-storage.enabled=true")
+          }
+        }
+      }
+    }
+  }
+}
+
 tasks.withType<JavaCompile>().configureEach {
   with(options) {
     compilerArgs.add("--enable-preview")
@@ -37,3 +56,9 @@ tasks.withType<Test>().configureEach {
   // needed for structured concurrency test
   jvmArgs("--enable-preview")
 }
+
+tasks {
+  check {
+    dependsOn(testing.suites)
+  }
+}
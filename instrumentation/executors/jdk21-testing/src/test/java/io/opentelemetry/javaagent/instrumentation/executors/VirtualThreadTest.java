@@ -25,6 +25,16 @@ class VirtualThreadTest {
     assertThat(testRunnable.isPropagationDisabled.get()).isTrue();
   }
 
+  @Test
+  void contextFieldNotInjectedByDefault() throws Exception {
+    Thread.ofVirtual().start(() -> {}).join();
+
+    // injected only with otel.javaagent.experimental.virtual-thread-context-storage.enabled
+    assertThat(Class.forName("java.lang.VirtualThread").getInterfaces())
+        .extracting(Class::getName)
+        .noneMatch(name -> name.endsWith("$java$lang$Thread$io$opentelemetry$context$Context"));
+  }
+
   private static void executeOnCarrierThread(Callable<?> callable) throws Exception {
     // call VirtualThread.executeOnCarrierThread, VirtualThreadInstrumentation disables context
     // propagation inside that method
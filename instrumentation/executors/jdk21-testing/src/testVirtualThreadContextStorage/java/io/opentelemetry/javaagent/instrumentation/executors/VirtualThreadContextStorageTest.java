@@ -0,0 +1,75 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.instrumentation.executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.instrumentation.testing.junit.AgentInstrumentationExtension;
+import io.opentelemetry.instrumentation.testing.junit.InstrumentationExtension;
+import io.opentelemetry.javaagent.bootstrap.VirtualFieldInstalledMarker;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+class VirtualThreadContextStorageTest {
+
+  @RegisterExtension
+  static final InstrumentationExtension testing = AgentInstrumentationExtension.create();
+
+  private static final ContextKey<String> KEY = ContextKey.named("key");
+
+  @Test
+  void virtualThreadHasInjectedField() throws Exception {
+    Thread.ofVirtual().start(() -> {}).join();
+
+    assertThat(VirtualFieldInstalledMarker.class)
+        .isAssignableFrom(Class.forName("java.lang.VirtualThread"));
+  }
+
+  @Test
+  void nestedScopes() throws Exception {
+    List<String> values = new CopyOnWriteArrayList<>();
+    Thread thread =
+        Thread.ofVirtual()
+            .start(
+                () -> {
+                  values.add(String.valueOf(Context.current().get(KEY)));
+                  try (Scope outer = Context.current().with(KEY, "outer").makeCurrent()) {
+                    values.add(Context.current().get(KEY));
+                    try (Scope inner = Context.current().with(KEY, "inner").makeCurrent()) {
+                      // may continue on another carrier thread
+                      Thread.yield();
+                      values.add(Context.current().get(KEY));
+                    }
+                    values.add(Context.current().get(KEY));
+                  }
+                  values.add(String.valueOf(Context.current().get(KEY)));
+                });
+    thread.join();
+
+    assertThat(values).containsExactly("null", "outer", "inner", "outer", "null");
+  }
+
+  @Test
+  void propagatesContextToVirtualThreads() throws Exception {
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      testing.runWithSpan(
+          "parent", () -> executor.submit(() -> testing.runWithSpan("child", () -> {})).get());
+    }
+
+    testing.waitAndAssertTraces(
+        trace ->
+            trace.hasSpansSatisfyingExactly(
+                span -> span.hasName("parent").hasNoParent(),
+                span -> span.hasName("child").hasParent(trace.getSpan(0))));
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.bootstrap;
+
+import java.util.Arrays;
+
+/**
+ * Flags that inlined advice checks before it runs, when instrumentations can be switched off at
+ * runtime. Each instrumentation module gets an id, the advice of the module is rewritten to return
+ * right away while the flag for that id is off.
+ *
+ * <p>The flag is only checked by the enter advice when there is one: exit advice that follows an
+ * enter advice runs exactly when the enter advice of the same invocation ran, so that methods that
+ * were entered before the flag was switched off still end their spans and close their scopes.
+ */
+public final class AdviceSwitches {
+
+  private static final Object lock = new Object();
+
+  // copy on write, the flags are read on every advice invocation and change very rarely
+  private static volatile boolean[] disabled = new boolean[0];
+
+  /** Returns whether the advice of a module runs. */
+  public static boolean isEnabled(int moduleId) {
+    boolean[] disabled = AdviceSwitches.disabled;
+    return moduleId >= disabled.length || !disabled[moduleId];
+  }
+
+  public static void setEnabled(int moduleId, boolean enabled) {
+    synchronized (lock) {
+      boolean[] copy = Arrays.copyOf(disabled, Math.max(disabled.length, moduleId + 1));
+      copy[moduleId] = !enabled;
+      disabled = copy;
+    }
+  }
+
+  private AdviceSwitches() {}
+}
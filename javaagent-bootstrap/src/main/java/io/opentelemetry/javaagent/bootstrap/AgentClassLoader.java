@@ -22,7 +22,10 @@ import java.security.Permission;
 import java.security.PermissionCollection;
 import java.security.Permissions;
 import java.security.cert.Certificate;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
@@ -68,6 +71,11 @@ public class AgentClassLoader extends URLClassLoader {
   private final CodeSource codeSource;
   private final boolean isSecurityManagerSupportEnabled;
   private final Manifest manifest;
+  // maps entry names (without the prefix) to the name of their multi release variant for the
+  // current java version, empty on java 8; listed on the first lookup, which lists all the entries
+  // of the jar
+  private final Object versionedEntryNamesLock = new Object();
+  @Nullable private volatile Map<String, String> versionedEntryNames;
 
   // Used by tests
   public AgentClassLoader(File javaagentFile) {
@@ -243,11 +251,11 @@ public class AgentClassLoader extends URLClassLoader {
       name += getClassSuffix();
     }
 
-    JarEntry jarEntry = jarFile.getJarEntry(jarEntryPrefix + name);
-    if (MULTI_RELEASE_JAR_ENABLE) {
-      jarEntry = findVersionedJarEntry(jarEntry, name);
+    String versionedEntryName = getVersionedEntryNames().get(name);
+    if (versionedEntryName != null) {
+      return jarFile.getJarEntry(versionedEntryName);
     }
-    return jarEntry;
+    return jarFile.getJarEntry(jarEntryPrefix + name);
   }
 
   // suffix appended to class resource names
@@ -256,22 +264,61 @@ public class AgentClassLoader extends URLClassLoader {
     return "data";
   }
 
-  private JarEntry findVersionedJarEntry(JarEntry jarEntry, String name) {
-    // same logic as in JarFile.getVersionedEntry
-    if (!name.startsWith(META_INF)) {
-      // search for versioned entry by looping over possible versions form high to low
-      int version = JAVA_VERSION;
-      while (version >= MIN_MULTI_RELEASE_JAR_JAVA_VERSION) {
-        JarEntry versionedJarEntry =
-            jarFile.getJarEntry(jarEntryPrefix + META_INF_VERSIONS + version + "/" + name);
-        if (versionedJarEntry != null) {
-          return versionedJarEntry;
+  private Map<String, String> getVersionedEntryNames() {
+    if (!MULTI_RELEASE_JAR_ENABLE) {
+      return Collections.emptyMap();
+    }
+    Map<String, String> result = versionedEntryNames;
+    if (result == null) {
+      // not locking on this, class loading doesn't lock on the instance either
+      synchronized (versionedEntryNamesLock) {
+        result = versionedEntryNames;
+        if (result == null) {
+          result = findVersionedEntryNames();
+          versionedEntryNames = result;
         }
-        version--;
       }
     }
+    return result;
+  }
 
-    return jarEntry;
+  // Same logic as in JarFile.getVersionedEntry, but the entries are listed once up front instead of
+  // looking up every possible version of every class that is loaded. Only the agent classes and
+  // resources can have versioned variants, so the map stays small.
+  private Map<String, String> findVersionedEntryNames() {
+    String versionsPrefix = jarEntryPrefix + META_INF_VERSIONS;
+    Map<String, String> versionedEntryNames = new HashMap<>();
+    Map<String, Integer> versions = new HashMap<>();
+    Enumeration<JarEntry> entries = jarFile.entries();
+    while (entries.hasMoreElements()) {
+      String entryName = entries.nextElement().getName();
+      if (!entryName.startsWith(versionsPrefix)) {
+        continue;
+      }
+      int versionEnd = entryName.indexOf('/', versionsPrefix.length());
+      if (versionEnd < 0) {
+        continue;
+      }
+      int version;
+      try {
+        version = Integer.parseInt(entryName.substring(versionsPrefix.length(), versionEnd));
+      } catch (NumberFormatException ignored) {
+        continue;
+      }
+      String name = entryName.substring(versionEnd + 1);
+      // versioned entries are searched from the highest applicable version to the lowest
+      if (version < MIN_MULTI_RELEASE_JAR_JAVA_VERSION
+          || version > JAVA_VERSION
+          || name.startsWith(META_INF)) {
+        continue;
+      }
+      Integer previousVersion = versions.get(name);
+      if (previousVersion == null || previousVersion < version) {
+        versions.put(name, version);
+        versionedEntryNames.put(name, entryName);
+      }
+    }
+    return versionedEntryNames;
   }
 
   @Override
@@ -0,0 +1,141 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.bootstrap;
+
+import static java.util.logging.Level.FINE;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextStorage;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.instrumentation.api.util.VirtualField;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link ContextStorage} that keeps the current context of virtual threads in a field that is
+ * injected into {@code java.lang.VirtualThread}, instead of in a thread local of the virtual
+ * thread. Platform threads, including the carrier threads of virtual threads, use the wrapped
+ * storage.
+ *
+ * <p>The field is handed over by the instrumentation of {@code java.lang.VirtualThread} when the
+ * first virtual thread is created. Until then, and when the field couldn't be injected because
+ * {@code java.lang.VirtualThread} was loaded before the agent, all threads use the wrapped storage.
+ *
+ * <p>This class is internal and is hence not for public use. Its APIs are unstable and can change
+ * at any time.
+ */
+public final class VirtualThreadContextStorage implements ContextStorage, AutoCloseable {
+
+  private static final Logger logger =
+      Logger.getLogger(VirtualThreadContextStorage.class.getName());
+
+  private static volatile boolean initialized;
+  // written after currentContextField, so that threads that see the class also see the field
+  @Nullable private static volatile Class<?> virtualThreadClass;
+  @Nullable private static volatile VirtualField<Thread, Context> currentContextField;
+
+  private final ContextStorage delegate;
+
+  public VirtualThreadContextStorage(ContextStorage delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * Called by the instrumentation of {@code java.lang.VirtualThread} for every new virtual thread,
+   * before the thread can run.
+   */
+  public static void initialize(Thread virtualThread, VirtualField<Thread, Context> field) {
+    if (initialized) {
+      return;
+    }
+    synchronized (VirtualThreadContextStorage.class) {
+      if (initialized) {
+        return;
+      }
+      Class<?> threadClass = virtualThread.getClass();
+      // without an injected field the virtual field falls back to a map, which is slower than the
+      // thread local of the wrapped storage
+      if (VirtualFieldInstalledMarker.class.isAssignableFrom(threadClass)) {
+        currentContextField = field;
+        virtualThreadClass = threadClass;
+      } else {
+        logger.log(
+            FINE,
+            "{0} has no injected fields, keeping the context of virtual threads in thread locals",
+            threadClass.getName());
+      }
+      initialized = true;
+    }
+  }
+
+  @Override
+  public Scope attach(Context toAttach) {
+    Thread thread = Thread.currentThread();
+    VirtualField<Thread, Context> field = getCurrentContextField(thread);
+    if (field == null) {
+      return delegate.attach(toAttach);
+    }
+
+    Context beforeAttach = field.get(thread);
+    if (toAttach == beforeAttach) {
+      return Scope.noop();
+    }
+    field.set(thread, toAttach);
+    return new VirtualThreadScope(field, thread, beforeAttach, toAttach);
+  }
+
+  @Override
+  @Nullable
+  public Context current() {
+    Thread thread = Thread.currentThread();
+    VirtualField<Thread, Context> field = getCurrentContextField(thread);
+    return field != null ? field.get(thread) : delegate.current();
+  }
+
+  @Override
+  public void close() throws Exception {
+    if (delegate instanceof AutoCloseable) {
+      ((AutoCloseable) delegate).close();
+    }
+  }
+
+  @Nullable
+  private static VirtualField<Thread, Context> getCurrentContextField(Thread thread) {
+    Class<?> threadClass = virtualThreadClass;
+    return threadClass != null && thread.getClass() == threadClass ? currentContextField : null;
+  }
+
+  private static final class VirtualThreadScope implements Scope {
+    private final VirtualField<Thread, Context> field;
+    private final Thread thread;
+    @Nullable private final Context beforeAttach;
+    private final Context toAttach;
+    private boolean closed;
+
+    private VirtualThreadScope(
+        VirtualField<Thread, Context> field,
+        Thread thread,
+        @Nullable Context beforeAttach,
+        Context toAttach) {
+      this.field = field;
+      this.thread = thread;
+      this.beforeAttach = beforeAttach;
+      this.toAttach = toAttach;
+    }
+
+    @Override
+    public void close() {
+      // same checks as the thread local storage of the context api
+      if (!closed && field.get(thread) == toAttach) {
+        closed = true;
+        field.set(thread, beforeAttach);
+      } else {
+        logger.log(
+            FINE, "Context in storage isn't the expected context, Scope wasn't closed correctly");
+      }
+    }
+  }
+}
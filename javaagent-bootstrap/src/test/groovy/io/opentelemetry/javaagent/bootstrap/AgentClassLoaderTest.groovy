@@ -9,7 +9,10 @@ import io.opentelemetry.sdk.internal.JavaVersionSpecific
 import spock.lang.Specification
 
 import java.lang.reflect.Field
+import java.nio.charset.StandardCharsets
 import java.util.concurrent.Phaser
+import java.util.jar.JarEntry
+import java.util.jar.JarOutputStream
 
 class AgentClassLoaderTest extends Specification {
 
@@ -84,4 +87,34 @@ class AgentClassLoaderTest extends Specification {
     // expect a versioned class on java 9+
     jdk8 != javaVersionSpecific.getClass().getName().endsWith("Java9VersionSpecific")
   }
+
+  def "versioned entry of internal jar"() {
+    setup:
+    boolean jdk8 = "1.8" == System.getProperty("java.specification.version")
+    int javaVersion = jdk8 ? 8 : Integer.parseInt(System.getProperty("java.specification.version"))
+    Map<String, String> entries = [
+      "inst/test/resource.txt"                          : "base",
+      "inst/META-INF/versions/9/test/resource.txt"      : "9",
+      "inst/META-INF/versions/11/test/resource.txt"     : "11",
+      "inst/META-INF/versions/9/test/versioned-only.txt": "versioned"
+    ]
+    // versions above the running one are ignored
+    entries.put("inst/META-INF/versions/" + (javaVersion + 1) + "/test/resource.txt", "next")
+    File jar = File.createTempFile("multi-release", ".jar")
+    jar.deleteOnExit()
+    new JarOutputStream(new FileOutputStream(jar)).withCloseable { out ->
+      entries.each { name, text ->
+        out.putNextEntry(new JarEntry(name))
+        out.write(text.getBytes(StandardCharsets.UTF_8))
+        out.closeEntry()
+      }
+    }
+    AgentClassLoader loader = new AgentClassLoader(jar, "inst", false)
+
+    expect:
+    // the highest version that is not higher than the running one is used
+    loader.findResource("test/resource.txt").text == (jdk8 ? "base" : javaVersion >= 11 ? "11" : "9")
+    (loader.findResource("test/versioned-only.txt") == null) == jdk8
+    loader.findResource("test/missing.txt") == null
+  }
 }
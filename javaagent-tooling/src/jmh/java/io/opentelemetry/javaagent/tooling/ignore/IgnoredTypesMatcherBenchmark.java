@@ -15,6 +15,10 @@ import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Warmup;
 
 @Fork(1)
@@ -22,6 +26,7 @@ import org.openjdk.jmh.annotations.Warmup;
 @Measurement(iterations = 10, time = 1)
 @OutputTimeUnit(TimeUnit.MICROSECONDS)
 @BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
 public class IgnoredTypesMatcherBenchmark {
 
   private static final TypeDescription springType =
@@ -29,10 +34,50 @@ public class IgnoredTypesMatcherBenchmark {
   private static final TypeDescription testAppType =
       new TypeDescription.Latent("com.example.myapp.Main", 0, null);
 
-  private static final ElementMatcher<TypeDescription> ignoredTypesMatcher;
+  // a mix of JDK, agent, library and application classes loaded by a typical Spring Boot app
+  private static final TypeDescription[] classLoadCorpus =
+      types(
+          "java.lang.invoke.LambdaForm$MH/0x0000000800c01000",
+          "java.util.concurrent.ConcurrentHashMap$Node",
+          "jdk.internal.reflect.GeneratedMethodAccessor12",
+          "sun.nio.ch.SocketChannelImpl",
+          "io.opentelemetry.javaagent.shaded.io.opentelemetry.api.trace.Span",
+          "org.springframework.boot.SpringApplication",
+          "org.springframework.context.annotation.ConfigurationClassParser",
+          "org.springframework.web.servlet.DispatcherServlet",
+          "org.springframework.web.client.RestTemplate",
+          "org.springframework.beans.factory.support.DefaultListableBeanFactory",
+          "org.apache.catalina.core.StandardContext",
+          "org.apache.tomcat.util.net.NioEndpoint$Poller",
+          "org.apache.commons.lang3.StringUtils",
+          "org.apache.http.impl.client.CloseableHttpClient",
+          "com.fasterxml.jackson.databind.ObjectMapper",
+          "com.fasterxml.jackson.core.json.UTF8JsonGenerator",
+          "com.google.common.collect.ImmutableList",
+          "com.zaxxer.hikari.pool.HikariProxyConnection",
+          "org.hibernate.internal.SessionImpl",
+          "org.hibernate.type.descriptor.java.StringJavaType",
+          "io.netty.channel.DefaultChannelPipeline",
+          "io.netty.util.internal.PlatformDependent",
+          "ch.qos.logback.classic.Logger",
+          "org.slf4j.LoggerFactory",
+          "kotlin.collections.CollectionsKt",
+          "reactor.core.publisher.Flux",
+          "com.example.myapp.Main",
+          "com.example.myapp.web.OrderController",
+          "com.example.myapp.service.OrderService$$SpringCGLIB$$0",
+          "com.example.myapp.repository.OrderRepository");
 
-  static {
-    IgnoredTypesBuilderImpl builder = new IgnoredTypesBuilderImpl();
+  @Param({"true", "false"})
+  boolean compactTrie;
+
+  private ElementMatcher<TypeDescription> ignoredTypesMatcher;
+
+  @Setup
+  public void setUp() {
+    IgnoredTypesBuilderImpl builder = new IgnoredTypesBuilderImpl(compactTrie);
+    new GlobalIgnoredTypesConfigurer().configure(builder, EmptyConfigProperties.INSTANCE);
+    new CommonLibraryIgnoredTypesConfigurer().configure(builder, EmptyConfigProperties.INSTANCE);
     new AdditionalLibraryIgnoredTypesConfigurer()
         .configure(builder, EmptyConfigProperties.INSTANCE);
     ignoredTypesMatcher = new IgnoredTypesMatcher(builder.buildIgnoredTypesTrie());
@@ -47,4 +92,23 @@ public class IgnoredTypesMatcherBenchmark {
   public boolean appType() {
     return ignoredTypesMatcher.matches(testAppType);
   }
+
+  @Benchmark
+  public int classLoadCorpus() {
+    int ignored = 0;
+    for (TypeDescription type : classLoadCorpus) {
+      if (ignoredTypesMatcher.matches(type)) {
+        ignored++;
+      }
+    }
+    return ignored;
+  }
+
+  private static TypeDescription[] types(String... names) {
+    TypeDescription[] types = new TypeDescription[names.length];
+    for (int i = 0; i < names.length; i++) {
+      types[i] = new TypeDescription.Latent(names[i], 0, null);
+    }
+    return types;
+  }
 }
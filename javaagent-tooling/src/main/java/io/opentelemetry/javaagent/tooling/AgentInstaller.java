@@ -19,11 +19,13 @@ import io.opentelemetry.context.Context;
 import io.opentelemetry.context.ContextStorage;
 import io.opentelemetry.context.Scope;
 import io.opentelemetry.instrumentation.api.internal.EmbeddedInstrumentationProperties;
+import io.opentelemetry.instrumentation.api.internal.SupportabilityMetrics;
 import io.opentelemetry.javaagent.bootstrap.AgentClassLoader;
 import io.opentelemetry.javaagent.bootstrap.BootstrapPackagePrefixesHolder;
 import io.opentelemetry.javaagent.bootstrap.ClassFileTransformerHolder;
 import io.opentelemetry.javaagent.bootstrap.DefineClassHelper;
 import io.opentelemetry.javaagent.bootstrap.InstrumentedTaskClasses;
+import io.opentelemetry.javaagent.bootstrap.VirtualThreadContextStorage;
 import io.opentelemetry.javaagent.bootstrap.http.HttpServerResponseCustomizer;
 import io.opentelemetry.javaagent.bootstrap.http.HttpServerResponseCustomizerHolder;
 import io.opentelemetry.javaagent.bootstrap.http.HttpServerResponseMutator;
@@ -43,6 +45,7 @@ import io.opentelemetry.javaagent.tooling.field.VirtualFieldImplementationInstal
 import io.opentelemetry.javaagent.tooling.ignore.IgnoredClassLoadersMatcher;
 import io.opentelemetry.javaagent.tooling.ignore.IgnoredTypesBuilderImpl;
 import io.opentelemetry.javaagent.tooling.ignore.IgnoredTypesMatcher;
+import io.opentelemetry.javaagent.tooling.ignore.UnmatchedTypesCache;
 import io.opentelemetry.javaagent.tooling.muzzle.AgentTooling;
 import io.opentelemetry.javaagent.tooling.util.Trie;
 import io.opentelemetry.sdk.autoconfigure.AutoConfiguredOpenTelemetrySdk;
@@ -88,6 +91,17 @@ public class AgentInstaller {
   private static final String STRICT_CONTEXT_STRESSOR_MILLIS =
       "otel.javaagent.testing.strict-context-stressor-millis";
 
+  // keep the context of virtual threads in a field of the virtual thread instead of a thread local
+  private static final String VIRTUAL_THREAD_CONTEXT_STORAGE_CONFIG =
+      "otel.javaagent.experimental.virtual-thread-context-storage.enabled";
+
+  // number of threads used to retransform the classes that were loaded before the agent was
+  // installed, 1 retransforms them on the installing thread
+  private static final String RETRANSFORMATION_PARALLELISM_CONFIG =
+      "otel.javaagent.experimental.retransformation.parallelism";
+  private static final String RETRANSFORMATION_BATCH_SIZE_CONFIG =
+      "otel.javaagent.experimental.retransformation.batch-size";
+
   private static final Map<String, List<Runnable>> CLASS_LOAD_CALLBACKS = new HashMap<>();
 
   private static volatile boolean instrumentationInstalled;
@@ -96,6 +110,12 @@ public class AgentInstaller {
       Instrumentation inst, ClassLoader extensionClassLoader, EarlyInitAgentConfig earlyConfig) {
     addByteBuddyRawSetting();
 
+    // wrappers need to be added before the context storage is first used, this one is added first
+    // so that the strict context stressor also wraps it
+    if (earlyConfig.getBoolean(VIRTUAL_THREAD_CONTEXT_STORAGE_CONFIG, false)) {
+      ContextStorage.addWrapper(VirtualThreadContextStorage::new);
+    }
+
     Integer strictContextStressorMillis = Integer.getInteger(STRICT_CONTEXT_STRESSOR_MILLIS);
     if (strictContextStressorMillis != null) {
       io.opentelemetry.context.ContextStorage.addWrapper(
@@ -161,6 +181,9 @@ public class AgentInstaller {
     ConfigProperties sdkConfig = AgentListener.resolveConfigProperties(autoConfiguredSdk);
     AgentInstrumentationConfig.internalInitializeConfig(new ConfigPropertiesBridge(sdkConfig));
     copyNecessaryConfigToSystemProperties(sdkConfig);
+    if (sdkConfig.getBoolean("otel.javaagent.experimental.supportability-metrics.enabled", false)) {
+      SupportabilityMetrics.instance().registerMetrics(autoConfiguredSdk.getOpenTelemetrySdk());
+    }
 
     setBootstrapPackages(sdkConfig, extensionClassLoader);
     ConfiguredResourceAttributesHolder.initialize(
@@ -171,6 +194,7 @@ public class AgentInstaller {
       agentListener.beforeAgent(autoConfiguredSdk);
     }
 
+    agentBuilder = configureParallelRetransformation(sdkConfig, inst, agentBuilder);
     agentBuilder = agentBuilder.with(new ClassLoadListener());
     agentBuilder = configureIgnoredTypes(sdkConfig, extensionClassLoader, agentBuilder);
 
@@ -239,7 +263,12 @@ public class AgentInstaller {
   }
 
   private static void copyNecessaryConfigToSystemProperties(ConfigProperties config) {
-    for (String property : asList("otel.instrumentation.experimental.span-suppression-strategy")) {
+    for (String property :
+        asList(
+            "otel.instrumentation.experimental.span-suppression-strategy",
+            "otel.instrumentation.experimental.instrumenter.reuse-buffers",
+            "otel.instrumentation.experimental.metrics.bound-instruments",
+            "otel.instrumentation.experimental.db.async-sanitization-threshold")) {
       String value = config.getString(property);
       if (value != null) {
         System.setProperty(property, value);
@@ -269,6 +298,32 @@ public class AgentInstaller {
     DefineClassHelper.internalSetHandler(DefineClassHandler.INSTANCE);
   }
 
+  private static AgentBuilder configureParallelRetransformation(
+      ConfigProperties config, Instrumentation inst, AgentBuilder agentBuilder) {
+    int parallelism = config.getInt(RETRANSFORMATION_PARALLELISM_CONFIG, 1);
+    if (parallelism <= 1) {
+      return agentBuilder;
+    }
+    int batchSize = config.getInt(RETRANSFORMATION_BATCH_SIZE_CONFIG, 100);
+    logger.log(
+        FINE,
+        "Retransforming loaded classes on {0} threads in batches of {1}",
+        new Object[] {parallelism, batchSize});
+
+    // setting the redefinition strategy resets the discovery strategy and the listener
+    AgentBuilder.RedefinitionListenable redefinitionListenable =
+        agentBuilder
+            .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
+            .with(
+                new ParallelRetransformer(
+                    inst, parallelism, Math.max(batchSize, 1), SupportabilityMetrics.instance()))
+            .with(new RedefinitionDiscoveryStrategy());
+    if (logger.isLoggable(FINE)) {
+      return redefinitionListenable.with(new RedefinitionLoggingListener());
+    }
+    return redefinitionListenable;
+  }
+
   private static AgentBuilder configureIgnoredTypes(
       ConfigProperties config, ClassLoader extensionClassLoader, AgentBuilder agentBuilder) {
     IgnoredTypesBuilderImpl builder = new IgnoredTypesBuilderImpl();
@@ -280,13 +335,21 @@ public class AgentInstaller {
     Trie<Boolean> ignoredTasksTrie = builder.buildIgnoredTasksTrie();
     InstrumentedTaskClasses.setIgnoredTaskClassesPredicate(ignoredTasksTrie::contains);
 
-    return agentBuilder
-        .ignore(any(), new IgnoredClassLoadersMatcher(builder.buildIgnoredClassLoadersTrie()))
-        .or(new IgnoredTypesMatcher(builder.buildIgnoredTypesTrie()))
-        .or(
-            (typeDescription, classLoader, module, classBeingRedefined, protectionDomain) -> {
-              return HelperInjector.isInjectedClass(classLoader, typeDescription.getName());
-            });
+    AgentBuilder.Ignored ignored =
+        agentBuilder
+            .ignore(any(), new IgnoredClassLoadersMatcher(builder.buildIgnoredClassLoadersTrie()))
+            .or(new IgnoredTypesMatcher(builder.buildIgnoredTypesTrie()))
+            .or(
+                (typeDescription, classLoader, module, classBeingRedefined, protectionDomain) -> {
+                  return HelperInjector.isInjectedClass(classLoader, typeDescription.getName());
+                });
+
+    UnmatchedTypesCache unmatchedTypesCache = UnmatchedTypesCache.create(config);
+    if (unmatchedTypesCache == null) {
+      return ignored;
+    }
+    // consulted last, so that types ignored by the matchers above are not recorded in the cache
+    return ignored.or(unmatchedTypesCache).with(unmatchedTypesCache);
   }
 
   private static void addHttpServerResponseCustomizers(ClassLoader extensionClassLoader) {
@@ -0,0 +1,153 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling;
+
+import static java.util.logging.Level.FINE;
+
+import io.opentelemetry.instrumentation.api.internal.SupportabilityMetrics;
+import io.opentelemetry.instrumentation.api.internal.SupportabilityMetrics.CounterNames;
+import java.lang.instrument.Instrumentation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import net.bytebuddy.agent.builder.AgentBuilder;
+
+/**
+ * Retransforms the already loaded classes that were matched when the agent is installed on several
+ * threads.
+ *
+ * <p>{@link Instrumentation#retransformClasses(Class[])} runs the class file transformers, i.e. the
+ * type matching and advice weaving, on the calling thread, only the final redefinition of the
+ * classes is serialized by the JVM. The classes that byte buddy hands to this batch allocator are
+ * grouped by their class loader, split into batches and retransformed on a bounded fork-join pool.
+ * No batches are returned to byte buddy, so that it does not retransform the classes again.
+ */
+final class ParallelRetransformer implements AgentBuilder.RedefinitionStrategy.BatchAllocator {
+
+  private static final Logger logger = Logger.getLogger(ParallelRetransformer.class.getName());
+
+  private final Instrumentation instrumentation;
+  private final int parallelism;
+  private final int batchSize;
+  private final SupportabilityMetrics supportability;
+
+  ParallelRetransformer(
+      Instrumentation instrumentation,
+      int parallelism,
+      int batchSize,
+      SupportabilityMetrics supportability) {
+    this.instrumentation = instrumentation;
+    this.parallelism = parallelism;
+    this.batchSize = batchSize;
+    this.supportability = supportability;
+  }
+
+  @Override
+  public Iterable<? extends List<Class<?>>> batch(List<Class<?>> types) {
+    if (types.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    long startTime = System.nanoTime();
+    List<List<Class<?>>> batches = partition(types, batchSize);
+    AtomicInteger completedBatches = new AtomicInteger();
+    ForkJoinPool pool =
+        new ForkJoinPool(
+            Math.min(parallelism, batches.size()),
+            ParallelRetransformer::newWorkerThread,
+            null,
+            false);
+    try {
+      List<ForkJoinTask<?>> tasks = new ArrayList<>(batches.size());
+      for (List<Class<?>> batch : batches) {
+        tasks.add(pool.submit(() -> retransform(batch, completedBatches, batches.size())));
+      }
+      for (ForkJoinTask<?> task : tasks) {
+        task.join();
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    supportability.addToCounter(CounterNames.RETRANSFORMATION_TIME_MILLIS, elapsedMillis);
+    logger.log(
+        FINE,
+        "Retransformed {0} classes in {1} batches on {2} threads in {3} ms",
+        new Object[] {types.size(), batches.size(), pool.getParallelism(), elapsedMillis});
+    // all classes have already been retransformed
+    return Collections.emptyList();
+  }
+
+  private void retransform(List<Class<?>> batch, AtomicInteger completedBatches, int totalBatches) {
+    try {
+      instrumentation.retransformClasses(batch.toArray(new Class<?>[0]));
+    } catch (Throwable throwable) {
+      supportability.incrementCounter(CounterNames.RETRANSFORMATION_FAILED_BATCHES);
+      if (logger.isLoggable(FINE)) {
+        logger.log(
+            FINE,
+            "Exception while retransforming " + batch.size() + " classes: " + batch,
+            throwable);
+      }
+      // a single class that can't be retransformed fails the whole batch, retry the other classes
+      // one by one
+      if (batch.size() > 1) {
+        for (Class<?> type : batch) {
+          retransformSingle(type);
+        }
+      }
+    }
+    supportability.incrementCounter(CounterNames.RETRANSFORMATION_BATCHES);
+    supportability.addToCounter(CounterNames.RETRANSFORMED_CLASSES, batch.size());
+    if (logger.isLoggable(FINE)) {
+      logger.log(
+          FINE,
+          "Retransformation batch {0}/{1} completed",
+          new Object[] {completedBatches.incrementAndGet(), totalBatches});
+    }
+  }
+
+  private void retransformSingle(Class<?> type) {
+    try {
+      instrumentation.retransformClasses(type);
+    } catch (Throwable throwable) {
+      if (logger.isLoggable(FINE)) {
+        logger.log(FINE, "Exception while retransforming " + type.getName(), throwable);
+      }
+    }
+  }
+
+  // visible for testing
+  static List<List<Class<?>>> partition(List<Class<?>> types, int batchSize) {
+    Map<ClassLoader, List<Class<?>>> typesByClassLoader = new LinkedHashMap<>();
+    for (Class<?> type : types) {
+      typesByClassLoader.computeIfAbsent(type.getClassLoader(), k -> new ArrayList<>()).add(type);
+    }
+    List<List<Class<?>>> batches = new ArrayList<>();
+    for (List<Class<?>> loaderTypes : typesByClassLoader.values()) {
+      for (int i = 0; i < loaderTypes.size(); i += batchSize) {
+        batches.add(loaderTypes.subList(i, Math.min(i + batchSize, loaderTypes.size())));
+      }
+    }
+    return batches;
+  }
+
+  private static ForkJoinWorkerThread newWorkerThread(ForkJoinPool pool) {
+    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+    thread.setName("otel-javaagent-retransformer-" + thread.getPoolIndex());
+    thread.setContextClassLoader(null);
+    return thread;
+  }
+}
@@ -28,6 +28,8 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import net.bytebuddy.ByteBuddy;
 import net.bytebuddy.agent.builder.AgentBuilder;
 import net.bytebuddy.asm.AsmVisitorWrapper;
@@ -67,14 +69,16 @@ final class FieldBackedImplementationInstaller implements VirtualFieldImplementa
   private final Class<?> instrumenterClass;
   private final VirtualFieldMappings virtualFieldMappings;
 
-  private final FieldAccessorInterfaces fieldAccessorInterfaces;
   private final AgentBuilder.Transformer fieldAccessorInterfacesInjector;
-
-  private final VirtualFieldImplementations virtualFieldImplementations;
   private final AgentBuilder.Transformer virtualFieldImplementationsInjector;
 
   private final Instrumentation instrumentation;
 
+  // generating the classes is relatively expensive and most instrumentation modules never match
+  // any class loader, so they are only generated when the module is first applied
+  private volatile GeneratedClasses generatedClasses;
+  private final Object generatedClassesLock = new Object();
+
   public FieldBackedImplementationInstaller(
       Class<?> instrumenterClass, VirtualFieldMappings virtualFieldMappings) {
     this.instrumenterClass = instrumenterClass;
@@ -82,17 +86,26 @@ final class FieldBackedImplementationInstaller implements VirtualFieldImplementa
     // This class is used only when running with javaagent, thus this calls is safe
     this.instrumentation = InstrumentationHolder.getInstrumentation();
 
-    ByteBuddy byteBuddy = new ByteBuddy();
-    fieldAccessorInterfaces =
-        new FieldAccessorInterfacesGenerator(byteBuddy)
-            .generateFieldAccessorInterfaces(virtualFieldMappings);
     fieldAccessorInterfacesInjector =
-        bootstrapHelperInjector(fieldAccessorInterfaces.getAllInterfaces());
-    virtualFieldImplementations =
-        new VirtualFieldImplementationsGenerator(byteBuddy)
-            .generateClasses(virtualFieldMappings, fieldAccessorInterfaces);
+        bootstrapHelperInjector(generated -> generated.fieldAccessorInterfacesInjector);
     virtualFieldImplementationsInjector =
-        bootstrapHelperInjector(virtualFieldImplementations.getAllClasses());
+        bootstrapHelperInjector(generated -> generated.virtualFieldImplementationsInjector);
+  }
+
+  private GeneratedClasses generatedClasses() {
+    GeneratedClasses result = generatedClasses;
+    if (result == null) {
+      // generating only loads agent and jdk classes, so holding the lock while a class is being
+      // transformed can't wait on the loading of an application class
+      synchronized (generatedClassesLock) {
+        result = generatedClasses;
+        if (result == null) {
+          result = new GeneratedClasses();
+          generatedClasses = result;
+        }
+      }
+    }
+    return result;
   }
 
   @Override
@@ -105,9 +118,7 @@ final class FieldBackedImplementationInstaller implements VirtualFieldImplementa
        */
       builder =
           builder.transform(
-              getTransformerForAsmVisitor(
-                  new VirtualFieldFindRewriter(
-                      instrumenterClass, virtualFieldMappings, virtualFieldImplementations)));
+              getTransformerForAsmVisitor(() -> generatedClasses().virtualFieldFindRewriter));
     }
     return builder;
   }
@@ -141,28 +152,17 @@ final class FieldBackedImplementationInstaller implements VirtualFieldImplementa
 
   /** Get transformer that forces helper injection onto bootstrap class loader. */
   private AgentBuilder.Transformer bootstrapHelperInjector(
-      Collection<DynamicType.Unloaded<?>> helpers) {
-    // TODO: Better to pass through the context of the Instrumenter
-    return new AgentBuilder.Transformer() {
-      final HelperInjector injector =
-          HelperInjector.forDynamicTypes(getClass().getSimpleName(), helpers, instrumentation);
-
-      @Override
-      public DynamicType.Builder<?> transform(
-          DynamicType.Builder<?> builder,
-          TypeDescription typeDescription,
-          ClassLoader classLoader,
-          JavaModule javaModule,
-          ProtectionDomain protectionDomain) {
-        return injector.transform(
-            builder,
-            typeDescription,
-            // virtual field implementation classes will always go to the bootstrap
-            null,
-            javaModule,
-            protectionDomain);
-      }
-    };
+      Function<GeneratedClasses, HelperInjector> injector) {
+    return (builder, typeDescription, classLoader, javaModule, protectionDomain) ->
+        injector
+            .apply(generatedClasses())
+            .transform(
+                builder,
+                typeDescription,
+                // virtual field implementation classes will always go to the bootstrap
+                null,
+                javaModule,
+                protectionDomain);
   }
 
   /*
@@ -231,8 +231,11 @@ final class FieldBackedImplementationInstaller implements VirtualFieldImplementa
           builder =
               builder.transform(
                   getTransformerForAsmVisitor(
-                      new RealFieldInjector(
-                          fieldAccessorInterfaces, entry.getKey(), entry.getValue())));
+                      () ->
+                          new RealFieldInjector(
+                              generatedClasses().fieldAccessorInterfaces,
+                              entry.getKey(),
+                              entry.getValue())));
         }
       }
     }
@@ -253,9 +256,38 @@ final class FieldBackedImplementationInstaller implements VirtualFieldImplementa
     };
   }
 
-  private static AgentBuilder.Transformer getTransformerForAsmVisitor(AsmVisitorWrapper visitor) {
+  private static AgentBuilder.Transformer getTransformerForAsmVisitor(
+      Supplier<AsmVisitorWrapper> visitor) {
     return (builder, typeDescription, classLoader, javaModule, protectionDomain) ->
-        builder.visit(visitor);
+        builder.visit(visitor.get());
+  }
+
+  private final class GeneratedClasses {
+    final FieldAccessorInterfaces fieldAccessorInterfaces;
+    final HelperInjector fieldAccessorInterfacesInjector;
+    final HelperInjector virtualFieldImplementationsInjector;
+    final VirtualFieldFindRewriter virtualFieldFindRewriter;
+
+    GeneratedClasses() {
+      ByteBuddy byteBuddy = new ByteBuddy();
+      fieldAccessorInterfaces =
+          new FieldAccessorInterfacesGenerator(byteBuddy)
+              .generateFieldAccessorInterfaces(virtualFieldMappings);
+      fieldAccessorInterfacesInjector = forDynamicTypes(fieldAccessorInterfaces.getAllInterfaces());
+      VirtualFieldImplementations virtualFieldImplementations =
+          new VirtualFieldImplementationsGenerator(byteBuddy)
+              .generateClasses(virtualFieldMappings, fieldAccessorInterfaces);
+      virtualFieldImplementationsInjector =
+          forDynamicTypes(virtualFieldImplementations.getAllClasses());
+      virtualFieldFindRewriter =
+          new VirtualFieldFindRewriter(
+              instrumenterClass, virtualFieldMappings, virtualFieldImplementations);
+    }
+
+    private HelperInjector forDynamicTypes(Collection<DynamicType.Unloaded<?>> helpers) {
+      return HelperInjector.forDynamicTypes(
+          FieldBackedImplementationInstaller.class.getSimpleName(), helpers, instrumentation);
+    }
   }
 
   // Originally found in AgentBuilder.Transformer.NoOp, but removed in 1.10.7
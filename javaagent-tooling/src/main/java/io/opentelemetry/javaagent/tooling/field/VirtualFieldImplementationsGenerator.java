@@ -15,8 +15,10 @@ import io.opentelemetry.instrumentation.api.util.VirtualField;
 import io.opentelemetry.javaagent.extension.instrumentation.internal.AsmApi;
 import io.opentelemetry.javaagent.tooling.Utils;
 import io.opentelemetry.javaagent.tooling.muzzle.VirtualFieldMappings;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import net.bytebuddy.ByteBuddy;
 import net.bytebuddy.ClassFileVersion;
 import net.bytebuddy.asm.AsmVisitorWrapper;
@@ -35,9 +37,18 @@ import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
 
 final class VirtualFieldImplementationsGenerator {
 
+  private static final String CACHE_INTERNAL_NAME = Type.getInternalName(Cache.class);
+
+  // the values of these fields are removed when the task they're attached to runs or completes, so
+  // the map fallback of their virtual fields keeps the keys strongly for a while instead of
+  // allocating a weak reference for each of them
+  private static final Set<String> SHORT_LIVED_FIELD_TYPES =
+      Collections.singleton("io.opentelemetry.javaagent.bootstrap.executors.PropagatedContext");
+
   private final ByteBuddy byteBuddy;
 
   VirtualFieldImplementationsGenerator(ByteBuddy byteBuddy) {
@@ -128,6 +139,10 @@ final class VirtualFieldImplementationsGenerator {
             } else if ("realPut".equals(name)) {
               generateRealPutMethod(name);
               return null;
+            } else if ("<clinit>".equals(name)
+                && SHORT_LIVED_FIELD_TYPES.contains(fieldTypeName)) {
+              return new ShortLivedMapVisitor(
+                  super.visitMethod(access, name, descriptor, signature, exceptions));
             } else {
               return super.visitMethod(access, name, descriptor, signature, exceptions);
             }
@@ -259,15 +274,38 @@ final class VirtualFieldImplementationsGenerator {
     };
   }
 
+  /**
+   * Replaces the {@link Cache#weakStriped()} map of {@link VirtualFieldImplementationTemplate} with
+   * a {@link Cache#weakGenerational()} one.
+   */
+  private static class ShortLivedMapVisitor extends MethodVisitor {
+
+    ShortLivedMapVisitor(MethodVisitor methodVisitor) {
+      super(AsmApi.VERSION, methodVisitor);
+    }
+
+    @Override
+    public void visitMethodInsn(
+        int opcode, String owner, String name, String descriptor, boolean isInterface) {
+      if (opcode == Opcodes.INVOKESTATIC
+          && CACHE_INTERNAL_NAME.equals(owner)
+          && "weakStriped".equals(name)) {
+        name = "weakGenerational";
+      }
+      super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+    }
+  }
+
   /**
    * Template class used to generate the class that accesses stored context using either key
-   * instance's own injected field or global hash map if field is not available.
+   * instance's own injected field or global hash map if field is not available. Every generated
+   * class has its own map, so the maps of different field types don't contend with each other.
    */
   // Called from generated code
   @SuppressWarnings({"UnusedMethod", "UnusedVariable", "MethodCanBeStatic"})
   static final class VirtualFieldImplementationTemplate extends VirtualField<Object, Object> {
     private static final VirtualFieldImplementationTemplate INSTANCE =
-        new VirtualFieldImplementationTemplate(Cache.weak());
+        new VirtualFieldImplementationTemplate(Cache.weakStriped());
 
     private final Cache<Object, Object> map;
 
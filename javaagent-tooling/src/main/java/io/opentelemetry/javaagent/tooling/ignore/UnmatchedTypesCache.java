@@ -0,0 +1,467 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.ignore;
+
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+
+import io.opentelemetry.instrumentation.api.internal.cache.Cache;
+import io.opentelemetry.javaagent.bootstrap.JavaagentFileHolder;
+import io.opentelemetry.javaagent.tooling.AgentVersion;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.utility.JavaModule;
+
+/**
+ * Remembers across JVM restarts which classes did not match any instrumentation, so that later
+ * starts can ignore them without running the type matchers.
+ *
+ * <p>A class is identified by its name, the jar it was loaded from and its class loader. A jar is
+ * identified by its path, size and modification time, a class loader by its type, the types of its
+ * parents and, for {@link URLClassLoader}s, its urls. Classes that were not loaded from a jar file
+ * are never cached. The name of the cache file is derived from the agent version, the agent and
+ * extension jars, the JVM version, the agent configuration and the jars and directories on the
+ * class path, so changing any of them starts over with an empty cache. The cache file is memory
+ * mapped and never modified; classes that are seen for the first time are collected in memory and a
+ * new file replaces the old one when the JVM shuts down.
+ *
+ * <p>Whether a class matches may also depend on the other jars visible to its class loader. Once a
+ * class is loaded from a jar that was not seen when the cache file was written, the deployment is
+ * considered changed and no more types are skipped for the rest of the run.
+ *
+ * <p>Several services may share the cache directory. The file name starts with a hash of the
+ * service name and main command, and only older files of the same service are deleted.
+ */
+public final class UnmatchedTypesCache extends AgentBuilder.Listener.Adapter
+    implements AgentBuilder.RawMatcher {
+
+  private static final Logger logger = Logger.getLogger(UnmatchedTypesCache.class.getName());
+
+  static final String DIRECTORY_CONFIG = "otel.javaagent.experimental.type-match-cache.directory";
+
+  private static final String FILE_PREFIX = "type-match-cache-";
+  private static final String FILE_SUFFIX = ".bin";
+  // "OTELTMC1"
+  private static final long MAGIC = 0x4f54454c544d4331L;
+  private static final int HEADER_LONGS = 3;
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final long NOT_CACHEABLE = 0;
+
+  private final Path directory;
+  private final String servicePrefix;
+  private final Path file;
+  // sorted jar fingerprints and type entries read from the cache file, null if there was none
+  @Nullable private final LongBuffer knownJars;
+  @Nullable private final LongBuffer knownEntries;
+
+  private final Cache<ProtectionDomain, Long> jarFingerprints = Cache.weak();
+  private final Cache<ClassLoader, Long> loaderFingerprints = Cache.weak();
+  private final Set<Long> seenJars = ConcurrentHashMap.newKeySet();
+  private final Set<Long> newEntries = ConcurrentHashMap.newKeySet();
+  private final ThreadLocal<PendingType> pendingType = ThreadLocal.withInitial(PendingType::new);
+  private volatile boolean deploymentChanged;
+
+  UnmatchedTypesCache(Path directory, long serviceKey, long key) {
+    this.directory = directory;
+    this.servicePrefix = FILE_PREFIX + Long.toHexString(serviceKey) + "-";
+    this.file = directory.resolve(servicePrefix + Long.toHexString(key) + FILE_SUFFIX);
+
+    LongBuffer content = read(file);
+    if (content == null) {
+      knownJars = null;
+      knownEntries = null;
+      return;
+    }
+    int jarCount = (int) content.get(1);
+    int entryCount = (int) content.get(2);
+    knownJars = slice(content, HEADER_LONGS, jarCount);
+    knownEntries = slice(content, HEADER_LONGS + jarCount, entryCount);
+    logger.log(FINE, "Loaded {0} unmatched types from {1}", new Object[] {entryCount, file});
+  }
+
+  /**
+   * Returns the cache configured with {@link #DIRECTORY_CONFIG}, or {@code null} if it is not
+   * enabled. The returned cache is written back to the directory when the JVM shuts down.
+   */
+  @Nullable
+  public static UnmatchedTypesCache create(ConfigProperties config) {
+    String directory = config.getString(DIRECTORY_CONFIG);
+    if (directory == null || directory.isEmpty()) {
+      return null;
+    }
+    UnmatchedTypesCache cache =
+        new UnmatchedTypesCache(Paths.get(directory), computeServiceKey(config), computeKey());
+    Runtime.getRuntime()
+        .addShutdownHook(new Thread(cache::write, "otel-javaagent-type-match-cache-writer"));
+    return cache;
+  }
+
+  // identifies the application, so that services sharing the directory keep their own files
+  private static long computeServiceKey(ConfigProperties config) {
+    long hash = FNV_OFFSET_BASIS;
+    hash = hash(hash, config.getString("otel.service.name", ""));
+    String command = System.getProperty("sun.java.command", "");
+    // the main class or jar, without the program arguments
+    int argumentsStart = command.indexOf(' ');
+    return hash(hash, argumentsStart < 0 ? command : command.substring(0, argumentsStart));
+  }
+
+  // everything that can change which instrumentations are installed and what they match
+  private static long computeKey() {
+    long hash = FNV_OFFSET_BASIS;
+    hash = hash(hash, String.valueOf(AgentVersion.VERSION));
+    hash = hash(hash, String.valueOf(System.getProperty("java.vm.vendor")));
+    hash = hash(hash, String.valueOf(System.getProperty("java.vm.version")));
+    File agentJar = JavaagentFileHolder.getJavaagentFile();
+    if (agentJar != null) {
+      hash = hashFile(hash, agentJar);
+    }
+    // a class path jar that changed is often not loaded from before the classes that were cached
+    String classPath = System.getProperty("java.class.path", "");
+    for (String path : classPath.split(File.pathSeparator)) {
+      if (!path.isEmpty()) {
+        hash = hashFile(hash, new File(path));
+      }
+    }
+
+    Map<String, String> settings = new TreeMap<>();
+    for (String name : System.getProperties().stringPropertyNames()) {
+      if (name.startsWith("otel.")) {
+        settings.put(name, System.getProperty(name));
+      }
+    }
+    for (Map.Entry<String, String> entry : System.getenv().entrySet()) {
+      if (entry.getKey().startsWith("OTEL_")) {
+        settings.put(entry.getKey(), entry.getValue());
+      }
+    }
+    for (Map.Entry<String, String> entry : settings.entrySet()) {
+      hash = hash(hash, entry.getKey());
+      hash = hash(hash, entry.getValue());
+      // extension jars and the configuration file may change without the setting changing
+      if (entry.getKey().equals("otel.javaagent.extensions")
+          || entry.getKey().equals("OTEL_JAVAAGENT_EXTENSIONS")) {
+        for (String path : entry.getValue().split(",")) {
+          hash = hashFile(hash, new File(path.trim()));
+        }
+      } else if (entry.getKey().equals("otel.javaagent.configuration-file")
+          || entry.getKey().equals("OTEL_JAVAAGENT_CONFIGURATION_FILE")) {
+        hash = hashFile(hash, new File(entry.getValue()));
+      }
+    }
+    return hash;
+  }
+
+  @Override
+  public boolean matches(
+      TypeDescription typeDescription,
+      @Nullable ClassLoader classLoader,
+      @Nullable JavaModule module,
+      @Nullable Class<?> classBeingRedefined,
+      @Nullable ProtectionDomain protectionDomain) {
+    long jar = jarFingerprint(protectionDomain);
+    if (jar == NOT_CACHEABLE) {
+      return false;
+    }
+    String typeName = typeDescription.getName();
+    long entry = hash(hash(jar, loaderFingerprint(classLoader)), typeName);
+    if (!deploymentChanged && contains(knownEntries, entry)) {
+      return true;
+    }
+    PendingType pending = pendingType.get();
+    pending.typeName = typeName;
+    pending.entry = entry;
+    return false;
+  }
+
+  @Override
+  public void onIgnored(
+      TypeDescription typeDescription,
+      @Nullable ClassLoader classLoader,
+      @Nullable JavaModule module,
+      boolean loaded) {
+    // called when neither the ignore matchers nor any instrumentation matched the type
+    PendingType pending = pendingType.get();
+    if (typeDescription.getName().equals(pending.typeName)) {
+      newEntries.add(pending.entry);
+      pending.typeName = null;
+    }
+  }
+
+  @Override
+  public void onComplete(
+      String typeName,
+      @Nullable ClassLoader classLoader,
+      @Nullable JavaModule module,
+      boolean loaded) {
+    pendingType.get().typeName = null;
+  }
+
+  private long jarFingerprint(@Nullable ProtectionDomain protectionDomain) {
+    if (protectionDomain == null) {
+      return NOT_CACHEABLE;
+    }
+    return jarFingerprints.computeIfAbsent(
+        protectionDomain,
+        pd -> {
+          CodeSource codeSource = pd.getCodeSource();
+          File jarFile = codeSource != null ? toJarFile(codeSource.getLocation()) : null;
+          if (jarFile == null) {
+            return NOT_CACHEABLE;
+          }
+          long fingerprint = hashFile(FNV_OFFSET_BASIS, jarFile);
+          if (fingerprint == NOT_CACHEABLE) {
+            fingerprint++;
+          }
+          seenJars.add(fingerprint);
+          if (knownJars != null && !contains(knownJars, fingerprint) && !deploymentChanged) {
+            deploymentChanged = true;
+            logger.log(FINE, "{0} was not seen when the type match cache was written", jarFile);
+          }
+          return fingerprint;
+        });
+  }
+
+  // the same jar can match differently in class loaders that see other classes next to it
+  private long loaderFingerprint(@Nullable ClassLoader classLoader) {
+    if (classLoader == null) {
+      return FNV_OFFSET_BASIS;
+    }
+    return loaderFingerprints.computeIfAbsent(
+        classLoader,
+        cl -> {
+          long hash = FNV_OFFSET_BASIS;
+          for (ClassLoader loader = cl; loader != null; loader = loader.getParent()) {
+            hash = hash(hash, loader.getClass().getName());
+            if (loader instanceof URLClassLoader) {
+              for (URL url : ((URLClassLoader) loader).getURLs()) {
+                hash = hash(hash, String.valueOf(url));
+              }
+            }
+          }
+          return hash;
+        });
+  }
+
+  @Nullable
+  private static File toJarFile(@Nullable URL location) {
+    if (location == null) {
+      return null;
+    }
+    try {
+      URI uri;
+      if ("file".equals(location.getProtocol())) {
+        uri = location.toURI();
+      } else if ("jar".equals(location.getProtocol())) {
+        // jar:file:/path/app.jar!/BOOT-INF/classes!/ identifies the outermost jar
+        String path = location.getPath();
+        int separator = path.indexOf("!/");
+        if (!path.startsWith("file:") || separator < 0) {
+          return null;
+        }
+        uri = new URI(path.substring(0, separator));
+      } else {
+        return null;
+      }
+      File file = new File(uri);
+      // the modification time of a directory does not change when the classes in it do
+      return file.isFile() ? file : null;
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  // visible for testing
+  void write() {
+    long[] jars = merge(deploymentChanged ? null : knownJars, seenJars);
+    long[] entries = merge(deploymentChanged ? null : knownEntries, newEntries);
+    if (knownEntries != null
+        && !deploymentChanged
+        && newEntries.isEmpty()
+        && jars.length == knownJars.limit()) {
+      return;
+    }
+
+    Path tempFile = null;
+    try {
+      Files.createDirectories(directory);
+      tempFile = Files.createTempFile(directory, FILE_PREFIX, ".tmp");
+      ByteBuffer buffer = ByteBuffer.allocate((HEADER_LONGS + jars.length + entries.length) * 8);
+      buffer.asLongBuffer().put(MAGIC).put(jars.length).put(entries.length).put(jars).put(entries);
+      try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      Files.move(
+          tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      tempFile = null;
+      deleteStaleFiles();
+    } catch (IOException | RuntimeException e) {
+      logger.log(WARNING, "Failed to write the type match cache to " + directory, e);
+    } finally {
+      if (tempFile != null) {
+        try {
+          Files.deleteIfExists(tempFile);
+        } catch (IOException ignored) {
+          // ignore
+        }
+      }
+    }
+  }
+
+  // removes the cache files this service wrote with a different configuration or class path
+  private void deleteStaleFiles() throws IOException {
+    try (DirectoryStream<Path> stream =
+        Files.newDirectoryStream(directory, servicePrefix + "*" + FILE_SUFFIX)) {
+      for (Path path : stream) {
+        if (!path.equals(file)) {
+          Files.deleteIfExists(path);
+        }
+      }
+    }
+  }
+
+  @Nullable
+  private static LongBuffer read(Path file) {
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_LONGS * 8 || size % 8 != 0 || size > Integer.MAX_VALUE) {
+        return null;
+      }
+      // the mapping stays valid after the channel is closed
+      LongBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).asLongBuffer();
+      long jarCount = content.get(1);
+      long entryCount = content.get(2);
+      if (content.get(0) != MAGIC
+          || jarCount < 0
+          || entryCount < 0
+          || HEADER_LONGS + jarCount + entryCount != content.limit()) {
+        return null;
+      }
+      return content;
+    } catch (IOException e) {
+      logger.log(FINE, "Failed to read the type match cache from " + file, e);
+      return null;
+    }
+  }
+
+  private static LongBuffer slice(LongBuffer buffer, int offset, int length) {
+    LongBuffer duplicate = buffer.duplicate();
+    duplicate.position(offset);
+    duplicate.limit(offset + length);
+    return duplicate.slice();
+  }
+
+  private static boolean contains(@Nullable LongBuffer sorted, long value) {
+    if (sorted == null) {
+      return false;
+    }
+    int low = 0;
+    int high = sorted.limit() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long midValue = sorted.get(mid);
+      if (midValue < value) {
+        low = mid + 1;
+      } else if (midValue > value) {
+        high = mid - 1;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static long[] merge(@Nullable LongBuffer sorted, Set<Long> values) {
+    int knownCount = sorted != null ? sorted.limit() : 0;
+    long[] result = new long[knownCount + values.size()];
+    int size = 0;
+    for (int i = 0; i < knownCount; i++) {
+      result[size++] = sorted.get(i);
+    }
+    for (Long value : values) {
+      if (size == result.length) {
+        // added concurrently
+        break;
+      }
+      result[size++] = value;
+    }
+    Arrays.sort(result, 0, size);
+    int distinct = 0;
+    for (int i = 0; i < size; i++) {
+      if (distinct == 0 || result[distinct - 1] != result[i]) {
+        result[distinct++] = result[i];
+      }
+    }
+    return Arrays.copyOf(result, distinct);
+  }
+
+  private static long hashFile(long hash, File file) {
+    File[] children = file.isDirectory() ? file.listFiles() : null;
+    if (children != null) {
+      Arrays.sort(children);
+      for (File child : children) {
+        hash = hashFile(hash, child);
+      }
+      return hash;
+    }
+    hash = hash(hash, file.getAbsolutePath());
+    hash = hash(hash, file.length());
+    return hash(hash, file.lastModified());
+  }
+
+  private static long hash(long hash, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+    }
+    // separates consecutive strings
+    return (hash ^ 0xffff) * FNV_PRIME;
+  }
+
+  private static long hash(long hash, long value) {
+    for (int i = 0; i < 64; i += 8) {
+      hash = (hash ^ ((value >>> i) & 0xff)) * FNV_PRIME;
+    }
+    return hash;
+  }
+
+  // the type whose matching is in progress on the current thread
+  private static final class PendingType {
+    @Nullable String typeName;
+    long entry;
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.instrumentation;
+
+import static java.util.Collections.singletonList;
+
+import io.opentelemetry.javaagent.bootstrap.AdviceSwitches;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nullable;
+import net.bytebuddy.asm.Advice;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FrameNode;
+import org.objectweb.asm.tree.IincInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.ParameterNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+/**
+ * Rewrites an inlined advice class so that its advice methods return the default value of their
+ * return type right away while the instrumentation module is switched off, see {@link
+ * AdviceSwitches}. The indy advice is switched off through its call sites instead, using the same
+ * rules for which advice can be switched off.
+ *
+ * <p>A method is only switched when it is entered: exit advice that pairs with enter advice runs if
+ * and only if the enter advice of the same invocation ran, no matter whether the module was
+ * switched while the method ran. The decision is carried from the enter to the exit advice in an
+ * {@link Advice.Local} that is added to both advice methods. Enter and exit advice are only
+ * switched together, if one of them can't be switched off neither is.
+ */
+final class AdviceSwitchTransformer {
+
+  private static final String ENTER_ADVICE_DESCRIPTOR =
+      Type.getDescriptor(Advice.OnMethodEnter.class);
+  private static final String EXIT_ADVICE_DESCRIPTOR =
+      Type.getDescriptor(Advice.OnMethodExit.class);
+  private static final String ASSIGN_RETURNED_DESCRIPTOR_PREFIX =
+      "L" + Type.getInternalName(Advice.AssignReturned.class) + "$";
+  private static final Type ON_DEFAULT_VALUE_TYPE = Type.getType(Advice.OnDefaultValue.class);
+  private static final String LOCAL_DESCRIPTOR = Type.getDescriptor(Advice.Local.class);
+  private static final String ADVICE_SWITCHES_NAME = Type.getInternalName(AdviceSwitches.class);
+  // the local that tells the exit advice that the enter advice ran
+  private static final String ENTERED_LOCAL_NAME = "otelAdviceSwitchEntered";
+
+  static byte[] transform(byte[] bytes, int moduleId) {
+    ClassReader cr = new ClassReader(bytes);
+    ClassNode classNode = new ClassNode();
+    cr.accept(classNode, 0);
+
+    MethodNode enterAdvice = null;
+    MethodNode exitAdvice = null;
+    for (MethodNode methodNode : classNode.methods) {
+      if (getAnnotation(methodNode, ENTER_ADVICE_DESCRIPTOR) != null) {
+        enterAdvice = methodNode;
+      } else if (getAnnotation(methodNode, EXIT_ADVICE_DESCRIPTOR) != null) {
+        exitAdvice = methodNode;
+      }
+    }
+
+    boolean frames = (classNode.version & 0xFFFF) >= Opcodes.V1_6;
+    if (enterAdvice != null && exitAdvice != null) {
+      if (!isSwitchable(enterAdvice) || !isSwitchable(exitAdvice)) {
+        return bytes;
+      }
+      int enteredSlot = addEnteredLocal(enterAdvice);
+      insertSwitch(frames, enterAdvice, moduleId, enteredSlot);
+      insertExitSwitch(frames, exitAdvice, addEnteredLocal(exitAdvice));
+    } else if (enterAdvice != null && isSwitchable(enterAdvice)) {
+      insertSwitch(frames, enterAdvice, moduleId, -1);
+    } else if (exitAdvice != null && isSwitchable(exitAdvice)) {
+      insertSwitch(frames, exitAdvice, moduleId, -1);
+    } else {
+      return bytes;
+    }
+
+    ClassWriter cw = new ClassWriter(cr, ClassWriter.COMPUTE_MAXS);
+    classNode.accept(cw);
+    return cw.toByteArray();
+  }
+
+  /** Returns whether a noop advice method would leave the instrumented method as it is. */
+  private static boolean isSwitchable(MethodNode methodNode) {
+    if (methodNode.visibleAnnotations != null) {
+      for (AnnotationNode annotationNode : methodNode.visibleAnnotations) {
+        // a noop would assign the default value to the arguments or the return value
+        if (annotationNode.desc.startsWith(ASSIGN_RETURNED_DESCRIPTOR_PREFIX)) {
+          return false;
+        }
+      }
+    }
+
+    AnnotationNode enterAdvice = getAnnotation(methodNode, ENTER_ADVICE_DESCRIPTOR);
+    if (enterAdvice != null) {
+      // a noop would skip the instrumented method
+      return !reactsToDefaultValue(enterAdvice, "skipOn", "skipOnIndex");
+    }
+    // a noop would repeat the instrumented method
+    return !reactsToDefaultValue(
+        getAnnotation(methodNode, EXIT_ADVICE_DESCRIPTOR), "repeatOn", "repeatOnIndex");
+  }
+
+  /**
+   * Appends a boolean {@link Advice.Local} parameter to the advice method and returns its slot. The
+   * locals of the method that come after the parameters are moved up by one slot.
+   */
+  private static int addEnteredLocal(MethodNode methodNode) {
+    Type[] argumentTypes = Type.getArgumentTypes(methodNode.desc);
+    // advice methods are static, the first parameter is in slot 0
+    int slot = 0;
+    for (Type argumentType : argumentTypes) {
+      slot += argumentType.getSize();
+    }
+
+    Type[] newArgumentTypes = Arrays.copyOf(argumentTypes, argumentTypes.length + 1);
+    newArgumentTypes[argumentTypes.length] = Type.BOOLEAN_TYPE;
+    methodNode.desc =
+        Type.getMethodDescriptor(Type.getReturnType(methodNode.desc), newArgumentTypes);
+    if (methodNode.signature != null) {
+      int end = methodNode.signature.lastIndexOf(')');
+      methodNode.signature =
+          methodNode.signature.substring(0, end) + "Z" + methodNode.signature.substring(end);
+    }
+
+    AnnotationNode local = new AnnotationNode(LOCAL_DESCRIPTOR);
+    local.visit("value", ENTERED_LOCAL_NAME);
+    methodNode.visibleParameterAnnotations =
+        appendParameter(methodNode.visibleParameterAnnotations, argumentTypes.length, local);
+    methodNode.visibleAnnotableParameterCount = 0;
+    methodNode.invisibleParameterAnnotations =
+        appendParameter(methodNode.invisibleParameterAnnotations, argumentTypes.length, null);
+    methodNode.invisibleAnnotableParameterCount = 0;
+    if (methodNode.parameters != null) {
+      methodNode.parameters.add(new ParameterNode(ENTERED_LOCAL_NAME, 0));
+    }
+
+    for (AbstractInsnNode insn : methodNode.instructions) {
+      if (insn instanceof VarInsnNode && ((VarInsnNode) insn).var >= slot) {
+        ((VarInsnNode) insn).var++;
+      } else if (insn instanceof IincInsnNode && ((IincInsnNode) insn).var >= slot) {
+        ((IincInsnNode) insn).var++;
+      } else if (insn instanceof FrameNode) {
+        FrameNode frame = (FrameNode) insn;
+        if (frame.type == Opcodes.F_FULL || frame.type == Opcodes.F_NEW) {
+          // full frames list every local, long and double values take a single element
+          List<Object> locals = new ArrayList<>(frame.local);
+          while (locals.size() < argumentTypes.length) {
+            locals.add(Opcodes.TOP);
+          }
+          locals.add(argumentTypes.length, Opcodes.INTEGER);
+          frame.local = locals;
+        }
+      }
+    }
+    if (methodNode.localVariables != null) {
+      for (LocalVariableNode localVariable : methodNode.localVariables) {
+        if (localVariable.index >= slot) {
+          localVariable.index++;
+        }
+      }
+    }
+    return slot;
+  }
+
+  @Nullable
+  private static List<AnnotationNode>[] appendParameter(
+      @Nullable List<AnnotationNode>[] parameterAnnotations,
+      int parameterCount,
+      @Nullable AnnotationNode annotationNode) {
+    if (parameterAnnotations == null && annotationNode == null) {
+      return null;
+    }
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    List<AnnotationNode>[] result = (List<AnnotationNode>[]) new List[parameterCount + 1];
+    if (parameterAnnotations != null) {
+      int length = Math.min(parameterAnnotations.length, parameterCount);
+      System.arraycopy(parameterAnnotations, 0, result, 0, length);
+    }
+    if (annotationNode != null) {
+      result[parameterCount] = new ArrayList<>(singletonList(annotationNode));
+    }
+    return result;
+  }
+
+  private static boolean reactsToDefaultValue(
+      @Nullable AnnotationNode annotationNode, String typeProperty, String indexProperty) {
+    if (annotationNode == null) {
+      return false;
+    }
+    Object type = getValue(annotationNode, typeProperty);
+    Object index = getValue(annotationNode, indexProperty);
+    return ON_DEFAULT_VALUE_TYPE.equals(type) || (index instanceof Integer && (Integer) index >= 0);
+  }
+
+  /**
+   * Makes the advice method return right away while the module is switched off, and otherwise
+   * records in the slot, unless it is negative, that it ran.
+   */
+  private static void insertSwitch(
+      boolean frames, MethodNode methodNode, int moduleId, int enteredSlot) {
+    LabelNode enabled = new LabelNode();
+    InsnList instructions = new InsnList();
+    instructions.add(new LdcInsnNode(moduleId));
+    instructions.add(
+        new MethodInsnNode(
+            Opcodes.INVOKESTATIC, ADVICE_SWITCHES_NAME, "isEnabled", "(I)Z", false));
+    instructions.add(new JumpInsnNode(Opcodes.IFNE, enabled));
+    addReturnDefaultValue(instructions, methodNode);
+    addLabel(instructions, enabled, frames);
+    if (enteredSlot >= 0) {
+      instructions.add(new InsnNode(Opcodes.ICONST_1));
+      instructions.add(new VarInsnNode(Opcodes.ISTORE, enteredSlot));
+    } else {
+      // the original code may start with a frame of its own, which must not have the same offset
+      instructions.add(new InsnNode(Opcodes.NOP));
+    }
+    methodNode.instructions.insert(instructions);
+  }
+
+  /** Makes the exit advice return right away if the enter advice didn't run. */
+  private static void insertExitSwitch(boolean frames, MethodNode methodNode, int enteredSlot) {
+    LabelNode entered = new LabelNode();
+    InsnList instructions = new InsnList();
+    instructions.add(new VarInsnNode(Opcodes.ILOAD, enteredSlot));
+    instructions.add(new JumpInsnNode(Opcodes.IFNE, entered));
+    addReturnDefaultValue(instructions, methodNode);
+    addLabel(instructions, entered, frames);
+    // the original code may start with a frame of its own, which must not have the same offset
+    instructions.add(new InsnNode(Opcodes.NOP));
+    methodNode.instructions.insert(instructions);
+  }
+
+  private static void addReturnDefaultValue(InsnList instructions, MethodNode methodNode) {
+    Type returnType = Type.getReturnType(methodNode.desc);
+    if (returnType.getSort() != Type.VOID) {
+      instructions.add(new InsnNode(getDefaultValueOpcode(returnType)));
+    }
+    instructions.add(new InsnNode(returnType.getOpcode(Opcodes.IRETURN)));
+  }
+
+  private static void addLabel(InsnList instructions, LabelNode label, boolean frames) {
+    instructions.add(label);
+    if (frames) {
+      instructions.add(new FrameNode(Opcodes.F_SAME, 0, null, 0, null));
+    }
+  }
+
+  private static int getDefaultValueOpcode(Type type) {
+    switch (type.getSort()) {
+      case Type.BOOLEAN:
+      case Type.CHAR:
+      case Type.BYTE:
+      case Type.SHORT:
+      case Type.INT:
+        return Opcodes.ICONST_0;
+      case Type.LONG:
+        return Opcodes.LCONST_0;
+      case Type.FLOAT:
+        return Opcodes.FCONST_0;
+      case Type.DOUBLE:
+        return Opcodes.DCONST_0;
+      default:
+        return Opcodes.ACONST_NULL;
+    }
+  }
+
+  @Nullable
+  private static AnnotationNode getAnnotation(MethodNode methodNode, String descriptor) {
+    return getAnnotation(methodNode.visibleAnnotations, descriptor);
+  }
+
+  @Nullable
+  private static AnnotationNode getAnnotation(
+      @Nullable List<AnnotationNode> annotationNodes, String descriptor) {
+    if (annotationNodes == null) {
+      return null;
+    }
+    for (AnnotationNode annotationNode : annotationNodes) {
+      if (descriptor.equals(annotationNode.desc)) {
+        return annotationNode;
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private static Object getValue(AnnotationNode annotationNode, String name) {
+    List<Object> values = annotationNode.values;
+    if (values == null) {
+      return null;
+    }
+    // values contains the names and the values of the set properties alternately
+    for (int i = 0; i < values.size(); i += 2) {
+      if (name.equals(values.get(i))) {
+        return values.get(i + 1);
+      }
+    }
+    return null;
+  }
+
+  private AdviceSwitchTransformer() {}
+}
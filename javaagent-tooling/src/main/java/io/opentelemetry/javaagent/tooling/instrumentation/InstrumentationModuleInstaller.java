@@ -52,6 +52,10 @@ public final class InstrumentationModuleInstaller {
   public static final ElementMatcher.Junction<AnnotationSource> NOT_DECORATOR_MATCHER =
       not(isAnnotatedWith(named("javax.decorator.Decorator")));
 
+  // load the advice classes of indy modules on a background thread after they were applied
+  private static final String INDY_ADVICE_PRELINKING_CONFIG =
+      "otel.javaagent.experimental.indy.advice-prelinking.enabled";
+
   private final Instrumentation instrumentation;
   private final VirtualFieldImplementationInstallerFactory virtualFieldInstallerFactory =
       new VirtualFieldImplementationInstallerFactory();
@@ -73,10 +77,17 @@ public final class InstrumentationModuleInstaller {
       return parentAgentBuilder;
     }
 
+    // id of the module in AdviceSwitches, indy modules are switched through their call sites
+    int adviceSwitchId = -1;
+    if (config.getBoolean(InstrumentationSwitches.ENABLED_CONFIG, false)) {
+      adviceSwitchId = InstrumentationSwitches.instance().register(instrumentationModule);
+    }
+
     if (instrumentationModule.isIndyModule()) {
       return installIndyModule(instrumentationModule, parentAgentBuilder, config);
     } else {
-      return installInjectingModule(instrumentationModule, parentAgentBuilder, config);
+      return installInjectingModule(
+          instrumentationModule, parentAgentBuilder, config, adviceSwitchId);
     }
   }
 
@@ -116,6 +127,7 @@ public final class InstrumentationModuleInstaller {
     }
 
     MuzzleMatcher muzzleMatcher = new MuzzleMatcher(logger, instrumentationModule, config);
+    boolean prelinkAdvice = config.getBoolean(INDY_ADVICE_PRELINKING_CONFIG, false);
 
     Function<ClassLoader, List<HelperClassDefinition>> helperGenerator =
         cl -> {
@@ -160,7 +172,7 @@ public final class InstrumentationModuleInstaller {
       extendableAgentBuilder = extendableAgentBuilder.transform(helperInjector);
       extendableAgentBuilder = contextProvider.injectHelperClasses(extendableAgentBuilder);
       IndyTypeTransformerImpl typeTransformer =
-          new IndyTypeTransformerImpl(extendableAgentBuilder, instrumentationModule);
+          new IndyTypeTransformerImpl(extendableAgentBuilder, instrumentationModule, prelinkAdvice);
       typeInstrumentation.transform(typeTransformer);
       extendableAgentBuilder = typeTransformer.getAgentBuilder();
       // TODO (Jonas): make instrumentation of bytecode older than 1.4 opt-in via a config option
@@ -174,7 +186,8 @@ public final class InstrumentationModuleInstaller {
   private AgentBuilder installInjectingModule(
       InstrumentationModule instrumentationModule,
       AgentBuilder parentAgentBuilder,
-      ConfigProperties config) {
+      ConfigProperties config,
+      int adviceSwitchId) {
     List<String> helperClassNames =
         InstrumentationModuleMuzzle.getHelperClassNames(instrumentationModule);
     HelperResourceBuilderImpl helperResourceBuilder = new HelperResourceBuilderImpl();
@@ -212,7 +225,8 @@ public final class InstrumentationModuleInstaller {
               .transform(helperInjector);
       extendableAgentBuilder = contextProvider.injectHelperClasses(extendableAgentBuilder);
       extendableAgentBuilder = contextProvider.rewriteVirtualFieldsCalls(extendableAgentBuilder);
-      TypeTransformerImpl typeTransformer = new TypeTransformerImpl(extendableAgentBuilder);
+      TypeTransformerImpl typeTransformer =
+          new TypeTransformerImpl(extendableAgentBuilder, adviceSwitchId);
       typeInstrumentation.transform(typeTransformer);
       extendableAgentBuilder = typeTransformer.getAgentBuilder();
       extendableAgentBuilder = contextProvider.injectFields(extendableAgentBuilder);
@@ -0,0 +1,121 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.instrumentation;
+
+import static java.util.logging.Level.INFO;
+
+import io.opentelemetry.javaagent.bootstrap.AdviceSwitches;
+import io.opentelemetry.javaagent.extension.instrumentation.InstrumentationModule;
+import io.opentelemetry.javaagent.tooling.instrumentation.indy.IndyBootstrap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+/**
+ * Switches installed instrumentations off and back on at runtime, without retransforming the
+ * instrumented classes. The advice of inlined instrumentation modules checks a flag in {@link
+ * AdviceSwitches}, the advice call sites of indy modules are relinked by {@link IndyBootstrap}.
+ *
+ * <p>Exit advice that follows an enter advice is never switched off, so that the methods that were
+ * entered before an instrumentation was switched off still end their spans and close their scopes.
+ */
+public final class InstrumentationSwitches implements InstrumentationSwitchesMBean {
+
+  private static final Logger logger = Logger.getLogger(InstrumentationSwitches.class.getName());
+
+  static final String ENABLED_CONFIG =
+      "otel.javaagent.experimental.instrumentation-switches.enabled";
+
+  private static final InstrumentationSwitches INSTANCE = new InstrumentationSwitches();
+
+  // the index of a module is its id in AdviceSwitches
+  private final List<SwitchedModule> modules = new ArrayList<>();
+
+  public static InstrumentationSwitches instance() {
+    return INSTANCE;
+  }
+
+  // visible for testing
+  InstrumentationSwitches() {}
+
+  /** Returns the id of the module in {@link AdviceSwitches}. */
+  synchronized int register(InstrumentationModule module) {
+    int id = modules.size();
+    modules.add(
+        new SwitchedModule(
+            id,
+            module.getClass().getName(),
+            module.instrumentationNames(),
+            module.isIndyModule()));
+    return id;
+  }
+
+  @Override
+  public void enable(String instrumentationName) {
+    setEnabled(instrumentationName, true);
+  }
+
+  @Override
+  public void disable(String instrumentationName) {
+    setEnabled(instrumentationName, false);
+  }
+
+  @Override
+  public synchronized String[] getDisabledInstrumentations() {
+    Set<String> disabled = new TreeSet<>();
+    for (SwitchedModule module : modules) {
+      if (!module.enabled) {
+        disabled.addAll(module.instrumentationNames);
+      }
+    }
+    return disabled.toArray(new String[0]);
+  }
+
+  synchronized void setEnabled(String instrumentationName, boolean enabled) {
+    boolean found = false;
+    for (SwitchedModule module : modules) {
+      if (!module.instrumentationNames.contains(instrumentationName)) {
+        continue;
+      }
+      found = true;
+      if (module.enabled == enabled) {
+        continue;
+      }
+      module.enabled = enabled;
+      if (module.indy) {
+        IndyBootstrap.setAdviceEnabled(module.moduleClassName, enabled);
+      } else {
+        AdviceSwitches.setEnabled(module.id, enabled);
+      }
+    }
+    if (!found) {
+      throw new IllegalArgumentException(
+          "Instrumentation " + instrumentationName + " is not installed");
+    }
+    logger.log(
+        INFO,
+        "Instrumentation {0} has been {1}",
+        new Object[] {instrumentationName, enabled ? "enabled" : "disabled"});
+  }
+
+  private static final class SwitchedModule {
+    private final int id;
+    private final String moduleClassName;
+    private final Set<String> instrumentationNames;
+    private final boolean indy;
+    private boolean enabled = true;
+
+    private SwitchedModule(
+        int id, String moduleClassName, Set<String> instrumentationNames, boolean indy) {
+      this.id = id;
+      this.moduleClassName = moduleClassName;
+      this.instrumentationNames = instrumentationNames;
+      this.indy = indy;
+    }
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.instrumentation;
+
+import static java.util.logging.Level.WARNING;
+
+import com.google.auto.service.AutoService;
+import io.opentelemetry.javaagent.extension.AgentListener;
+import io.opentelemetry.sdk.autoconfigure.AutoConfiguredOpenTelemetrySdk;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import java.lang.management.ManagementFactory;
+import java.util.logging.Logger;
+import javax.management.ObjectName;
+
+/**
+ * An {@link AgentListener} that registers the {@link InstrumentationSwitchesMBean} when switching
+ * instrumentations at runtime is enabled.
+ */
+@AutoService(AgentListener.class)
+public class InstrumentationSwitchesInstaller implements AgentListener {
+
+  private static final Logger logger =
+      Logger.getLogger(InstrumentationSwitchesInstaller.class.getName());
+
+  private static final String OBJECT_NAME =
+      "io.opentelemetry.javaagent:type=InstrumentationSwitches";
+
+  @Override
+  public void afterAgent(AutoConfiguredOpenTelemetrySdk autoConfiguredSdk) {
+    ConfigProperties config = AgentListener.resolveConfigProperties(autoConfiguredSdk);
+    if (!config.getBoolean(InstrumentationSwitches.ENABLED_CONFIG, false)) {
+      return;
+    }
+
+    try {
+      ManagementFactory.getPlatformMBeanServer()
+          .registerMBean(InstrumentationSwitches.instance(), new ObjectName(OBJECT_NAME));
+    } catch (Exception e) {
+      logger.log(WARNING, "Failed to register the instrumentation switches MBean", e);
+    }
+  }
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.instrumentation;
+
+/** Management interface of {@link InstrumentationSwitches}. */
+public interface InstrumentationSwitchesMBean {
+
+  /** Switches the instrumentation with the given name, e.g. {@code jdbc}, back on. */
+  void enable(String instrumentationName);
+
+  /** Switches the instrumentation with the given name, e.g. {@code jdbc}, off. */
+  void disable(String instrumentationName);
+
+  /** Returns the names of the instrumentations that are switched off. */
+  String[] getDisabledInstrumentations();
+}
@@ -21,9 +21,12 @@ import io.opentelemetry.javaagent.tooling.muzzle.ReferenceMatcher;
 import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
 import java.security.ProtectionDomain;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import net.bytebuddy.agent.builder.AgentBuilder;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.utility.JavaModule;
@@ -37,11 +40,17 @@ class MuzzleMatcher implements AgentBuilder.RawMatcher {
 
   private static final Logger muzzleLogger = Logger.getLogger(MuzzleMatcher.class.getName());
 
+  // reuse the result of a class loader that loads the same class files for the referenced classes
+  private static final String FINGERPRINT_MATCHING_CONFIG =
+      "otel.javaagent.experimental.muzzle.fingerprint-matching.enabled";
+
   private final TransformSafeLogger instrumentationLogger;
   private final InstrumentationModule instrumentationModule;
   private final Level muzzleLogLevel;
   private final AtomicBoolean initialized = new AtomicBoolean(false);
   private final Cache<ClassLoader, Boolean> matchCache = Cache.weak();
+  // results keyed by ReferenceMatcher#libraryFingerprint, null if matching by fingerprint is off
+  @Nullable private final ConcurrentMap<String, Boolean> fingerprintMatchCache;
   private volatile ReferenceMatcher referenceMatcher;
 
   MuzzleMatcher(
@@ -51,6 +60,8 @@ class MuzzleMatcher implements AgentBuilder.RawMatcher {
     this.instrumentationLogger = instrumentationLogger;
     this.instrumentationModule = instrumentationModule;
     this.muzzleLogLevel = AgentConfig.isDebugModeEnabled(config) ? WARNING : FINE;
+    this.fingerprintMatchCache =
+        config.getBoolean(FINGERPRINT_MATCHING_CONFIG, false) ? new ConcurrentHashMap<>() : null;
   }
 
   @Override
@@ -79,7 +90,28 @@ class MuzzleMatcher implements AgentBuilder.RawMatcher {
 
   private boolean doesMatch(ClassLoader classLoader) {
     ReferenceMatcher muzzle = getReferenceMatcher();
-    boolean isMatch = muzzle.matches(classLoader);
+    boolean isMatch;
+    String fingerprint = null;
+    Boolean fingerprintMatch = null;
+    // the module class loaders of indy modules are created for every application class loader
+    if (fingerprintMatchCache != null && !instrumentationModule.isIndyModule()) {
+      fingerprint = muzzle.libraryFingerprint(classLoader);
+      if (fingerprint != null) {
+        fingerprintMatch = fingerprintMatchCache.get(fingerprint);
+      }
+    }
+    if (fingerprintMatch != null) {
+      isMatch = fingerprintMatch;
+      muzzleLogger.log(
+          FINE,
+          "Reusing muzzle result of a class loader with the same libraries: {0} on {1}",
+          new Object[] {instrumentationModule.instrumentationName(), classLoader});
+    } else {
+      isMatch = muzzle.matches(classLoader);
+      if (fingerprint != null) {
+        fingerprintMatchCache.put(fingerprint, isMatch);
+      }
+    }
 
     if (!isMatch) {
       MuzzleFailureCounter.inc();
@@ -5,21 +5,28 @@
 
 package io.opentelemetry.javaagent.tooling.instrumentation;
 
+import io.opentelemetry.javaagent.bootstrap.AdviceSwitches;
 import io.opentelemetry.javaagent.extension.instrumentation.TypeTransformer;
 import io.opentelemetry.javaagent.tooling.Utils;
 import io.opentelemetry.javaagent.tooling.bytebuddy.ExceptionHandlers;
 import io.opentelemetry.javaagent.tooling.instrumentation.indy.ForceDynamicallyTypedAssignReturnedFactory;
+import java.io.IOException;
+import javax.annotation.Nullable;
 import net.bytebuddy.agent.builder.AgentBuilder;
 import net.bytebuddy.asm.Advice;
 import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
 import net.bytebuddy.matcher.ElementMatcher;
 
 final class TypeTransformerImpl implements TypeTransformer {
   private AgentBuilder.Identified.Extendable agentBuilder;
   private final Advice.WithCustomMapping adviceMapping;
+  // id of the module in AdviceSwitches, -1 if the module can't be switched off at runtime
+  private final int adviceSwitchId;
 
-  TypeTransformerImpl(AgentBuilder.Identified.Extendable agentBuilder) {
+  TypeTransformerImpl(AgentBuilder.Identified.Extendable agentBuilder, int adviceSwitchId) {
     this.agentBuilder = agentBuilder;
+    this.adviceSwitchId = adviceSwitchId;
     adviceMapping =
         Advice.withCustomMapping()
             .with(
@@ -30,9 +37,15 @@ final class TypeTransformerImpl implements TypeTransformer {
   @Override
   public void applyAdviceToMethod(
       ElementMatcher<? super MethodDescription> methodMatcher, String adviceClassName) {
+    AgentBuilder.Transformer.ForAdvice forAdvice =
+        new AgentBuilder.Transformer.ForAdvice(adviceMapping);
+    if (adviceSwitchId >= 0) {
+      // looked up before the class loaders below
+      forAdvice = forAdvice.include(new AdviceSwitchLocator(adviceClassName, adviceSwitchId));
+    }
     agentBuilder =
         agentBuilder.transform(
-            new AgentBuilder.Transformer.ForAdvice(adviceMapping)
+            forAdvice
                 .include(
                     Utils.getBootstrapProxy(),
                     Utils.getAgentClassLoader(),
@@ -49,4 +62,48 @@ final class TypeTransformerImpl implements TypeTransformer {
   AgentBuilder.Identified.Extendable getAgentBuilder() {
     return agentBuilder;
   }
+
+  /**
+   * Locates the advice class with a check of its {@link AdviceSwitches} flag added. The advice
+   * class is located for every transformed class, it is only rewritten the first time.
+   */
+  private static class AdviceSwitchLocator implements ClassFileLocator {
+    private final String adviceClassName;
+    private final int adviceSwitchId;
+    private final ClassFileLocator delegate;
+    @Nullable private volatile byte[] rewrittenAdvice;
+
+    AdviceSwitchLocator(String adviceClassName, int adviceSwitchId) {
+      this.adviceClassName = adviceClassName;
+      this.adviceSwitchId = adviceSwitchId;
+      this.delegate =
+          new ClassFileLocator.Compound(
+              ClassFileLocator.ForClassLoader.of(Utils.getBootstrapProxy()),
+              ClassFileLocator.ForClassLoader.of(Utils.getAgentClassLoader()),
+              ClassFileLocator.ForClassLoader.of(Utils.getExtensionsClassLoader()));
+    }
+
+    @Override
+    public Resolution locate(String name) throws IOException {
+      if (!adviceClassName.equals(name)) {
+        return new Resolution.Illegal(name);
+      }
+      byte[] bytes = rewrittenAdvice;
+      if (bytes == null) {
+        Resolution resolution = delegate.locate(name);
+        if (!resolution.isResolved()) {
+          return resolution;
+        }
+        // racing threads rewrite the same bytes
+        bytes = AdviceSwitchTransformer.transform(resolution.resolve(), adviceSwitchId);
+        rewrittenAdvice = bytes;
+      }
+      return new Resolution.Explicit(bytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+  }
 }
@@ -0,0 +1,199 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.instrumentation.indy;
+
+import io.opentelemetry.javaagent.bootstrap.IndyBootstrapDispatcher;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Keeps track of the call sites that invoke the advice of the indy instrumentation modules, so that
+ * the advice of a module can be switched off and on again without retransforming the instrumented
+ * classes.
+ *
+ * <p>While a module is disabled its call sites target a method handle that does nothing and returns
+ * the default value of the advice return type, the same handle that is used for nested
+ * bootstrapping attempts. Enter and exit advice of the same advice class are switched together,
+ * when the method is entered: while the module is disabled the enter advice returns a marker value
+ * instead of running, and the exit call site, which is never switched itself, skips the exit advice
+ * when it gets the marker as enter value. This way the exit advice runs exactly when the enter
+ * advice ran, no matter whether the module was switched while the method ran.
+ */
+final class AdviceCallSites {
+
+  private static final ConcurrentHashMap<String, ModuleCallSites> callSitesByModule =
+      new ConcurrentHashMap<>();
+
+  /**
+   * We have to eagerly initialize to not cause a lambda construction while bootstrapping an advice.
+   */
+  private static final Function<String, ModuleCallSites> CONSTRUCTOR =
+      unused -> new ModuleCallSites();
+
+  // the enter values that a disabled enter advice returns, for the two enter value types that can
+  // carry them
+  private static final Object SKIPPED = new Object();
+  private static final Object[] SKIPPED_ARRAY = new Object[0];
+
+  private static final MethodHandle IS_SKIPPED;
+
+  static {
+    try {
+      IS_SKIPPED =
+          MethodHandles.lookup()
+              .findStatic(
+                  AdviceCallSites.class,
+                  "isSkipped",
+                  MethodType.methodType(boolean.class, Object.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private AdviceCallSites() {}
+
+  static void initialize() {
+    // Eager initialize everything because we could run into recursions doing this during advice
+    // bootstrapping
+    try {
+      Class.forName(AdviceCallSite.class.getName());
+      Class.forName(ModuleCallSites.class.getName());
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Points the call site to the given advice, or to a noop method handle if the advice is {@code
+   * switchable} and the module is currently disabled.
+   */
+  static void link(
+      String moduleClassName, AdviceCallSite callSite, MethodHandle advice, boolean switchable) {
+    if (switchable) {
+      callSitesByModule.computeIfAbsent(moduleClassName, CONSTRUCTOR).link(callSite, advice);
+    } else {
+      callSite.setTarget(advice);
+    }
+  }
+
+  /**
+   * Returns a method handle of the given type that returns the marker value of a disabled enter
+   * advice. The return type must be {@code Object} or {@code Object[]}.
+   */
+  static MethodHandle returnSkipped(MethodType type) {
+    Class<?> enterValueType = type.returnType();
+    Object skipped = enterValueType == Object[].class ? SKIPPED_ARRAY : SKIPPED;
+    return MethodHandles.dropArguments(
+        MethodHandles.constant(enterValueType, skipped), 0, type.parameterList());
+  }
+
+  /**
+   * Returns a method handle that invokes the exit advice, unless the argument at {@code
+   * enterValueIndex} is the marker value of a disabled enter advice.
+   */
+  static MethodHandle skipIfSkipped(MethodHandle exitAdvice, int enterValueIndex) {
+    MethodType type = exitAdvice.type();
+    MethodHandle test =
+        MethodHandles.dropArguments(
+            IS_SKIPPED.asType(
+                MethodType.methodType(boolean.class, type.parameterType(enterValueIndex))),
+            0,
+            type.parameterList().subList(0, enterValueIndex));
+    return MethodHandles.guardWithTest(
+        test, IndyBootstrapDispatcher.generateNoopMethodHandle(type), exitAdvice);
+  }
+
+  private static boolean isSkipped(Object enterValue) {
+    return enterValue == SKIPPED || enterValue == SKIPPED_ARRAY;
+  }
+
+  static void setEnabled(String moduleClassName, boolean enabled) {
+    callSitesByModule.computeIfAbsent(moduleClassName, CONSTRUCTOR).setEnabled(enabled);
+  }
+
+  static boolean isEnabled(String moduleClassName) {
+    ModuleCallSites callSites = callSitesByModule.get(moduleClassName);
+    return callSites == null || callSites.isEnabled();
+  }
+
+  /** A call site that invokes an advice method, or does nothing until it is linked. */
+  static final class AdviceCallSite extends MutableCallSite {
+
+    private final MethodHandle noop;
+    // guarded by the ModuleCallSites that the call site is linked in
+    private MethodHandle advice;
+
+    AdviceCallSite(MethodType type) {
+      this(IndyBootstrapDispatcher.generateNoopMethodHandle(type));
+    }
+
+    /** Creates a call site that does nothing with the given handle until it is linked. */
+    AdviceCallSite(MethodHandle noop) {
+      super(noop);
+      this.noop = noop;
+      this.advice = noop;
+    }
+  }
+
+  private static final class ModuleCallSites {
+
+    private static final int MIN_EXPUNGE_THRESHOLD = 64;
+
+    // weak references, the call sites must not keep the instrumented classes alive
+    private final List<WeakReference<AdviceCallSite>> callSites = new ArrayList<>();
+    private int expungeThreshold = MIN_EXPUNGE_THRESHOLD;
+    private boolean enabled = true;
+
+    synchronized void link(AdviceCallSite callSite, MethodHandle advice) {
+      callSite.advice = advice;
+      callSite.setTarget(enabled ? advice : callSite.noop);
+
+      if (callSites.size() >= expungeThreshold) {
+        for (Iterator<WeakReference<AdviceCallSite>> i = callSites.iterator(); i.hasNext(); ) {
+          if (i.next().get() == null) {
+            i.remove();
+          }
+        }
+        expungeThreshold = Math.max(MIN_EXPUNGE_THRESHOLD, callSites.size() * 2);
+      }
+      callSites.add(new WeakReference<>(callSite));
+    }
+
+    synchronized boolean isEnabled() {
+      return enabled;
+    }
+
+    synchronized void setEnabled(boolean enabled) {
+      if (this.enabled == enabled) {
+        return;
+      }
+      this.enabled = enabled;
+
+      List<MutableCallSite> changed = new ArrayList<>(callSites.size());
+      for (Iterator<WeakReference<AdviceCallSite>> i = callSites.iterator(); i.hasNext(); ) {
+        AdviceCallSite callSite = i.next().get();
+        if (callSite == null) {
+          i.remove();
+          continue;
+        }
+        callSite.setTarget(enabled ? callSite.advice : callSite.noop);
+        changed.add(callSite);
+      }
+      if (!changed.isEmpty()) {
+        // make sure that threads already running the instrumented code see the new target
+        MutableCallSite.syncAll(changed.toArray(new MutableCallSite[0]));
+      }
+    }
+  }
+}
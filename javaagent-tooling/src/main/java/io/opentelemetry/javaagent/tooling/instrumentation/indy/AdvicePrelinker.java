@@ -0,0 +1,74 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.instrumentation.indy;
+
+import static java.util.logging.Level.FINE;
+
+import io.opentelemetry.instrumentation.api.internal.cache.Cache;
+import io.opentelemetry.javaagent.extension.instrumentation.InstrumentationModule;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Loads advice classes into their {@link InstrumentationModuleClassLoader} on a background thread
+ * right after they were applied to a class, so that linking the advice {@code INVOKEDYNAMIC}
+ * instruction on its first invocation, which usually happens on an application thread, only has to
+ * look up the already loaded advice method.
+ */
+final class AdvicePrelinker {
+
+  private static final Logger logger = Logger.getLogger(AdvicePrelinker.class.getName());
+
+  // advice classes that were already scheduled, per instrumented class loader
+  private static final Cache<ClassLoader, Set<String>> scheduledAdvice = Cache.weak();
+
+  private static final ThreadPoolExecutor executor =
+      new ThreadPoolExecutor(
+          0,
+          1,
+          1,
+          TimeUnit.MINUTES,
+          new LinkedBlockingQueue<>(),
+          runnable -> {
+            Thread thread = new Thread(runnable, "otel-javaagent-advice-prelinker");
+            thread.setDaemon(true);
+            thread.setContextClassLoader(null);
+            return thread;
+          });
+
+  private AdvicePrelinker() {}
+
+  static void prelink(
+      InstrumentationModule module, ClassLoader instrumentedClassLoader, String adviceClassName) {
+    // classes loaded by the boot loader are mostly instrumented while the agent starts
+    if (instrumentedClassLoader == null
+        || !scheduledAdvice
+            .computeIfAbsent(instrumentedClassLoader, unused -> ConcurrentHashMap.newKeySet())
+            .add(adviceClassName)) {
+      return;
+    }
+    executor.execute(() -> loadAdvice(module, instrumentedClassLoader, adviceClassName));
+  }
+
+  private static void loadAdvice(
+      InstrumentationModule module, ClassLoader instrumentedClassLoader, String adviceClassName) {
+    try {
+      InstrumentationModuleClassLoader instrumentationClassLoader =
+          IndyModuleRegistry.getInstrumentationClassLoader(module, instrumentedClassLoader);
+      // don't initialize the advice class, its static initializer should run on first use as usual
+      Class.forName(adviceClassName, false, instrumentationClassLoader);
+    } catch (Throwable t) {
+      // the advice is loaded again when the call site is linked, which reports the error
+      if (logger.isLoggable(FINE)) {
+        logger.log(FINE, "Failed to prelink advice " + adviceClassName, t);
+      }
+    }
+  }
+}
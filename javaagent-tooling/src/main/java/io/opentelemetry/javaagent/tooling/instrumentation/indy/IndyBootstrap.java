@@ -5,8 +5,11 @@
 
 package io.opentelemetry.javaagent.tooling.instrumentation.indy;
 
+import static net.bytebuddy.matcher.ElementMatchers.isAnnotatedWith;
+
 import io.opentelemetry.javaagent.bootstrap.IndyBootstrapDispatcher;
 import io.opentelemetry.javaagent.extension.instrumentation.InstrumentationModule;
+import java.lang.annotation.Annotation;
 import java.lang.invoke.CallSite;
 import java.lang.invoke.ConstantCallSite;
 import java.lang.invoke.MethodHandle;
@@ -22,6 +25,9 @@ import javax.annotation.Nullable;
 import net.bytebuddy.asm.Advice;
 import net.bytebuddy.description.annotation.AnnotationDescription;
 import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.method.MethodList;
+import net.bytebuddy.description.method.ParameterDescription;
+import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.utility.JavaConstant;
 
 /**
@@ -68,6 +74,15 @@ public class IndyBootstrap {
   private static final String BOOTSTRAP_KIND_ADVICE = "advice";
   private static final String BOOTSTRAP_KIND_PROXY = "proxy";
 
+  private static final String ASSIGN_RETURNED_PREFIX =
+      Advice.AssignReturned.class.getName() + "$";
+
+  // how the call site of an advice method is switched off, see getSwitchMode
+  static final String SWITCH_NEVER = "never";
+  static final String SWITCH_ALWAYS = "always";
+  static final String SWITCH_ENTER = "enter";
+  static final String SWITCH_EXIT_PREFIX = "exit:";
+
   private static final String PROXY_KIND_STATIC = "static";
   private static final String PROXY_KIND_CONSTRUCTOR = "constructor";
   private static final String PROXY_KIND_VIRTUAL = "virtual";
@@ -94,6 +109,7 @@ public class IndyBootstrap {
           MethodHandles.lookup().findStatic(IndyBootstrap.class, "bootstrap", bootstrapMethodType));
 
       AdviceBootstrapState.initialize();
+      AdviceCallSites.initialize();
     } catch (Exception e) {
       throw new IllegalStateException(e);
     }
@@ -105,6 +121,23 @@ public class IndyBootstrap {
     return indyBootstrapMethod;
   }
 
+  /**
+   * Switches the advice of an indy instrumentation module off or back on, without retransforming
+   * the instrumented classes. The advice call sites that were already linked are updated, and the
+   * ones linked later on start out in the given state.
+   *
+   * @param moduleClassName the class name of the {@link InstrumentationModule}
+   * @param enabled whether the advice of the module should run
+   */
+  public static void setAdviceEnabled(String moduleClassName, boolean enabled) {
+    AdviceCallSites.setEnabled(moduleClassName, enabled);
+  }
+
+  /** Returns whether the advice of the given indy instrumentation module is enabled. */
+  public static boolean isAdviceEnabled(String moduleClassName) {
+    return AdviceCallSites.isEnabled(moduleClassName);
+  }
+
   @Nullable
   @SuppressWarnings({"unused", "removal"}) // SecurityManager and AccessController are deprecated
   private static CallSite bootstrap(
@@ -140,7 +173,8 @@ public class IndyBootstrap {
               adviceMethodType,
               (String) args[1],
               (String) args[2],
-              (String) args[3]);
+              (String) args[3],
+              (String) args[4]);
         case BOOTSTRAP_KIND_PROXY:
           // See getProxyFactory for the argument definitions
           return bootstrapProxyMethod(
@@ -165,7 +199,8 @@ public class IndyBootstrap {
       MethodType invokedynamicMethodType,
       String moduleClassName,
       String adviceMethodDescriptor,
-      String adviceClassName)
+      String adviceClassName,
+      String switchMode)
       throws NoSuchMethodException, IllegalAccessException, ClassNotFoundException {
     try (AdviceBootstrapState nestedState =
         AdviceBootstrapState.enter(
@@ -180,9 +215,7 @@ public class IndyBootstrap {
         // for example, adding correlation ids to the thread context when executing logger.debug.
         MutableCallSite mutableCallSite = nestedState.getMutableCallSite();
         if (mutableCallSite == null) {
-          mutableCallSite =
-              new MutableCallSite(
-                  IndyBootstrapDispatcher.generateNoopMethodHandle(invokedynamicMethodType));
+          mutableCallSite = newCallSite(invokedynamicMethodType, switchMode);
           nestedState.initMutableCallSite(mutableCallSite);
         }
         return mutableCallSite;
@@ -203,6 +236,13 @@ public class IndyBootstrap {
               .getLookup()
               .findStatic(adviceClass, adviceMethodName, actualAdviceMethodType)
               .asType(invokedynamicMethodType);
+      boolean switchable = switchMode.equals(SWITCH_ALWAYS) || switchMode.equals(SWITCH_ENTER);
+      if (switchMode.startsWith(SWITCH_EXIT_PREFIX)) {
+        // the exit advice call site itself is never switched, it follows its enter advice
+        int enterValueIndex =
+            Integer.parseInt(switchMode.substring(SWITCH_EXIT_PREFIX.length()));
+        methodHandle = AdviceCallSites.skipIfSkipped(methodHandle, enterValueIndex);
+      }
 
       MutableCallSite nestedBootstrapCallSite = nestedState.getMutableCallSite();
       if (nestedBootstrapCallSite != null) {
@@ -212,25 +252,129 @@ public class IndyBootstrap {
             Level.FINE,
             "Fixing nested instrumentation invokedynamic instruction bootstrapping for instrumented class {0} and advice {1}.{2}, the instrumentation should be active now",
             new Object[] {lookup.lookupClass().getName(), adviceClassName, adviceMethodName});
-        nestedBootstrapCallSite.setTarget(methodHandle);
-        MutableCallSite.syncAll(new MutableCallSite[] {nestedBootstrapCallSite});
-        return nestedBootstrapCallSite;
+        AdviceCallSites.AdviceCallSite callSite =
+            (AdviceCallSites.AdviceCallSite) nestedBootstrapCallSite;
+        AdviceCallSites.link(moduleClassName, callSite, methodHandle, switchable);
+        MutableCallSite.syncAll(new MutableCallSite[] {callSite});
+        return callSite;
       } else {
-        return new ConstantCallSite(methodHandle);
+        // a mutable call site allows switching the advice off and on without retransformation
+        AdviceCallSites.AdviceCallSite callSite =
+            newCallSite(invokedynamicMethodType, switchMode);
+        AdviceCallSites.link(moduleClassName, callSite, methodHandle, switchable);
+        return callSite;
       }
     }
   }
 
+  private static AdviceCallSites.AdviceCallSite newCallSite(MethodType type, String switchMode) {
+    // a disabled enter advice returns a marker instead of the default value, which makes its exit
+    // advice skip
+    return switchMode.equals(SWITCH_ENTER)
+        ? new AdviceCallSites.AdviceCallSite(AdviceCallSites.returnSkipped(type))
+        : new AdviceCallSites.AdviceCallSite(type);
+  }
+
   static Advice.BootstrapArgumentResolver.Factory getAdviceBootstrapArguments(
       InstrumentationModule instrumentationModule) {
     String moduleName = instrumentationModule.getClass().getName();
-    return (adviceMethod, exit) ->
-        (instrumentedType, instrumentedMethod) ->
-            Arrays.asList(
-                JavaConstant.Simple.ofLoaded(BOOTSTRAP_KIND_ADVICE),
-                JavaConstant.Simple.ofLoaded(moduleName),
-                JavaConstant.Simple.ofLoaded(getOriginalSignature(adviceMethod)),
-                JavaConstant.Simple.ofLoaded(adviceMethod.getDeclaringType().getName()));
+    return (adviceMethod, exit) -> {
+      String switchMode = getSwitchMode(adviceMethod, exit);
+      return (instrumentedType, instrumentedMethod) ->
+          Arrays.asList(
+              JavaConstant.Simple.ofLoaded(BOOTSTRAP_KIND_ADVICE),
+              JavaConstant.Simple.ofLoaded(moduleName),
+              JavaConstant.Simple.ofLoaded(getOriginalSignature(adviceMethod)),
+              JavaConstant.Simple.ofLoaded(adviceMethod.getDeclaringType().getName()),
+              JavaConstant.Simple.ofLoaded(switchMode));
+    };
+  }
+
+  /**
+   * Returns how the call site of the advice method is switched off. The rule is the same as the one
+   * that AdviceSwitchTransformer applies to inlined advice: a method is only switched when it is
+   * entered, and exit advice that pairs with enter advice runs exactly when the enter advice ran.
+   * The indy advice carries that decision to the exit advice in the enter value, which only works
+   * for enter values of type {@code Object} or {@code Object[]} that the exit advice takes as its
+   * {@link Advice.Enter} parameter, other pairs are never switched off.
+   */
+  static String getSwitchMode(MethodDescription.InDefinedShape adviceMethod, boolean exit) {
+    TypeDescription adviceType = adviceMethod.getDeclaringType();
+    MethodDescription.InDefinedShape enterAdvice =
+        exit ? findAdviceMethod(adviceType, Advice.OnMethodEnter.class) : adviceMethod;
+    MethodDescription.InDefinedShape exitAdvice =
+        exit ? adviceMethod : findAdviceMethod(adviceType, Advice.OnMethodExit.class);
+    if (enterAdvice == null || exitAdvice == null) {
+      return isSwitchable(adviceMethod, exit) ? SWITCH_ALWAYS : SWITCH_NEVER;
+    }
+
+    int enterValueIndex = getEnterValueIndex(exitAdvice);
+    if (enterValueIndex < 0
+        || !isSwitchable(enterAdvice, /* exit= */ false)
+        || !isSwitchable(exitAdvice, /* exit= */ true)) {
+      return SWITCH_NEVER;
+    }
+    TypeDescription enterValueType = enterAdvice.getReturnType().asErasure();
+    boolean canReturnSkipped =
+        (enterValueType.represents(Object.class) || enterValueType.represents(Object[].class))
+            && exitAdvice
+                .getParameters()
+                .get(enterValueIndex)
+                .getType()
+                .asErasure()
+                .equals(enterValueType);
+    if (!canReturnSkipped) {
+      return SWITCH_NEVER;
+    }
+    return exit ? SWITCH_EXIT_PREFIX + enterValueIndex : SWITCH_ENTER;
+  }
+
+  private static boolean isSwitchable(MethodDescription.InDefinedShape adviceMethod, boolean exit) {
+    for (AnnotationDescription annotation : adviceMethod.getDeclaredAnnotations()) {
+      // a noop would assign the default value to the arguments or the return value
+      if (annotation.getAnnotationType().getName().startsWith(ASSIGN_RETURNED_PREFIX)) {
+        return false;
+      }
+    }
+    if (!exit) {
+      // a noop would skip the instrumented method
+      return !reactsToDefaultValue(
+          adviceMethod.getDeclaredAnnotations().ofType(Advice.OnMethodEnter.class),
+          "skipOn",
+          "skipOnIndex");
+    }
+    // a noop would repeat the instrumented method
+    return !reactsToDefaultValue(
+        adviceMethod.getDeclaredAnnotations().ofType(Advice.OnMethodExit.class),
+        "repeatOn",
+        "repeatOnIndex");
+  }
+
+  private static boolean reactsToDefaultValue(
+      @Nullable AnnotationDescription annotation, String typeProperty, String indexProperty) {
+    if (annotation == null) {
+      return false;
+    }
+    TypeDescription type = annotation.getValue(typeProperty).resolve(TypeDescription.class);
+    int index = annotation.getValue(indexProperty).resolve(Integer.class);
+    return type.represents(Advice.OnDefaultValue.class) || index >= 0;
+  }
+
+  @Nullable
+  private static MethodDescription.InDefinedShape findAdviceMethod(
+      TypeDescription adviceType, Class<? extends Annotation> annotationType) {
+    MethodList<MethodDescription.InDefinedShape> methods =
+        adviceType.getDeclaredMethods().filter(isAnnotatedWith(annotationType));
+    return methods.isEmpty() ? null : methods.getOnly();
+  }
+
+  private static int getEnterValueIndex(MethodDescription.InDefinedShape exitAdvice) {
+    for (ParameterDescription.InDefinedShape parameter : exitAdvice.getParameters()) {
+      if (parameter.getDeclaredAnnotations().isAnnotationPresent(Advice.Enter.class)) {
+        return parameter.getIndex();
+      }
+    }
+    return -1;
   }
 
   private static String getOriginalSignature(MethodDescription.InDefinedShape adviceMethod) {
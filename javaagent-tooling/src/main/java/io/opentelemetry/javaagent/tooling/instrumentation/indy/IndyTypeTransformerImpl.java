@@ -23,11 +23,24 @@ public final class IndyTypeTransformerImpl implements TypeTransformer {
   private final Advice.WithCustomMapping adviceMapping;
   private AgentBuilder.Identified.Extendable agentBuilder;
   private final InstrumentationModule instrumentationModule;
+  private final boolean prelinkAdvice;
 
   public IndyTypeTransformerImpl(
       AgentBuilder.Identified.Extendable agentBuilder, InstrumentationModule module) {
+    this(agentBuilder, module, false);
+  }
+
+  /**
+   * @param prelinkAdvice whether to load the advice classes on a background thread after they were
+   *     applied, instead of when the advice is first invoked
+   */
+  public IndyTypeTransformerImpl(
+      AgentBuilder.Identified.Extendable agentBuilder,
+      InstrumentationModule module,
+      boolean prelinkAdvice) {
     this.agentBuilder = agentBuilder;
     this.instrumentationModule = module;
+    this.prelinkAdvice = prelinkAdvice;
     this.adviceMapping =
         Advice.withCustomMapping()
             .with(
@@ -47,6 +60,14 @@ public final class IndyTypeTransformerImpl implements TypeTransformer {
                 .advice(methodMatcher, adviceClassName)
                 .include(getAdviceLocator(instrumentationModule.getClass().getClassLoader()))
                 .withExceptionHandler(ExceptionHandlers.defaultExceptionHandler()));
+    if (prelinkAdvice) {
+      agentBuilder =
+          agentBuilder.transform(
+              (builder, typeDescription, classLoader, javaModule, protectionDomain) -> {
+                AdvicePrelinker.prelink(instrumentationModule, classLoader, adviceClassName);
+                return builder;
+              });
+    }
   }
 
   private static ClassFileLocator getAdviceLocator(ClassLoader classLoader) {
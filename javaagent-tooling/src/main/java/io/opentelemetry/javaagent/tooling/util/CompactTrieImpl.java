@@ -0,0 +1,155 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * A {@link Trie} that is packed into a few flat arrays instead of one object per char.
+ *
+ * <p>Chains of nodes that have a single child and no value are merged into one edge labeled with
+ * all of their chars (a radix tree). Nodes are numbered in breadth-first order and the edges of a
+ * node are stored next to each other, sorted by their first char, so that a lookup does a binary
+ * search over the first chars of a contiguous array range and then compares the rest of the label
+ * with a plain loop.
+ */
+final class CompactTrieImpl<V> implements Trie<V> {
+
+  // the edges of node n are [firstEdge[n], firstEdge[n + 1])
+  private final int[] firstEdge;
+  private final Object[] values;
+  // the label of edge e is labels[labelStart[e], labelStart[e + 1])
+  private final char[] edgeFirstChars;
+  private final int[] labelStart;
+  private final char[] labels;
+  private final int[] edgeTargets;
+
+  private CompactTrieImpl(
+      int[] firstEdge,
+      Object[] values,
+      char[] edgeFirstChars,
+      int[] labelStart,
+      char[] labels,
+      int[] edgeTargets) {
+    this.firstEdge = firstEdge;
+    this.values = values;
+    this.edgeFirstChars = edgeFirstChars;
+    this.labelStart = labelStart;
+    this.labels = labels;
+    this.edgeTargets = edgeTargets;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V getOrDefault(CharSequence str, V defaultValue) {
+    int length = str.length();
+    int node = 0;
+    V lastMatchedValue = defaultValue;
+
+    int i = 0;
+    while (i < length) {
+      int edge =
+          Arrays.binarySearch(edgeFirstChars, firstEdge[node], firstEdge[node + 1], str.charAt(i));
+      if (edge < 0) {
+        return lastMatchedValue;
+      }
+      int start = labelStart[edge];
+      int end = labelStart[edge + 1];
+      if (end - start > length - i) {
+        // the nodes inside of an edge don't have values
+        return lastMatchedValue;
+      }
+      for (int j = start + 1; j < end; j++) {
+        if (labels[j] != str.charAt(i + j - start)) {
+          return lastMatchedValue;
+        }
+      }
+      i += end - start;
+      node = edgeTargets[edge];
+      // next node matched, use its value if it's defined
+      Object value = values[node];
+      lastMatchedValue = value != null ? (V) value : lastMatchedValue;
+    }
+
+    return lastMatchedValue;
+  }
+
+  static <V> Trie<V> create(TrieImpl.NodeBuilder<V> root) {
+    List<Object> values = new ArrayList<>();
+    IntList firstEdge = new IntList();
+    IntList labelStart = new IntList();
+    IntList edgeTargets = new IntList();
+    StringBuilder labels = new StringBuilder();
+
+    Queue<TrieImpl.NodeBuilder<V>> queue = new ArrayDeque<>();
+    queue.add(root);
+    values.add(root.value);
+    while (!queue.isEmpty()) {
+      TrieImpl.NodeBuilder<V> node = queue.remove();
+      firstEdge.add(labelStart.size());
+      List<Map.Entry<Character, TrieImpl.NodeBuilder<V>>> children =
+          new ArrayList<>(node.children.entrySet());
+      children.sort(Map.Entry.comparingByKey());
+      for (Map.Entry<Character, TrieImpl.NodeBuilder<V>> entry : children) {
+        labelStart.add(labels.length());
+        labels.append(entry.getKey().charValue());
+        TrieImpl.NodeBuilder<V> target = entry.getValue();
+        // merge the chain of nodes that have no value and a single child into this edge
+        while (target.value == null && target.children.size() == 1) {
+          Map.Entry<Character, TrieImpl.NodeBuilder<V>> next =
+              target.children.entrySet().iterator().next();
+          labels.append(next.getKey().charValue());
+          target = next.getValue();
+        }
+        // nodes are numbered in the order in which they are visited
+        edgeTargets.add(values.size());
+        values.add(target.value);
+        queue.add(target);
+      }
+    }
+    firstEdge.add(labelStart.size());
+    labelStart.add(labels.length());
+
+    int[] labelStartArray = labelStart.toArray();
+    char[] labelsArray = labels.toString().toCharArray();
+    char[] edgeFirstChars = new char[edgeTargets.size()];
+    for (int i = 0; i < edgeFirstChars.length; i++) {
+      edgeFirstChars[i] = labelsArray[labelStartArray[i]];
+    }
+    return new CompactTrieImpl<>(
+        firstEdge.toArray(),
+        values.toArray(),
+        edgeFirstChars,
+        labelStartArray,
+        labelsArray,
+        edgeTargets.toArray());
+  }
+
+  private static final class IntList {
+    private int[] elements = new int[16];
+    private int size;
+
+    void add(int element) {
+      if (size == elements.length) {
+        elements = Arrays.copyOf(elements, size * 2);
+      }
+      elements[size++] = element;
+    }
+
+    int size() {
+      return size;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(elements, size);
+    }
+  }
+}
@@ -13,7 +13,16 @@ public interface Trie<V> {
 
   /** Start building a trie. */
   static <V> Builder<V> builder() {
-    return new TrieImpl.BuilderImpl<>();
+    return new TrieImpl.BuilderImpl<>(false);
+  }
+
+  /**
+   * Start building a trie that is packed into flat arrays. It takes longer to build and is faster
+   * to query than the trie returned by {@link #builder()}, which makes it a better fit for tries
+   * with many entries that are queried for every loaded class.
+   */
+  static <V> Builder<V> compactBuilder() {
+    return new TrieImpl.BuilderImpl<>(true);
   }
 
   /**
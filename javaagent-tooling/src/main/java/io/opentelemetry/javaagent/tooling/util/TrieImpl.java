@@ -63,6 +63,11 @@ final class TrieImpl<V> implements Trie<V> {
   static final class BuilderImpl<V> implements Builder<V> {
 
     private final NodeBuilder<V> root = new NodeBuilder<>();
+    private final boolean compact;
+
+    BuilderImpl(boolean compact) {
+      this.compact = compact;
+    }
 
     @Override
     @CanIgnoreReturnValue
@@ -83,7 +88,7 @@ final class TrieImpl<V> implements Trie<V> {
 
     @Override
     public Trie<V> build() {
-      return new TrieImpl<>(root.build());
+      return compact ? CompactTrieImpl.create(root) : new TrieImpl<>(root.build());
     }
   }
 
@@ -10,13 +10,18 @@ import static java.util.logging.Level.FINE;
 import io.opentelemetry.javaagent.extension.matcher.internal.DelegatingMatcher;
 import io.opentelemetry.javaagent.extension.matcher.internal.DelegatingSuperTypeMatcher;
 import io.opentelemetry.javaagent.tooling.DefineClassHandler;
+import io.opentelemetry.javaagent.tooling.util.Trie;
 import java.lang.reflect.Field;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
@@ -49,6 +54,8 @@ public class AgentBuilderUtil {
   private static final Field erasureMatcherField = getField(ErasureMatcher.class, "matcher");
   private static final Field conjunctionMatchersField =
       getField(ElementMatcher.Junction.Conjunction.class, "matchers");
+  private static final Field disjunctionMatchersField =
+      getField(ElementMatcher.Junction.Disjunction.class, "matchers");
   private static final Field stringMatcherValueField = getField(StringMatcher.class, "value");
   private static final Field stringMatcherModeField = getField(StringMatcher.class, "mode");
   private static final Field stringSetMatcherValuesField =
@@ -72,25 +79,9 @@ public class AgentBuilderUtil {
   }
 
   private static void optimize(AgentBuilder.Default agentBuilder) throws Exception {
-    // class names that have a matcher that matches by name
-    Set<String> classNames = new HashSet<>();
-    // class names that have a matcher that matches subtypes
-    Set<String> superTypeNames = new HashSet<>();
-    List<Transformation> unoptimizedTransformations = new ArrayList<>();
     List<Transformation> transformations = agentBuilder.transformations;
-    for (Transformation transformation : transformations) {
-      AgentBuilder.RawMatcher matcher = transformation.getMatcher();
-      // attempt to decompose the matcher and find if it applies to a named class or a subclass
-      Result result = inspect(matcher);
-      if (result == null) {
-        // we were not able to decompose the matcher
-        unoptimizedTransformations.add(transformation);
-      } else if (result.subtype) {
-        superTypeNames.addAll(result.names);
-      } else {
-        classNames.addAll(result.names);
-      }
-    }
+    TransformationIndex<Transformation> index =
+        createIndex(transformations, Transformation::getMatcher);
 
     List<?> list =
         (List<?>)
@@ -101,13 +92,9 @@ public class AgentBuilderUtil {
                   String name = TransformContext.getTransformedClassName();
                   // iterator() is the only method we expect to be called on this List
                   if (name != null && "iterator".equals(method.getName())) {
-                    // we know that this class is going to be transformed
-                    if (classNames.contains(name) || superTypeNames.contains(name)) {
-                      return transformations.iterator();
-                    }
                     // we already know that loading this class is going to fail, no need to
-                    // transform it
-                    if (DefineClassHandler.isFailedClass(name)) {
+                    // transform it unless we know that it is going to be transformed
+                    if (DefineClassHandler.isFailedClass(name) && !index.matchesName(name)) {
                       return Collections.emptyIterator();
                     }
                     Set<String> loadingSuperTypes = DefineClassHandler.getSuperTypes();
@@ -116,15 +103,9 @@ public class AgentBuilderUtil {
                     if (loadingSuperTypes.isEmpty()) {
                       return transformations.iterator();
                     }
-                    for (String className : loadingSuperTypes) {
-                      // we know that this class is going to be transformed
-                      if (superTypeNames.contains(className)) {
-                        return transformations.iterator();
-                      }
-                    }
-
-                    // apply only the transformations that we can't decompose
-                    return unoptimizedTransformations.iterator();
+                    // apply only the transformations that we can't decompose and those whose
+                    // name or super type constraint matches
+                    return index.select(name, loadingSuperTypes).iterator();
                   }
 
                   return method.invoke(transformations, args);
@@ -133,6 +114,25 @@ public class AgentBuilderUtil {
     agentBuilderTransformationsField.set(agentBuilder, list);
   }
 
+  // visible for testing
+  static <T> TransformationIndex<T> createIndex(
+      List<T> transformations, Function<T, AgentBuilder.RawMatcher> matcherGetter)
+      throws Exception {
+    TransformationIndex.Builder<T> indexBuilder =
+        new TransformationIndex.Builder<>(transformations);
+    for (int i = 0; i < transformations.size(); i++) {
+      // attempt to decompose the matcher and find if it applies to a named class or a subclass
+      Result result = inspect(matcherGetter.apply(transformations.get(i)));
+      if (result == null) {
+        // we were not able to decompose the matcher
+        indexBuilder.addUnoptimized(i);
+      } else {
+        indexBuilder.add(i, result);
+      }
+    }
+    return indexBuilder.build();
+  }
+
   @Nullable
   private static Result inspect(AgentBuilder.RawMatcher matcher) throws Exception {
     if (matcher instanceof AgentBuilder.RawMatcher.Conjunction) {
@@ -179,6 +179,18 @@ public class AgentBuilderUtil {
           return result;
         }
       }
+    } else if (matcher instanceof ElementMatcher.Junction.Disjunction) {
+      // a disjunction can only be decomposed when all of its elements can be
+      Result result = new Result();
+      for (ElementMatcher<?> elementMatcher :
+          getDelegateMatchers((ElementMatcher.Junction.Disjunction<?>) matcher)) {
+        Result elementResult = inspect(elementMatcher);
+        if (elementResult == null) {
+          return null;
+        }
+        result.addAll(elementResult);
+      }
+      return result.isEmpty() ? null : result;
     }
 
     return null;
@@ -188,8 +200,14 @@ public class AgentBuilderUtil {
   private static Result inspectNameMatcher(NameMatcher<?> nameMatcher) throws Exception {
     ElementMatcher<?> matcher = getDelegateMatcher(nameMatcher);
     if (matcher instanceof StringMatcher) {
-      String value = getStringMatcherValue((StringMatcher) matcher);
-      return Result.named(value);
+      StringMatcher stringMatcher = (StringMatcher) matcher;
+      String value = getStringMatcherValue(stringMatcher);
+      StringMatcher.Mode mode = getStringMatcherMode(stringMatcher);
+      if (mode == StringMatcher.Mode.EQUALS_FULLY) {
+        return Result.named(value);
+      } else if (mode == StringMatcher.Mode.STARTS_WITH) {
+        return Result.prefixed(value);
+      }
     } else if (matcher instanceof StringSetMatcher) {
       Set<String> value = getStringSetMatcherValue((StringSetMatcher) matcher);
       return Result.named(value);
@@ -199,17 +217,27 @@ public class AgentBuilderUtil {
   }
 
   private static class Result {
+    // names of types that the matcher may match
     final Set<String> names = new HashSet<>();
-    // true if matcher matches based on type hierarchy
-    // false if matcher matches based on type name
-    final boolean subtype;
-
-    private Result(boolean subtype) {
-      this.subtype = subtype;
+    // prefixes of the names of types that the matcher may match
+    final Set<String> prefixes = new HashSet<>();
+    // names of super types of the types that the matcher may match
+    final Set<String> superTypeNames = new HashSet<>();
+    // prefixes of the names of super types of the types that the matcher may match
+    final Set<String> superTypePrefixes = new HashSet<>();
+
+    void addAll(Result other) {
+      names.addAll(other.names);
+      prefixes.addAll(other.prefixes);
+      superTypeNames.addAll(other.superTypeNames);
+      superTypePrefixes.addAll(other.superTypePrefixes);
     }
 
-    private Result() {
-      this(false);
+    boolean isEmpty() {
+      return names.isEmpty()
+          && prefixes.isEmpty()
+          && superTypeNames.isEmpty()
+          && superTypePrefixes.isEmpty();
     }
 
     @Nullable
@@ -218,8 +246,11 @@ public class AgentBuilderUtil {
         return null;
       }
 
-      Result result = new Result(true);
-      result.names.addAll(value.names);
+      Result result = new Result();
+      result.superTypeNames.addAll(value.names);
+      result.superTypeNames.addAll(value.superTypeNames);
+      result.superTypePrefixes.addAll(value.prefixes);
+      result.superTypePrefixes.addAll(value.superTypePrefixes);
       return result;
     }
 
@@ -243,9 +274,232 @@ public class AgentBuilderUtil {
       return result;
     }
 
+    @Nullable
+    static Result prefixed(@Nullable String value) {
+      // an empty prefix matches everything
+      if (value == null || value.isEmpty()) {
+        return null;
+      }
+      Result result = new Result();
+      result.prefixes.add(value);
+      return result;
+    }
+
     @Override
     public String toString() {
-      return (subtype ? "subtype of " : "named ") + names;
+      return "named "
+          + names
+          + ", prefixed "
+          + prefixes
+          + ", subtype of "
+          + superTypeNames
+          + ", subtype of prefixed "
+          + superTypePrefixes;
+    }
+  }
+
+  /**
+   * Selects the transformations that may apply to a type by looking up the type name and the names
+   * of its super types, instead of running the matchers of all transformations.
+   */
+  static final class TransformationIndex<T> {
+    private final List<T> transformations;
+    private final BitSet unoptimized;
+    private final List<T> unoptimizedTransformations;
+    private final NameIndex<T> names;
+    private final NameIndex<T> superTypeNames;
+    // select() is called for every transformed class, this avoids allocating a BitSet each time
+    private final ThreadLocal<Selection<T>> selections = ThreadLocal.withInitial(Selection::new);
+
+    private TransformationIndex(
+        List<T> transformations,
+        BitSet unoptimized,
+        NameIndex<T> names,
+        NameIndex<T> superTypeNames) {
+      this.transformations = transformations;
+      this.unoptimized = unoptimized;
+      this.unoptimizedTransformations = select(transformations, unoptimized);
+      this.names = names;
+      this.superTypeNames = superTypeNames;
+    }
+
+    /** Returns whether there are transformations that are known to apply to the named type. */
+    boolean matchesName(String name) {
+      return names.contains(name) || superTypeNames.contains(name);
+    }
+
+    List<T> select(String name, Set<String> superTypes) {
+      Selection<T> selection = selections.get();
+      selection.reset();
+      names.lookup(name, selection);
+      // super type matchers also match the type itself
+      superTypeNames.lookup(name, selection);
+      for (String superType : superTypes) {
+        superTypeNames.lookup(superType, selection);
+      }
+      if (selection.merged) {
+        BitSet candidates = selection.candidates;
+        candidates.or(unoptimized);
+        return select(transformations, candidates);
+      }
+      // the most common case, only one name or prefix matched and its list is precomputed
+      Entry<T> single = selection.single;
+      return single != null ? single.selected : unoptimizedTransformations;
+    }
+
+    // keeps the original order of the transformations
+    private static <T> List<T> select(List<T> transformations, BitSet selected) {
+      List<T> result = new ArrayList<>(selected.cardinality());
+      for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+        result.add(transformations.get(i));
+      }
+      return result;
+    }
+
+    static final class Builder<T> {
+      private final List<T> transformations;
+      private final BitSet unoptimized = new BitSet();
+      private final NameIndex.Builder<T> names = new NameIndex.Builder<>();
+      private final NameIndex.Builder<T> superTypeNames = new NameIndex.Builder<>();
+
+      Builder(List<T> transformations) {
+        this.transformations = transformations;
+      }
+
+      void addUnoptimized(int index) {
+        unoptimized.set(index);
+      }
+
+      void add(int index, Result result) {
+        names.add(index, result.names, result.prefixes);
+        superTypeNames.add(index, result.superTypeNames, result.superTypePrefixes);
+      }
+
+      TransformationIndex<T> build() {
+        return new TransformationIndex<>(
+            transformations,
+            unoptimized,
+            names.build(transformations, unoptimized),
+            superTypeNames.build(transformations, unoptimized));
+      }
+    }
+  }
+
+  /** The transformations that depend on a name or prefix. */
+  private static final class Entry<T> {
+    final BitSet candidates;
+    // the candidates and the transformations that can't be decomposed, in their original order
+    final List<T> selected;
+
+    private Entry(BitSet candidates, List<T> selected) {
+      this.candidates = candidates;
+      this.selected = selected;
+    }
+  }
+
+  /** The entries that were found for a type, reused by the thread that selects them. */
+  private static final class Selection<T> {
+    final BitSet candidates = new BitSet();
+    @Nullable Entry<T> single;
+    // whether more than one entry was found, and their candidates were merged into candidates
+    boolean merged;
+
+    void reset() {
+      single = null;
+      merged = false;
+    }
+
+    void add(@Nullable Entry<T> entry) {
+      if (entry == null || entry == single) {
+        return;
+      }
+      if (single == null) {
+        single = entry;
+        return;
+      }
+      if (!merged) {
+        candidates.clear();
+        candidates.or(single.candidates);
+        merged = true;
+      }
+      candidates.or(entry.candidates);
+    }
+  }
+
+  /** Maps type names to the transformations whose matchers depend on them. */
+  private static final class NameIndex<T> {
+    private final Map<String, Entry<T>> exact;
+    // the value for a prefix also contains the transformations of all shorter prefixes, so that
+    // the longest matching prefix is enough to find all of them
+    @Nullable private final Trie<Entry<T>> prefixes;
+
+    private NameIndex(Map<String, Entry<T>> exact, @Nullable Trie<Entry<T>> prefixes) {
+      this.exact = exact;
+      this.prefixes = prefixes;
+    }
+
+    boolean contains(String name) {
+      return exact.containsKey(name) || (prefixes != null && prefixes.contains(name));
+    }
+
+    /** Adds the entries of the transformations that depend on the given name to the selection. */
+    void lookup(String name, Selection<T> selection) {
+      selection.add(exact.get(name));
+      if (prefixes != null) {
+        selection.add(prefixes.getOrNull(name));
+      }
+    }
+
+    static final class Builder<T> {
+      private final Map<String, BitSet> exact = new HashMap<>();
+      private final Map<String, BitSet> prefixes = new HashMap<>();
+
+      void add(int index, Set<String> names, Set<String> namePrefixes) {
+        for (String name : names) {
+          exact.computeIfAbsent(name, k -> new BitSet()).set(index);
+        }
+        for (String prefix : namePrefixes) {
+          prefixes.computeIfAbsent(prefix, k -> new BitSet()).set(index);
+        }
+      }
+
+      NameIndex<T> build(List<T> transformations, BitSet unoptimized) {
+        // names that depend on the same transformations share an entry
+        Map<BitSet, Entry<T>> entries = new HashMap<>();
+        Map<String, Entry<T>> exactEntries = new HashMap<>();
+        for (Map.Entry<String, BitSet> entry : exact.entrySet()) {
+          exactEntries.put(
+              entry.getKey(), createEntry(entries, entry.getValue(), transformations, unoptimized));
+        }
+        if (prefixes.isEmpty()) {
+          return new NameIndex<>(exactEntries, null);
+        }
+        Trie.Builder<Entry<T>> trie = Trie.builder();
+        for (Map.Entry<String, BitSet> entry : prefixes.entrySet()) {
+          BitSet value = new BitSet();
+          for (Map.Entry<String, BitSet> other : prefixes.entrySet()) {
+            if (entry.getKey().startsWith(other.getKey())) {
+              value.or(other.getValue());
+            }
+          }
+          trie.put(entry.getKey(), createEntry(entries, value, transformations, unoptimized));
+        }
+        return new NameIndex<>(exactEntries, trie.build());
+      }
+
+      private static <T> Entry<T> createEntry(
+          Map<BitSet, Entry<T>> entries,
+          BitSet candidates,
+          List<T> transformations,
+          BitSet unoptimized) {
+        return entries.computeIfAbsent(
+            candidates,
+            k -> {
+              BitSet selected = (BitSet) candidates.clone();
+              selected.or(unoptimized);
+              return new Entry<>(candidates, TransformationIndex.select(transformations, selected));
+            });
+      }
     }
   }
 
@@ -284,15 +538,18 @@ public class AgentBuilderUtil {
     return (List<ElementMatcher<?>>) conjunctionMatchersField.get(matcher);
   }
 
-  /**
-   * @return the value given string matcher matches when matcher mode is
-   *     StringMatcher.Mode.EQUALS_FULLY, null otherwise
-   */
-  @Nullable
+  @SuppressWarnings("unchecked")
+  private static List<ElementMatcher<?>> getDelegateMatchers(
+      ElementMatcher.Junction.Disjunction<?> matcher) throws Exception {
+    return (List<ElementMatcher<?>>) disjunctionMatchersField.get(matcher);
+  }
+
   private static String getStringMatcherValue(StringMatcher matcher) throws Exception {
-    String value = (String) stringMatcherValueField.get(matcher);
-    StringMatcher.Mode mode = (StringMatcher.Mode) stringMatcherModeField.get(matcher);
-    return mode == StringMatcher.Mode.EQUALS_FULLY ? value : null;
+    return (String) stringMatcherValueField.get(matcher);
+  }
+
+  private static StringMatcher.Mode getStringMatcherMode(StringMatcher matcher) throws Exception {
+    return (StringMatcher.Mode) stringMatcherModeField.get(matcher);
   }
 
   @SuppressWarnings("unchecked")
@@ -81,6 +81,32 @@ class HelperInjectionTest extends Specification {
     helperClass.getClassLoader() == bootstrapClassloader
   }
 
+  def "helpers shared by modules injected on bootstrap classloader once"() {
+    setup:
+    ByteBuddyAgent.install()
+    AgentInstaller.installBytebuddyAgent(ByteBuddyAgent.getInstrumentation(), this.class.classLoader, EarlyInitAgentConfig.create())
+    String sharedClassName = HelperInjectionTest.getPackage().getName() + '.SharedHelperClass'
+    String otherClassName = HelperInjectionTest.getPackage().getName() + '.OtherHelperClass'
+    HelperInjector firstInjector = new HelperInjector("first", [sharedClassName], [], this.class.classLoader, ByteBuddyAgent.getInstrumentation())
+    HelperInjector secondInjector = new HelperInjector("second", [sharedClassName, otherClassName], [], this.class.classLoader, ByteBuddyAgent.getInstrumentation())
+    List<Set<String>> injections = []
+    HelperInjector.setHelperInjectorListener({ classnameToBytes -> injections.add(classnameToBytes.keySet()) })
+    URLClassLoader bootstrapChild = new URLClassLoader(new URL[0], (ClassLoader) null)
+
+    when:
+    def bootstrapClassloader = null
+    firstInjector.transform(null, null, bootstrapClassloader, null, null)
+    secondInjector.transform(null, null, bootstrapClassloader, null, null)
+
+    then:
+    injections == [[sharedClassName] as Set, [otherClassName] as Set]
+    bootstrapChild.loadClass(sharedClassName).getClassLoader() == bootstrapClassloader
+    bootstrapChild.loadClass(otherClassName).getClassLoader() == bootstrapClassloader
+
+    cleanup:
+    HelperInjector.setHelperInjectorListener(null)
+  }
+
   def "check hard references on class injection"() {
     setup:
     String helperClassName = HelperInjectionTest.getPackage().getName() + '.HelperClass'
@@ -6,102 +6,35 @@
 package io.opentelemetry.javaagent.tooling
 
 import io.opentelemetry.javaagent.tooling.muzzle.AgentCachingPoolStrategy
+import io.opentelemetry.javaagent.tooling.muzzle.LoaderResolutionCache
 import net.bytebuddy.description.type.TypeDescription
 import net.bytebuddy.pool.TypePool
 import spock.lang.Specification
 
-import java.lang.ref.WeakReference
-
 class CacheProviderTest extends Specification {
-  def "key bootstrap equivalence"() {
-    // def loader = null
-    def loaderHash = AgentCachingPoolStrategy.BOOTSTRAP_HASH
-    def loaderRef = null
-
-    def key1 = new AgentCachingPoolStrategy.TypeCacheKey(loaderHash, loaderRef, "foo")
-    def key2 = new AgentCachingPoolStrategy.TypeCacheKey(loaderHash, loaderRef, "foo")
-
-    expect:
-    key1.hashCode() == key2.hashCode()
-    key1.equals(key2)
-  }
-
-  def "key same ref equivalence"() {
+  def "java types are cached with bootstrap"() {
     setup:
-    def loader = newClassLoader()
-    def loaderHash = loader.hashCode()
-    def loaderRef = new WeakReference<ClassLoader>(loader)
-
-    def key1 = new AgentCachingPoolStrategy.TypeCacheKey(loaderHash, loaderRef, "foo")
-    def key2 = new AgentCachingPoolStrategy.TypeCacheKey(loaderHash, loaderRef, "foo")
-
-    expect:
-    key1.hashCode() == key2.hashCode()
-    key1.equals(key2)
-    // ensures that loader isn't collected
-    loader != null
-  }
+    def poolStrat = new AgentCachingPoolStrategy(null)
 
-  def "key different ref equivalence"() {
-    setup:
     def loader = newClassLoader()
-    def loaderHash = loader.hashCode()
-    def loaderRef1 = new WeakReference<ClassLoader>(loader)
-    def loaderRef2 = new WeakReference<ClassLoader>(loader)
 
-    def key1 = new AgentCachingPoolStrategy.TypeCacheKey(loaderHash, loaderRef1, "foo")
-    def key2 = new AgentCachingPoolStrategy.TypeCacheKey(loaderHash, loaderRef2, "foo")
-
-    expect:
-    loaderRef1 != loaderRef2
+    def cacheProvider = poolStrat.getCacheProvider(loader)
+    def bootstrapCacheProvider = poolStrat.getCacheProvider(null)
 
-    key1.hashCode() == key2.hashCode()
-    key1.equals(key2)
-    // ensures that loader isn't collected
-    loader != null
-  }
+    when:
+    cacheProvider.register("java.lang.String", newVoid())
 
-  def "key mismatch -- same loader - diff name"() {
-    setup:
-    def loader = newClassLoader()
-    def loaderHash = loader.hashCode()
-    def loaderRef = new WeakReference<ClassLoader>(loader)
-    def fooKey = new AgentCachingPoolStrategy.TypeCacheKey(loaderHash, loaderRef, "foo")
-    def barKey = new AgentCachingPoolStrategy.TypeCacheKey(loaderHash, loaderRef, "bar")
-
-    expect:
-    // not strictly guaranteed -- but important for performance
-    fooKey.hashCode() != barKey.hashCode()
-    !fooKey.equals(barKey)
+    then:
+    cacheProvider.find("java.lang.String") != null
+    cacheProvider.find("java.lang.String").is(bootstrapCacheProvider.find("java.lang.String"))
+    cacheProvider.size() == 0
     // ensures that loader isn't collected
     loader != null
   }
 
-  def "key mismatch -- same name - diff loader"() {
-    setup:
-    def loader1 = newClassLoader()
-    def loader1Hash = loader1.hashCode()
-    def loaderRef1 = new WeakReference<ClassLoader>(loader1)
-
-    def loader2 = newClassLoader()
-    def loader2Hash = loader2.hashCode()
-    def loaderRef2 = new WeakReference<ClassLoader>(loader2)
-
-    def fooKey1 = new AgentCachingPoolStrategy.TypeCacheKey(loader1Hash, loaderRef1, "foo")
-    def fooKey2 = new AgentCachingPoolStrategy.TypeCacheKey(loader2Hash, loaderRef2, "foo")
-
-    expect:
-    // not strictly guaranteed -- but important for performance
-    fooKey1.hashCode() != fooKey2.hashCode()
-    !fooKey1.equals(fooKey2)
-    // ensures that loader isn't collected
-    loader1 != null
-    loader2 != null
-  }
-
   def "test basic caching"() {
     setup:
-    def poolStrat = new AgentCachingPoolStrategy()
+    def poolStrat = new AgentCachingPoolStrategy(null)
 
     def loader = newClassLoader()
 
@@ -119,7 +52,7 @@ class CacheProviderTest extends Specification {
 
   def "test loader equivalence"() {
     setup:
-    def poolStrat = new AgentCachingPoolStrategy()
+    def poolStrat = new AgentCachingPoolStrategy(null)
 
     def loader1 = newClassLoader()
 
@@ -134,6 +67,7 @@ class CacheProviderTest extends Specification {
     cacheProvider1A.find("foo") != null
     cacheProvider1B.find("foo") != null
 
+    cacheProvider1A.is(cacheProvider1B)
     cacheProvider1A.find("foo").is(cacheProvider1B.find("foo"))
 
     // ensures that loader isn't collected
@@ -142,7 +76,7 @@ class CacheProviderTest extends Specification {
 
   def "test loader separation"() {
     setup:
-    def poolStrat = new AgentCachingPoolStrategy()
+    def poolStrat = new AgentCachingPoolStrategy(null)
 
     def loader1 = newClassLoader()
     def loader2 = newClassLoader()
@@ -166,6 +100,81 @@ class CacheProviderTest extends Specification {
     loader2 != null
   }
 
+  def "test eviction within loader"() {
+    setup:
+    def poolStrat = new AgentCachingPoolStrategy(null)
+
+    def loader1 = newClassLoader()
+    def loader2 = newClassLoader()
+
+    def cacheProvider1 = poolStrat.getCacheProvider(loader1)
+    def cacheProvider2 = poolStrat.getCacheProvider(loader2)
+
+    when:
+    cacheProvider2.register("foo", newVoid())
+    for (int i = 0; i < 2 * LoaderResolutionCache.MAX_CAPACITY; i++) {
+      cacheProvider1.register("foo" + i, newVoid())
+    }
+
+    then:
+    cacheProvider1.size() <= LoaderResolutionCache.MAX_CAPACITY
+    poolStrat.getCacheStats().evictionCount() >= LoaderResolutionCache.MAX_CAPACITY
+    // most recently registered type is never evicted
+    cacheProvider1.find("foo" + (2 * LoaderResolutionCache.MAX_CAPACITY - 1)) != null
+    // filling up one loader does not evict the types of another
+    cacheProvider2.find("foo") != null
+
+    // ensures that loader isn't collected
+    loader1 != null
+    loader2 != null
+  }
+
+  def "test total capacity of all loaders"() {
+    setup:
+    def poolStrat = new AgentCachingPoolStrategy(null)
+    def loaderCount = 2 * LoaderResolutionCache.TOTAL_CAPACITY.intdiv(LoaderResolutionCache.MAX_CAPACITY)
+    def loaders = (1..loaderCount).collect { newClassLoader() }
+
+    when:
+    def cacheProviders = loaders.collect { poolStrat.getCacheProvider(it) }
+    cacheProviders.each { cacheProvider ->
+      for (int i = 0; i < LoaderResolutionCache.MAX_CAPACITY; i++) {
+        cacheProvider.register("foo" + i, newVoid())
+      }
+    }
+
+    then:
+    poolStrat.budget.reserved() <= LoaderResolutionCache.TOTAL_CAPACITY + loaderCount * LoaderResolutionCache.INITIAL_CAPACITY
+    cacheProviders.sum { it.size() } <= LoaderResolutionCache.TOTAL_CAPACITY + loaderCount * LoaderResolutionCache.INITIAL_CAPACITY
+    // a loader that can't grow anymore still caches its most recent type
+    cacheProviders.last().find("foo" + (LoaderResolutionCache.MAX_CAPACITY - 1)) != null
+
+    // ensures that loaders aren't collected
+    loaders.size() == loaderCount
+  }
+
+  def "test stats"() {
+    setup:
+    def poolStrat = new AgentCachingPoolStrategy(null)
+
+    def loader = newClassLoader()
+
+    def cacheProvider = poolStrat.getCacheProvider(loader)
+
+    when:
+    cacheProvider.find("foo")
+    cacheProvider.register("foo", newVoid())
+    cacheProvider.find("foo")
+    cacheProvider.find("foo")
+
+    then:
+    poolStrat.getCacheStats().missCount() == 1
+    poolStrat.getCacheStats().hitCount() == 2
+    poolStrat.getCacheStats().evictionCount() == 0
+    // ensures that loader isn't collected
+    loader != null
+  }
+
   static newVoid() {
     return new TypePool.Resolution.Simple(TypeDescription.ForLoadedType.of(void.class))
   }
@@ -0,0 +1,109 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+
+import io.opentelemetry.instrumentation.api.internal.SupportabilityMetrics;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ParallelRetransformerTest {
+
+  // String, Integer and Long are loaded by the bootstrap class loader, the others by the
+  // application class loader
+  private static final List<Class<?>> TYPES =
+      asList(
+          String.class,
+          ParallelRetransformerTest.class,
+          Integer.class,
+          ParallelRetransformer.class,
+          Long.class);
+
+  @Mock Instrumentation instrumentation;
+
+  List<List<Class<?>>> retransformed = Collections.synchronizedList(new ArrayList<>());
+
+  @BeforeEach
+  void setUp() throws UnmodifiableClassException {
+    lenient()
+        .doAnswer(
+            invocation -> {
+              List<Class<?>> classes = new ArrayList<>();
+              for (Object argument : invocation.getArguments()) {
+                classes.add((Class<?>) argument);
+              }
+              if (classes.size() > 1 && classes.contains(Integer.class)) {
+                throw new UnmodifiableClassException();
+              }
+              retransformed.add(classes);
+              return null;
+            })
+        .when(instrumentation)
+        .retransformClasses(any());
+  }
+
+  @Test
+  void shouldPartitionTypesByClassLoader() {
+    assertThat(ParallelRetransformer.partition(TYPES, 2))
+        .containsExactly(
+            asList(String.class, Integer.class),
+            asList(Long.class),
+            asList(ParallelRetransformerTest.class, ParallelRetransformer.class));
+  }
+
+  @Test
+  void shouldRetransformAllBatches() {
+    ParallelRetransformer retransformer = newRetransformer(1);
+
+    assertThat(retransformer.batch(TYPES)).isEmpty();
+
+    assertThat(retransformed)
+        .containsExactlyInAnyOrder(
+            asList(String.class),
+            asList(ParallelRetransformerTest.class),
+            asList(Integer.class),
+            asList(ParallelRetransformer.class),
+            asList(Long.class));
+  }
+
+  @Test
+  void shouldRetryClassesOfFailedBatchOneByOne() {
+    ParallelRetransformer retransformer = newRetransformer(2);
+
+    assertThat(retransformer.batch(TYPES)).isEmpty();
+
+    assertThat(retransformed)
+        .containsExactlyInAnyOrder(
+            asList(String.class),
+            asList(Integer.class),
+            asList(Long.class),
+            asList(ParallelRetransformerTest.class, ParallelRetransformer.class));
+  }
+
+  @Test
+  void shouldDoNothingWithoutTypes() {
+    assertThat(newRetransformer(2).batch(Collections.emptyList())).isEmpty();
+    assertThat(retransformed).isEmpty();
+  }
+
+  private ParallelRetransformer newRetransformer(int batchSize) {
+    return new ParallelRetransformer(
+        instrumentation, 4, batchSize, SupportabilityMetrics.instance());
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.ignore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import net.bytebuddy.description.type.TypeDescription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class UnmatchedTypesCacheTest {
+
+  private static final TypeDescription UNMATCHED_TYPE =
+      TypeDescription.ForLoadedType.of(Runnable.class);
+  private static final TypeDescription MATCHED_TYPE =
+      TypeDescription.ForLoadedType.of(Thread.class);
+  private static final long SERVICE = 1;
+  private static final long OTHER_SERVICE = 2;
+
+  @TempDir Path tempDir;
+
+  Path cacheDirectory;
+  Path jar;
+  ProtectionDomain jarDomain;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    cacheDirectory = tempDir.resolve("cache");
+    jar = Files.write(tempDir.resolve("app.jar"), "jar".getBytes(StandardCharsets.UTF_8));
+    jarDomain = protectionDomain(jar);
+  }
+
+  @Test
+  void shouldSkipTypesThatDidNotMatchInPreviousRun() {
+    UnmatchedTypesCache cache = new UnmatchedTypesCache(cacheDirectory, SERVICE, 1);
+    assertThat(match(cache, UNMATCHED_TYPE, jarDomain)).isFalse();
+    cache.onIgnored(UNMATCHED_TYPE, null, null, false);
+    cache.onComplete(UNMATCHED_TYPE.getName(), null, null, false);
+    assertThat(match(cache, MATCHED_TYPE, jarDomain)).isFalse();
+    cache.onComplete(MATCHED_TYPE.getName(), null, null, false);
+    cache.write();
+
+    UnmatchedTypesCache nextRun = new UnmatchedTypesCache(cacheDirectory, SERVICE, 1);
+    assertThat(match(nextRun, UNMATCHED_TYPE, jarDomain)).isTrue();
+    assertThat(match(nextRun, MATCHED_TYPE, jarDomain)).isFalse();
+  }
+
+  @Test
+  void shouldNotSkipTypesWhenConfigurationChanged() {
+    UnmatchedTypesCache cache = new UnmatchedTypesCache(cacheDirectory, SERVICE, 1);
+    recordUnmatched(cache, UNMATCHED_TYPE, jarDomain);
+    cache.write();
+
+    UnmatchedTypesCache nextRun = new UnmatchedTypesCache(cacheDirectory, SERVICE, 2);
+    assertThat(match(nextRun, UNMATCHED_TYPE, jarDomain)).isFalse();
+  }
+
+  @Test
+  void shouldNotSkipTypesWhenJarChanged() throws IOException {
+    UnmatchedTypesCache cache = new UnmatchedTypesCache(cacheDirectory, SERVICE, 1);
+    recordUnmatched(cache, UNMATCHED_TYPE, jarDomain);
+    cache.write();
+
+    Files.write(jar, "changed".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+    UnmatchedTypesCache nextRun = new UnmatchedTypesCache(cacheDirectory, SERVICE, 1);
+    assertThat(match(nextRun, UNMATCHED_TYPE, protectionDomain(jar))).isFalse();
+  }
+
+  @Test
+  void shouldStopSkippingTypesWhenNewJarIsSeen() throws IOException {
+    UnmatchedTypesCache cache = new UnmatchedTypesCache(cacheDirectory, SERVICE, 1);
+    recordUnmatched(cache, UNMATCHED_TYPE, jarDomain);
+    cache.write();
+
+    Path otherJar =
+        Files.write(tempDir.resolve("other.jar"), "other".getBytes(StandardCharsets.UTF_8));
+
+    UnmatchedTypesCache nextRun = new UnmatchedTypesCache(cacheDirectory, SERVICE, 1);
+    assertThat(match(nextRun, UNMATCHED_TYPE, jarDomain)).isTrue();
+    assertThat(match(nextRun, MATCHED_TYPE, protectionDomain(otherJar))).isFalse();
+    assertThat(match(nextRun, UNMATCHED_TYPE, jarDomain)).isFalse();
+  }
+
+  @Test
+  void shouldNotCacheTypesWithoutJar() {
+    ProtectionDomain directoryDomain = protectionDomain(tempDir);
+
+    UnmatchedTypesCache cache = new UnmatchedTypesCache(cacheDirectory, SERVICE, 1);
+    recordUnmatched(cache, UNMATCHED_TYPE, directoryDomain);
+    recordUnmatched(cache, MATCHED_TYPE, null);
+    cache.write();
+
+    UnmatchedTypesCache nextRun = new UnmatchedTypesCache(cacheDirectory, SERVICE, 1);
+    assertThat(match(nextRun, UNMATCHED_TYPE, directoryDomain)).isFalse();
+    assertThat(match(nextRun, MATCHED_TYPE, null)).isFalse();
+  }
+
+  @Test
+  void shouldNotSkipTypesInOtherClassLoader() throws IOException {
+    URLClassLoader loader = new URLClassLoader(new URL[] {jar.toUri().toURL()}, null);
+    URLClassLoader otherLoader =
+        new URLClassLoader(new URL[] {jar.toUri().toURL(), tempDir.toUri().toURL()}, null);
+
+    UnmatchedTypesCache cache = new UnmatchedTypesCache(cacheDirectory, SERVICE, 1);
+    assertThat(cache.matches(UNMATCHED_TYPE, loader, null, null, jarDomain)).isFalse();
+    cache.onIgnored(UNMATCHED_TYPE, loader, null, false);
+    cache.onComplete(UNMATCHED_TYPE.getName(), loader, null, false);
+    cache.write();
+
+    UnmatchedTypesCache nextRun = new UnmatchedTypesCache(cacheDirectory, SERVICE, 1);
+    assertThat(nextRun.matches(UNMATCHED_TYPE, loader, null, null, jarDomain)).isTrue();
+    assertThat(nextRun.matches(UNMATCHED_TYPE, otherLoader, null, null, jarDomain)).isFalse();
+
+    loader.close();
+    otherLoader.close();
+  }
+
+  @Test
+  void shouldOnlyDeleteStaleFilesOfSameService() throws IOException {
+    UnmatchedTypesCache otherService = new UnmatchedTypesCache(cacheDirectory, OTHER_SERVICE, 1);
+    recordUnmatched(otherService, UNMATCHED_TYPE, jarDomain);
+    otherService.write();
+    UnmatchedTypesCache cache = new UnmatchedTypesCache(cacheDirectory, SERVICE, 1);
+    recordUnmatched(cache, UNMATCHED_TYPE, jarDomain);
+    cache.write();
+
+    UnmatchedTypesCache changed = new UnmatchedTypesCache(cacheDirectory, SERVICE, 2);
+    recordUnmatched(changed, UNMATCHED_TYPE, jarDomain);
+    changed.write();
+
+    UnmatchedTypesCache deleted = new UnmatchedTypesCache(cacheDirectory, SERVICE, 1);
+    assertThat(match(deleted, UNMATCHED_TYPE, jarDomain)).isFalse();
+    UnmatchedTypesCache kept = new UnmatchedTypesCache(cacheDirectory, OTHER_SERVICE, 1);
+    assertThat(match(kept, UNMATCHED_TYPE, jarDomain)).isTrue();
+  }
+
+  private static void recordUnmatched(
+      UnmatchedTypesCache cache, TypeDescription type, ProtectionDomain protectionDomain) {
+    assertThat(match(cache, type, protectionDomain)).isFalse();
+    cache.onIgnored(type, null, null, false);
+    cache.onComplete(type.getName(), null, null, false);
+  }
+
+  private static boolean match(
+      UnmatchedTypesCache cache, TypeDescription type, ProtectionDomain protectionDomain) {
+    return cache.matches(type, null, null, null, protectionDomain);
+  }
+
+  private static ProtectionDomain protectionDomain(Path location) {
+    try {
+      return new ProtectionDomain(
+          new CodeSource(location.toUri().toURL(), (Certificate[]) null), null);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
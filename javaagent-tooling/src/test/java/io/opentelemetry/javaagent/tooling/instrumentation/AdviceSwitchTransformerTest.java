@@ -0,0 +1,289 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.instrumentation;
+
+import static java.util.Collections.singletonMap;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.opentelemetry.javaagent.bootstrap.AdviceSwitches;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.pool.TypePool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AdviceSwitchTransformerTest {
+
+  private static final int MODULE_ID = 1000;
+
+  @BeforeEach
+  void setUp() {
+    Events.events.clear();
+    Events.depth.set(0);
+  }
+
+  @AfterEach
+  void tearDown() {
+    AdviceSwitches.setEnabled(MODULE_ID, true);
+  }
+
+  @Test
+  void shouldRunAdviceWhileEnabled() throws Exception {
+    Function<Runnable, String> target = weave(ScopeAdvice.class);
+
+    assertThat(target.apply(() -> {})).isEqualTo("result");
+    assertThat(Events.events).containsExactly("enter", "exit scope");
+  }
+
+  @Test
+  void shouldSkipAdviceWhileDisabled() throws Exception {
+    Function<Runnable, String> target = weave(ScopeAdvice.class);
+    AdviceSwitches.setEnabled(MODULE_ID, false);
+
+    assertThat(target.apply(() -> {})).isEqualTo("result");
+    assertThat(Events.events).isEmpty();
+  }
+
+  @Test
+  void shouldRunExitAdviceOfMethodEnteredBeforeDisabling() throws Exception {
+    Function<Runnable, String> target = weave(ScopeAdvice.class);
+
+    assertThat(target.apply(() -> AdviceSwitches.setEnabled(MODULE_ID, false)))
+        .isEqualTo("result");
+    assertThat(Events.events).containsExactly("enter", "exit scope");
+  }
+
+  @Test
+  void shouldSkipExitAdviceOfMethodEnteredBeforeEnabling() throws Exception {
+    Function<Runnable, String> target = weave(ScopeAdvice.class);
+    AdviceSwitches.setEnabled(MODULE_ID, false);
+
+    assertThat(target.apply(() -> AdviceSwitches.setEnabled(MODULE_ID, true)))
+        .isEqualTo("result");
+    assertThat(Events.events).isEmpty();
+  }
+
+  @Test
+  void shouldSkipExitAdviceWithLocalWhileDisabled() throws Exception {
+    Function<Runnable, String> target = weave(LocalAdvice.class);
+
+    assertThat(target.apply(() -> {})).isEqualTo("result");
+    assertThat(Events.events).containsExactly("enter", "exit local");
+
+    Events.events.clear();
+    AdviceSwitches.setEnabled(MODULE_ID, false);
+    assertThat(target.apply(() -> {})).isEqualTo("result");
+    assertThat(Events.events).isEmpty();
+  }
+
+  @Test
+  void shouldSkipExitOnlyAdviceWhileDisabled() throws Exception {
+    Function<Runnable, String> target = weave(ExitOnlyAdvice.class);
+    AdviceSwitches.setEnabled(MODULE_ID, false);
+
+    assertThat(target.apply(() -> {})).isEqualTo("result");
+    assertThat(Events.events).isEmpty();
+  }
+
+  @Test
+  void shouldSkipExitAdviceWithoutEnterValuesWhileDisabled() throws Exception {
+    Function<Runnable, String> target = weave(ThrownAdvice.class);
+    AdviceSwitches.setEnabled(MODULE_ID, false);
+
+    assertThat(target.apply(() -> {})).isEqualTo("result");
+    assertThat(Events.events).isEmpty();
+
+    AdviceSwitches.setEnabled(MODULE_ID, true);
+    assertThat(target.apply(() -> {})).isEqualTo("result");
+    assertThat(Events.events).containsExactly("enter", "exit");
+  }
+
+  @Test
+  void shouldKeepCallDepthWhenDisabledInNestedCall() throws Exception {
+    Function<Runnable, String> target = weave(CallDepthAdvice.class);
+
+    assertThat(
+            target.apply(() -> target.apply(() -> AdviceSwitches.setEnabled(MODULE_ID, false))))
+        .isEqualTo("result");
+    // the nested exit advice ran, so the outer one sees the depth of the outer call
+    assertThat(Events.events).containsExactly("start", "end");
+    assertThat(Events.depth.get()).isZero();
+  }
+
+  @Test
+  void shouldKeepCallDepthWhenEnabledInNestedCall() throws Exception {
+    Function<Runnable, String> target = weave(CallDepthAdvice.class);
+    AdviceSwitches.setEnabled(MODULE_ID, false);
+
+    assertThat(
+            target.apply(
+                () -> {
+                  AdviceSwitches.setEnabled(MODULE_ID, true);
+                  target.apply(() -> {});
+                }))
+        .isEqualTo("result");
+    // the outer exit advice doesn't run without its enter advice
+    assertThat(Events.events).containsExactly("start", "end");
+    assertThat(Events.depth.get()).isZero();
+
+    Events.events.clear();
+    assertThat(target.apply(() -> target.apply(() -> {}))).isEqualTo("result");
+    assertThat(Events.events).containsExactly("start", "end");
+  }
+
+  @Test
+  void shouldNotSwitchPairWithUnswitchableEnterAdvice() throws Exception {
+    Function<Runnable, String> target = weave(SkipAdvice.class);
+    AdviceSwitches.setEnabled(MODULE_ID, false);
+
+    assertThat(target.apply(() -> {})).isEqualTo("result");
+    assertThat(Events.events).containsExactly("enter", "exit");
+  }
+
+  // inlines the rewritten advice into a copy of Target, the same way the agent does: the advice
+  // methods are described from the rewritten class file, which has the added local
+  @SuppressWarnings("unchecked")
+  private static Function<Runnable, String> weave(Class<?> adviceClass) throws Exception {
+    byte[] rewritten =
+        AdviceSwitchTransformer.transform(
+            ClassFileLocator.ForClassLoader.read(adviceClass), MODULE_ID);
+    ClassFileLocator classFileLocator =
+        new ClassFileLocator.Compound(
+            new ClassFileLocator.Simple(singletonMap(adviceClass.getName(), rewritten)),
+            ClassFileLocator.ForClassLoader.of(adviceClass.getClassLoader()));
+    Advice advice =
+        Advice.to(
+            TypePool.Default.of(classFileLocator).describe(adviceClass.getName()).resolve(),
+            classFileLocator);
+    Class<?> woven =
+        new ByteBuddy()
+            .redefine(Target.class)
+            .visit(advice.on(named("apply")))
+            .make()
+            .load(Target.class.getClassLoader(), ClassLoadingStrategy.Default.CHILD_FIRST)
+            .getLoaded();
+    return (Function<Runnable, String>) woven.getConstructor().newInstance();
+  }
+
+  public static class Target implements Function<Runnable, String> {
+    @Override
+    public String apply(Runnable duringMethod) {
+      duringMethod.run();
+      return "result";
+    }
+  }
+
+  // public, it is called from the woven class that is loaded by another class loader
+  public static class Events {
+    static final List<String> events = new CopyOnWriteArrayList<>();
+    static final AtomicInteger depth = new AtomicInteger();
+
+    public static void record(String event) {
+      events.add(event);
+    }
+
+    public static int getAndIncrementDepth() {
+      return depth.getAndIncrement();
+    }
+
+    public static int decrementAndGetDepth() {
+      return depth.decrementAndGet();
+    }
+  }
+
+  @SuppressWarnings("unused")
+  public static class ScopeAdvice {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static String onEnter() {
+      Events.record("enter");
+      return "scope";
+    }
+
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void onExit(@Advice.Enter String scope) {
+      Events.record("exit " + scope);
+    }
+  }
+
+  @SuppressWarnings("unused")
+  public static class LocalAdvice {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static void onEnter(@Advice.Local("otelLocal") String local) {
+      Events.record("enter");
+      local = "local";
+    }
+
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void onExit(@Advice.Local("otelLocal") String local) {
+      Events.record("exit " + local);
+    }
+  }
+
+  @SuppressWarnings("unused")
+  public static class ExitOnlyAdvice {
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void onExit() {
+      Events.record("exit");
+    }
+  }
+
+  @SuppressWarnings("unused")
+  public static class ThrownAdvice {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static void onEnter() {
+      Events.record("enter");
+    }
+
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+    public static void onExit(@Advice.Thrown Throwable throwable) {
+      Events.record("exit");
+    }
+  }
+
+  // like the advice that uses CallDepth, which only starts a span for the outermost call
+  @SuppressWarnings("unused")
+  public static class CallDepthAdvice {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static String onEnter() {
+      if (Events.getAndIncrementDepth() > 0) {
+        return null;
+      }
+      Events.record("start");
+      return "span";
+    }
+
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void onExit(@Advice.Enter String span) {
+      if (Events.decrementAndGetDepth() > 0) {
+        return;
+      }
+      Events.record("end");
+    }
+  }
+
+  @SuppressWarnings("unused")
+  public static class SkipAdvice {
+    // a noop would return false and skip the instrumented method
+    @Advice.OnMethodEnter(skipOn = Advice.OnDefaultValue.class, suppress = Throwable.class)
+    public static boolean onEnter() {
+      Events.record("enter");
+      return true;
+    }
+
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void onExit() {
+      Events.record("exit");
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.instrumentation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.opentelemetry.javaagent.bootstrap.AdviceSwitches;
+import io.opentelemetry.javaagent.extension.instrumentation.InstrumentationModule;
+import io.opentelemetry.javaagent.extension.instrumentation.TypeInstrumentation;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class InstrumentationSwitchesTest {
+
+  @Test
+  void shouldSwitchModulesByInstrumentationName() {
+    InstrumentationSwitches switches = new InstrumentationSwitches();
+    int jdbcId = switches.register(new TestModule("jdbc", "jdbc-datasource"));
+    int kafkaId = switches.register(new TestModule("kafka"));
+
+    switches.disable("jdbc-datasource");
+
+    assertThat(switches.getDisabledInstrumentations()).containsExactly("jdbc", "jdbc-datasource");
+    assertThat(AdviceSwitches.isEnabled(jdbcId)).isFalse();
+    assertThat(AdviceSwitches.isEnabled(kafkaId)).isTrue();
+
+    switches.enable("jdbc");
+
+    assertThat(switches.getDisabledInstrumentations()).isEmpty();
+    assertThat(AdviceSwitches.isEnabled(jdbcId)).isTrue();
+  }
+
+  @Test
+  void shouldRejectUnknownInstrumentation() {
+    InstrumentationSwitches switches = new InstrumentationSwitches();
+
+    assertThatThrownBy(() -> switches.disable("unknown"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static class TestModule extends InstrumentationModule {
+
+    TestModule(String mainInstrumentationName, String... additionalInstrumentationNames) {
+      super(mainInstrumentationName, additionalInstrumentationNames);
+    }
+
+    @Override
+    public List<TypeInstrumentation> typeInstrumentations() {
+      return Collections.emptyList();
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.instrumentation;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.opentelemetry.instrumentation.test.utils.ClasspathUtils;
+import io.opentelemetry.javaagent.extension.instrumentation.InstrumentationModule;
+import io.opentelemetry.javaagent.extension.instrumentation.TypeInstrumentation;
+import io.opentelemetry.javaagent.tooling.TransformSafeLogger;
+import io.opentelemetry.javaagent.tooling.muzzle.InstrumentationModuleMuzzle;
+import io.opentelemetry.javaagent.tooling.muzzle.VirtualFieldMappingsBuilder;
+import io.opentelemetry.javaagent.tooling.muzzle.references.ClassRef;
+import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MuzzleMatcherTest {
+
+  private static final Logger muzzleLogger = Logger.getLogger(MuzzleMatcher.class.getName());
+
+  private final List<Object> reusedForClassLoaders = new ArrayList<>();
+  private final Handler handler =
+      new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+          if (record.getMessage().startsWith("Reusing muzzle result")) {
+            reusedForClassLoaders.add(record.getParameters()[1]);
+          }
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+      };
+  private Level previousLevel;
+
+  @BeforeEach
+  void setUp() {
+    previousLevel = muzzleLogger.getLevel();
+    muzzleLogger.setLevel(Level.FINE);
+    muzzleLogger.addHandler(handler);
+  }
+
+  @AfterEach
+  void tearDown() {
+    muzzleLogger.removeHandler(handler);
+    muzzleLogger.setLevel(previousLevel);
+  }
+
+  @Test
+  void shouldReuseResultForClassLoaderWithSameFingerprint() throws Exception {
+    MuzzleMatcher matcher = new MuzzleMatcher(logger(), new TestModule(), config(true));
+    URL jar = ClasspathUtils.createJarWithClasses(LibraryClass.class);
+
+    try (URLClassLoader first = new URLClassLoader(new URL[] {jar}, null);
+        URLClassLoader second = new URLClassLoader(new URL[] {jar}, null);
+        URLClassLoader withoutLibrary = new URLClassLoader(new URL[0], null)) {
+      assertThat(matcher.matches(null, first, null, null, null)).isTrue();
+      assertThat(reusedForClassLoaders).isEmpty();
+
+      assertThat(matcher.matches(null, second, null, null, null)).isTrue();
+      assertThat(reusedForClassLoaders).containsExactly(second);
+
+      // a class loader with other class files has another fingerprint
+      assertThat(matcher.matches(null, withoutLibrary, null, null, null)).isFalse();
+      assertThat(reusedForClassLoaders).containsExactly(second);
+    }
+  }
+
+  @Test
+  void shouldNotReuseResultWhenDisabled() throws Exception {
+    MuzzleMatcher matcher = new MuzzleMatcher(logger(), new TestModule(), config(false));
+    URL jar = ClasspathUtils.createJarWithClasses(LibraryClass.class);
+
+    try (URLClassLoader first = new URLClassLoader(new URL[] {jar}, null);
+        URLClassLoader second = new URLClassLoader(new URL[] {jar}, null)) {
+      assertThat(matcher.matches(null, first, null, null, null)).isTrue();
+      assertThat(matcher.matches(null, second, null, null, null)).isTrue();
+      assertThat(reusedForClassLoaders).isEmpty();
+    }
+  }
+
+  private static TransformSafeLogger logger() {
+    return TransformSafeLogger.getLogger(MuzzleMatcherTest.class);
+  }
+
+  private static ConfigProperties config(boolean fingerprintMatching) {
+    ConfigProperties config = mock(ConfigProperties.class);
+    when(config.getBoolean(
+            "otel.javaagent.experimental.muzzle.fingerprint-matching.enabled", false))
+        .thenReturn(fingerprintMatching);
+    return config;
+  }
+
+  public static class LibraryClass {}
+
+  private static class TestModule extends InstrumentationModule
+      implements InstrumentationModuleMuzzle {
+
+    TestModule() {
+      super("test");
+    }
+
+    @Override
+    public List<TypeInstrumentation> typeInstrumentations() {
+      return emptyList();
+    }
+
+    @Override
+    public Map<String, ClassRef> getMuzzleReferences() {
+      return singletonMap(
+          LibraryClass.class.getName(), ClassRef.builder(LibraryClass.class.getName()).build());
+    }
+
+    @Override
+    public void registerMuzzleVirtualFields(VirtualFieldMappingsBuilder builder) {}
+
+    @Override
+    public List<String> getMuzzleHelperClassNames() {
+      return emptyList();
+    }
+  }
+}
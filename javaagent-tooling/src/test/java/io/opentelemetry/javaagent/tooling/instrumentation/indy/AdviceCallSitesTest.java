@@ -0,0 +1,163 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.instrumentation.indy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+class AdviceCallSitesTest {
+
+  private static final MethodType TYPE = MethodType.methodType(String.class);
+  private static final MethodHandle ADVICE = MethodHandles.constant(String.class, "advice");
+
+  @Test
+  void shouldDoNothingUntilLinked() throws Throwable {
+    AdviceCallSites.AdviceCallSite callSite = new AdviceCallSites.AdviceCallSite(TYPE);
+
+    assertThat(invoke(callSite)).isNull();
+  }
+
+  @Test
+  void shouldSwitchAdviceOffAndOn() throws Throwable {
+    String module = "test.SwitchedModule";
+    AdviceCallSites.AdviceCallSite callSite = new AdviceCallSites.AdviceCallSite(TYPE);
+    AdviceCallSites.link(module, callSite, ADVICE, true);
+    assertThat(invoke(callSite)).isEqualTo("advice");
+
+    AdviceCallSites.setEnabled(module, false);
+    assertThat(AdviceCallSites.isEnabled(module)).isFalse();
+    assertThat(invoke(callSite)).isNull();
+
+    AdviceCallSites.setEnabled(module, true);
+    assertThat(AdviceCallSites.isEnabled(module)).isTrue();
+    assertThat(invoke(callSite)).isEqualTo("advice");
+  }
+
+  @Test
+  void shouldLinkDisabledModuleToNoop() throws Throwable {
+    String module = "test.DisabledModule";
+    AdviceCallSites.setEnabled(module, false);
+
+    AdviceCallSites.AdviceCallSite callSite = new AdviceCallSites.AdviceCallSite(TYPE);
+    AdviceCallSites.link(module, callSite, ADVICE, true);
+    assertThat(invoke(callSite)).isNull();
+
+    AdviceCallSites.setEnabled(module, true);
+    assertThat(invoke(callSite)).isEqualTo("advice");
+  }
+
+  @Test
+  void shouldNotSwitchOffFixedAdvice() throws Throwable {
+    String module = "test.FixedModule";
+    AdviceCallSites.AdviceCallSite callSite = new AdviceCallSites.AdviceCallSite(TYPE);
+    AdviceCallSites.link(module, callSite, ADVICE, false);
+
+    AdviceCallSites.setEnabled(module, false);
+    assertThat(invoke(callSite)).isEqualTo("advice");
+  }
+
+  @Test
+  void shouldKeepCallDepthWhenDisabledInNestedCall() throws Throwable {
+    CallDepthAdvice advice = new CallDepthAdvice("test.DisabledInNestedCallModule");
+
+    Object[] outer = advice.enter();
+    Object[] inner = advice.enter();
+    AdviceCallSites.setEnabled(advice.module, false);
+    advice.exit(inner);
+    advice.exit(outer);
+
+    // the nested exit advice ran, so the outer one sees the depth of the outer call
+    assertThat(CallDepthAdvice.events).containsExactly("start", "end");
+    assertThat(CallDepthAdvice.depth.get()).isZero();
+  }
+
+  @Test
+  void shouldKeepCallDepthWhenEnabledInNestedCall() throws Throwable {
+    CallDepthAdvice advice = new CallDepthAdvice("test.EnabledInNestedCallModule");
+    AdviceCallSites.setEnabled(advice.module, false);
+
+    Object[] outer = advice.enter();
+    AdviceCallSites.setEnabled(advice.module, true);
+    Object[] inner = advice.enter();
+    advice.exit(inner);
+    // the outer exit advice doesn't run without its enter advice, it would fail on the enter value
+    advice.exit(outer);
+
+    assertThat(CallDepthAdvice.events).containsExactly("start", "end");
+    assertThat(CallDepthAdvice.depth.get()).isZero();
+  }
+
+  private static String invoke(AdviceCallSites.AdviceCallSite callSite) throws Throwable {
+    return (String) callSite.dynamicInvoker().invokeExact();
+  }
+
+  // call sites of an advice class whose enter advice returns the enter value array, like the advice
+  // rewritten by AdviceTransformer, and that starts a span only for the outermost call
+  private static class CallDepthAdvice {
+    static final List<String> events = new ArrayList<>();
+    static final AtomicInteger depth = new AtomicInteger();
+
+    private static final MethodType ENTER_TYPE = MethodType.methodType(Object[].class);
+    private static final MethodType EXIT_TYPE = MethodType.methodType(void.class, Object[].class);
+
+    final String module;
+    private final AdviceCallSites.AdviceCallSite enterCallSite =
+        new AdviceCallSites.AdviceCallSite(AdviceCallSites.returnSkipped(ENTER_TYPE));
+    private final AdviceCallSites.AdviceCallSite exitCallSite =
+        new AdviceCallSites.AdviceCallSite(EXIT_TYPE);
+
+    CallDepthAdvice(String module) throws ReflectiveOperationException {
+      this.module = module;
+      events.clear();
+      depth.set(0);
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      AdviceCallSites.link(
+          module,
+          enterCallSite,
+          lookup.findStatic(CallDepthAdvice.class, "onEnter", ENTER_TYPE),
+          true);
+      AdviceCallSites.link(
+          module,
+          exitCallSite,
+          AdviceCallSites.skipIfSkipped(
+              lookup.findStatic(CallDepthAdvice.class, "onExit", EXIT_TYPE), 0),
+          false);
+    }
+
+    Object[] enter() throws Throwable {
+      return (Object[]) enterCallSite.dynamicInvoker().invokeExact();
+    }
+
+    void exit(Object[] enterValue) throws Throwable {
+      exitCallSite.dynamicInvoker().invokeExact(enterValue);
+    }
+
+    @Nullable
+    static Object[] onEnter() {
+      if (depth.getAndIncrement() > 0) {
+        return null;
+      }
+      events.add("start");
+      return new Object[] {"span"};
+    }
+
+    static void onExit(Object[] enterValue) {
+      if (depth.decrementAndGet() > 0) {
+        return;
+      }
+      events.add("end");
+      assertThat(enterValue[0]).isEqualTo("span");
+    }
+  }
+}
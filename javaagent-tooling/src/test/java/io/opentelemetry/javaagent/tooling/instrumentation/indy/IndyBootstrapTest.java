@@ -0,0 +1,139 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.instrumentation.indy;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import org.junit.jupiter.api.Test;
+
+class IndyBootstrapTest {
+
+  @Test
+  void switchesPairThroughEnterValue() {
+    assertThat(switchMode(EnterValueArrayAdvice.class, "onEnter"))
+        .isEqualTo(IndyBootstrap.SWITCH_ENTER);
+    assertThat(switchMode(EnterValueArrayAdvice.class, "onExit"))
+        .isEqualTo(IndyBootstrap.SWITCH_EXIT_PREFIX + 1);
+    assertThat(switchMode(EnterValueAdvice.class, "onEnter")).isEqualTo(IndyBootstrap.SWITCH_ENTER);
+    assertThat(switchMode(EnterValueAdvice.class, "onExit"))
+        .isEqualTo(IndyBootstrap.SWITCH_EXIT_PREFIX + 0);
+  }
+
+  @Test
+  void doesNotSwitchPairThatCantCarryTheDecision() {
+    // the enter value can't be replaced with a marker
+    assertThat(switchMode(TypedEnterValueAdvice.class, "onEnter"))
+        .isEqualTo(IndyBootstrap.SWITCH_NEVER);
+    assertThat(switchMode(TypedEnterValueAdvice.class, "onExit"))
+        .isEqualTo(IndyBootstrap.SWITCH_NEVER);
+    // the exit advice doesn't get the enter value
+    assertThat(switchMode(NoEnterValueAdvice.class, "onEnter"))
+        .isEqualTo(IndyBootstrap.SWITCH_NEVER);
+    assertThat(switchMode(NoEnterValueAdvice.class, "onExit"))
+        .isEqualTo(IndyBootstrap.SWITCH_NEVER);
+    // a noop exit advice would assign the return value
+    assertThat(switchMode(AssignReturnedAdvice.class, "onEnter"))
+        .isEqualTo(IndyBootstrap.SWITCH_NEVER);
+    assertThat(switchMode(AssignReturnedAdvice.class, "onExit"))
+        .isEqualTo(IndyBootstrap.SWITCH_NEVER);
+  }
+
+  @Test
+  void switchesUnpairedAdvice() {
+    assertThat(switchMode(EnterOnlyAdvice.class, "onEnter")).isEqualTo(IndyBootstrap.SWITCH_ALWAYS);
+    assertThat(switchMode(ExitOnlyAdvice.class, "onExit")).isEqualTo(IndyBootstrap.SWITCH_ALWAYS);
+    assertThat(switchMode(SkipAdvice.class, "onEnter")).isEqualTo(IndyBootstrap.SWITCH_NEVER);
+  }
+
+  private static String switchMode(Class<?> adviceClass, String methodName) {
+    MethodDescription.InDefinedShape adviceMethod =
+        TypeDescription.ForLoadedType.of(adviceClass)
+            .getDeclaredMethods()
+            .filter(named(methodName))
+            .getOnly();
+    return IndyBootstrap.getSwitchMode(adviceMethod, methodName.equals("onExit"));
+  }
+
+  @SuppressWarnings("unused")
+  static class EnterValueArrayAdvice {
+    @Advice.OnMethodEnter(suppress = Throwable.class, inline = false)
+    static Object[] onEnter() {
+      return new Object[0];
+    }
+
+    @Advice.OnMethodExit(suppress = Throwable.class, inline = false)
+    static void onExit(@Advice.This Object target, @Advice.Enter Object[] enterValue) {}
+  }
+
+  @SuppressWarnings("unused")
+  static class EnterValueAdvice {
+    @Advice.OnMethodEnter(suppress = Throwable.class, inline = false)
+    static Object onEnter() {
+      return null;
+    }
+
+    @Advice.OnMethodExit(suppress = Throwable.class, inline = false)
+    static void onExit(@Advice.Enter Object enterValue) {}
+  }
+
+  @SuppressWarnings("unused")
+  static class TypedEnterValueAdvice {
+    @Advice.OnMethodEnter(suppress = Throwable.class, inline = false)
+    static String onEnter() {
+      return null;
+    }
+
+    @Advice.OnMethodExit(suppress = Throwable.class, inline = false)
+    static void onExit(@Advice.Enter String enterValue) {}
+  }
+
+  @SuppressWarnings("unused")
+  static class NoEnterValueAdvice {
+    @Advice.OnMethodEnter(suppress = Throwable.class, inline = false)
+    static void onEnter() {}
+
+    @Advice.OnMethodExit(suppress = Throwable.class, inline = false)
+    static void onExit() {}
+  }
+
+  @SuppressWarnings("unused")
+  static class AssignReturnedAdvice {
+    @Advice.OnMethodEnter(suppress = Throwable.class, inline = false)
+    static Object onEnter() {
+      return null;
+    }
+
+    @Advice.AssignReturned.ToReturned
+    @Advice.OnMethodExit(suppress = Throwable.class, inline = false)
+    static Object onExit(@Advice.Enter Object enterValue) {
+      return null;
+    }
+  }
+
+  @SuppressWarnings("unused")
+  static class EnterOnlyAdvice {
+    @Advice.OnMethodEnter(suppress = Throwable.class, inline = false)
+    static void onEnter() {}
+  }
+
+  @SuppressWarnings("unused")
+  static class ExitOnlyAdvice {
+    @Advice.OnMethodExit(suppress = Throwable.class, inline = false)
+    static void onExit() {}
+  }
+
+  @SuppressWarnings("unused")
+  static class SkipAdvice {
+    @Advice.OnMethodEnter(skipOn = Advice.OnDefaultValue.class, inline = false)
+    static boolean onEnter() {
+      return true;
+    }
+  }
+}
@@ -9,14 +9,28 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Named.named;
 
-import org.junit.jupiter.api.Test;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
 
 class TrieTest {
-  @Test
-  void shouldMatchExactString() {
-    Trie<Integer> trie =
-        Trie.<Integer>builder().put("abc", 0).put("abcd", 10).put("abcde", 20).build();
+
+  static Stream<Arguments> builders() {
+    Supplier<Trie.Builder<Integer>> defaultBuilder = Trie::builder;
+    Supplier<Trie.Builder<Integer>> compactBuilder = Trie::compactBuilder;
+    return Stream.of(
+        Arguments.of(named("default", defaultBuilder)),
+        Arguments.of(named("compact", compactBuilder)));
+  }
+
+  @ParameterizedTest
+  @MethodSource("builders")
+  void shouldMatchExactString(Supplier<Trie.Builder<Integer>> builder) {
+    Trie<Integer> trie = builder.get().put("abc", 0).put("abcd", 10).put("abcde", 20).build();
 
     assertNull(trie.getOrNull("ab"));
     assertFalse(trie.contains("ab"));
@@ -26,10 +40,10 @@ class TrieTest {
     assertTrue(trie.contains("abcde"));
   }
 
-  @Test
-  void shouldReturnLastMatchedValue() {
-    Trie<Integer> trie =
-        Trie.<Integer>builder().put("abc", 0).put("abcde", 10).put("abcdfgh", 20).build();
+  @ParameterizedTest
+  @MethodSource("builders")
+  void shouldReturnLastMatchedValue(Supplier<Trie.Builder<Integer>> builder) {
+    Trie<Integer> trie = builder.get().put("abc", 0).put("abcde", 10).put("abcdfgh", 20).build();
 
     assertNull(trie.getOrNull("ababababa"));
     assertEquals(0, trie.getOrNull("abcd"));
@@ -37,17 +51,50 @@ class TrieTest {
     assertEquals(20, trie.getOrNull("abcdfghjkl"));
   }
 
-  @Test
-  void shouldOverwritePreviousValue() {
-    Trie<Integer> trie = Trie.<Integer>builder().put("abc", 0).put("abc", 12).build();
+  @ParameterizedTest
+  @MethodSource("builders")
+  void shouldOverwritePreviousValue(Supplier<Trie.Builder<Integer>> builder) {
+    Trie<Integer> trie = builder.get().put("abc", 0).put("abc", 12).build();
 
     assertEquals(12, trie.getOrNull("abc"));
   }
 
-  @Test
-  void shouldReturnDefaultValueWhenNotMatched() {
-    Trie<Integer> trie = Trie.<Integer>builder().put("abc", 42).build();
+  @ParameterizedTest
+  @MethodSource("builders")
+  void shouldReturnDefaultValueWhenNotMatched(Supplier<Trie.Builder<Integer>> builder) {
+    Trie<Integer> trie = builder.get().put("abc", 42).build();
 
     assertEquals(-1, trie.getOrDefault("acdc", -1));
   }
+
+  @ParameterizedTest
+  @MethodSource("builders")
+  void shouldNotMatchInsideOfSharedPrefix(Supplier<Trie.Builder<Integer>> builder) {
+    Trie<Integer> trie =
+        builder.get().put("org.springframework.", 0).put("org.springframework.boot.", 1).build();
+
+    assertNull(trie.getOrNull("org.spring"));
+    assertNull(trie.getOrNull("org.springframework"));
+    assertNull(trie.getOrNull("org.springframewerk.Foo"));
+    assertEquals(0, trie.getOrNull("org.springframework.Foo"));
+    assertEquals(0, trie.getOrNull("org.springframework.bo"));
+    assertEquals(1, trie.getOrNull("org.springframework.boot.Foo"));
+    assertNull(trie.getOrNull(""));
+  }
+
+  @ParameterizedTest
+  @MethodSource("builders")
+  void shouldMatchManyBranches(Supplier<Trie.Builder<Integer>> builder) {
+    Trie.Builder<Integer> trieBuilder = builder.get();
+    for (int i = 0; i < 100; i++) {
+      trieBuilder.put("com.example." + i + ".", i);
+    }
+    Trie<Integer> trie = trieBuilder.build();
+
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, trie.getOrNull("com.example." + i + ".Foo"));
+    }
+    assertNull(trie.getOrNull("com.example.100.Foo"));
+    assertNull(trie.getOrNull("com.example.Foo"));
+  }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package net.bytebuddy.agent.builder;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static net.bytebuddy.matcher.ElementMatchers.hasSuperType;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.nameEndsWith;
+import static net.bytebuddy.matcher.ElementMatchers.nameStartsWith;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import net.bytebuddy.agent.builder.AgentBuilderUtil.TransformationIndex;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+import org.junit.jupiter.api.Test;
+
+class AgentBuilderUtilTest {
+
+  private static final Set<String> OBJECT = singleton("java.lang.Object");
+
+  @Test
+  void selectsByExactName() throws Exception {
+    AgentBuilder.RawMatcher first = matcher(named("com.example.First"));
+    AgentBuilder.RawMatcher second = matcher(named("com.example.Second"));
+    TransformationIndex<AgentBuilder.RawMatcher> index = index(first, second);
+
+    assertThat(index.select("com.example.First", OBJECT)).containsExactly(first);
+    assertThat(index.select("com.example.Second", OBJECT)).containsExactly(second);
+    assertThat(index.select("com.example.Third", OBJECT)).isEmpty();
+    assertThat(index.matchesName("com.example.First")).isTrue();
+    assertThat(index.matchesName("com.example.Third")).isFalse();
+  }
+
+  @Test
+  void selectsByPrefix() throws Exception {
+    AgentBuilder.RawMatcher shorter = matcher(nameStartsWith("com.example."));
+    AgentBuilder.RawMatcher longer = matcher(nameStartsWith("com.example.impl."));
+    TransformationIndex<AgentBuilder.RawMatcher> index = index(shorter, longer);
+
+    assertThat(index.select("com.example.impl.Type", OBJECT)).containsExactly(shorter, longer);
+    assertThat(index.select("com.example.Type", OBJECT)).containsExactly(shorter);
+    assertThat(index.select("com.other.Type", OBJECT)).isEmpty();
+  }
+
+  @Test
+  void selectsBySuperType() throws Exception {
+    AgentBuilder.RawMatcher subtype = matcher(hasSuperType(named("com.example.Base")));
+    TransformationIndex<AgentBuilder.RawMatcher> index = index(subtype);
+
+    assertThat(index.select("com.example.Impl", superTypes("com.example.Base")))
+        .containsExactly(subtype);
+    // super type matchers also match the type itself
+    assertThat(index.select("com.example.Base", OBJECT)).containsExactly(subtype);
+    assertThat(index.select("com.example.Impl", OBJECT)).isEmpty();
+  }
+
+  @Test
+  void selectsByAnyNameOfDisjunction() throws Exception {
+    AgentBuilder.RawMatcher disjunction =
+        matcher(named("com.example.First").or(named("com.example.Second")));
+    TransformationIndex<AgentBuilder.RawMatcher> index = index(disjunction);
+
+    assertThat(index.select("com.example.First", OBJECT)).containsExactly(disjunction);
+    assertThat(index.select("com.example.Second", OBJECT)).containsExactly(disjunction);
+    assertThat(index.select("com.example.Third", OBJECT)).isEmpty();
+  }
+
+  @Test
+  void alwaysSelectsUndecomposableMatchers() throws Exception {
+    AgentBuilder.RawMatcher exact = matcher(named("com.example.First"));
+    AgentBuilder.RawMatcher undecomposable = matcher(nameEndsWith("Service"));
+    // a disjunction can't be decomposed when one of its elements can't be
+    AgentBuilder.RawMatcher disjunction =
+        matcher(named("com.example.Second").or(nameEndsWith("Client")));
+    TransformationIndex<AgentBuilder.RawMatcher> index = index(exact, undecomposable, disjunction);
+
+    assertThat(index.select("com.example.First", OBJECT))
+        .containsExactly(exact, undecomposable, disjunction);
+    assertThat(index.select("com.example.Other", OBJECT))
+        .containsExactly(undecomposable, disjunction);
+  }
+
+  @Test
+  void keepsOriginalOrder() throws Exception {
+    AgentBuilder.RawMatcher subtype = matcher(hasSuperType(named("com.example.Base")));
+    AgentBuilder.RawMatcher undecomposable = matcher(nameEndsWith("Impl"));
+    AgentBuilder.RawMatcher prefixed = matcher(nameStartsWith("com.example."));
+    AgentBuilder.RawMatcher exact = matcher(named("com.example.Impl"));
+    TransformationIndex<AgentBuilder.RawMatcher> index =
+        index(exact, subtype, undecomposable, prefixed);
+
+    assertThat(index.select("com.example.Impl", superTypes("com.example.Base")))
+        .containsExactly(exact, subtype, undecomposable, prefixed);
+    // the selection of the previous call is not carried over
+    assertThat(index.select("com.other.Impl", OBJECT)).containsExactly(undecomposable);
+  }
+
+  @Test
+  void reusesSelectionOfSingleName() throws Exception {
+    TransformationIndex<AgentBuilder.RawMatcher> index =
+        index(matcher(named("com.example.First")), matcher(named("com.example.Second")));
+
+    assertThat(index.select("com.example.First", OBJECT))
+        .isSameAs(index.select("com.example.First", OBJECT));
+  }
+
+  private static AgentBuilder.RawMatcher matcher(ElementMatcher<? super TypeDescription> matcher) {
+    return new AgentBuilder.RawMatcher.ForElementMatchers(matcher);
+  }
+
+  private static TransformationIndex<AgentBuilder.RawMatcher> index(
+      AgentBuilder.RawMatcher... matchers) throws Exception {
+    List<AgentBuilder.RawMatcher> transformations = asList(matchers);
+    return AgentBuilderUtil.createIndex(transformations, Function.identity());
+  }
+
+  private static Set<String> superTypes(String... names) {
+    Set<String> result = new HashSet<>(asList(names));
+    result.add("java.lang.Object");
+    return result;
+  }
+}
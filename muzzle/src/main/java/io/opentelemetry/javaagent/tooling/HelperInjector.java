@@ -9,6 +9,8 @@ import static java.util.logging.Level.FINE;
 import static java.util.logging.Level.SEVERE;
 
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import io.opentelemetry.instrumentation.api.internal.SupportabilityMetrics;
+import io.opentelemetry.instrumentation.api.internal.SupportabilityMetrics.CounterNames;
 import io.opentelemetry.instrumentation.api.internal.cache.Cache;
 import io.opentelemetry.javaagent.bootstrap.HelperResources;
 import io.opentelemetry.javaagent.bootstrap.InjectedClassHelper;
@@ -28,6 +30,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -275,20 +278,15 @@ public class HelperInjector implements Transformer {
 
       Map<String, HelperClassInjector> map =
           helperInjectors.computeIfAbsent(classLoader, (unused) -> new ConcurrentHashMap<>());
-      for (Map.Entry<String, Supplier<byte[]>> entry : classnameToBytes.entrySet()) {
-        // for boot loader we use a placeholder injector, we only need these classes to be
-        // in the injected classes map to later tell which of the classes are injected
-        HelperClassInjector injector =
-            isBootClassLoader(classLoader)
-                ? BOOT_CLASS_INJECTOR
-                : new HelperClassInjector(entry.getValue());
-        map.put(entry.getKey(), injector);
-      }
 
       // For boot loader we define the classes immediately. For other loaders we load them
       // from the loadClass method of the class loader.
       if (isBootClassLoader(classLoader)) {
-        injectBootstrapClassLoader(classnameToBytes);
+        injectBootstrapClassLoader(map, classnameToBytes);
+      } else {
+        for (Map.Entry<String, Supplier<byte[]>> entry : classnameToBytes.entrySet()) {
+          map.put(entry.getKey(), new HelperClassInjector(entry.getValue()));
+        }
       }
     } catch (Exception e) {
       if (logger.isLoggable(SEVERE)) {
@@ -310,6 +308,35 @@ public class HelperInjector implements Transformer {
     return result;
   }
 
+  private void injectBootstrapClassLoader(
+      Map<String, HelperClassInjector> injectedClasses, Map<String, Supplier<byte[]>> inject)
+      throws IOException {
+    // Many modules share helpers (e.g. the virtual field classes), only define the ones that no
+    // other module has injected yet. The lock makes sure that a module does not skip a class that
+    // another module is still defining.
+    synchronized (BOOT_CLASS_INJECTOR) {
+      Map<String, Supplier<byte[]>> missing = new LinkedHashMap<>();
+      for (Map.Entry<String, Supplier<byte[]>> entry : inject.entrySet()) {
+        if (!injectedClasses.containsKey(entry.getKey())) {
+          missing.put(entry.getKey(), entry.getValue());
+        }
+      }
+      if (missing.isEmpty()) {
+        return;
+      }
+
+      long startTime = System.nanoTime();
+      injectBootstrapClassLoader(missing);
+      recordInjection(missing.size(), startTime);
+
+      // for boot loader we use a placeholder injector, we only need these classes to be
+      // in the injected classes map to later tell which of the classes are injected
+      for (String className : missing.keySet()) {
+        injectedClasses.put(className, BOOT_CLASS_INJECTOR);
+      }
+    }
+  }
+
   private Map<String, Class<?>> injectBootstrapClassLoader(Map<String, Supplier<byte[]>> inject)
       throws IOException {
 
@@ -338,6 +365,14 @@ public class HelperInjector implements Transformer {
     }
   }
 
+  private static void recordInjection(int classCount, long startTime) {
+    SupportabilityMetrics supportability = SupportabilityMetrics.instance();
+    supportability.addToCounter(CounterNames.HELPER_CLASSES_INJECTED, classCount);
+    supportability.addToCounter(
+        CounterNames.HELPER_INJECTION_TIME_MICROS,
+        TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+  }
+
   private static File createTempDir() throws IOException {
     return Files.createTempDirectory("opentelemetry-temp-jars").toFile();
   }
@@ -403,11 +438,13 @@ public class HelperInjector implements Transformer {
       // if security manager is present byte buddy calls
       // checkPermission(new ReflectPermission("suppressAccessChecks")) so we must call class
       // injection with AccessController.doPrivileged when security manager is enabled
+      long startTime = System.nanoTime();
       Map<String, Class<?>> result =
           execute(
               () ->
                   new ClassInjector.UsingReflection(classLoader, PROTECTION_DOMAIN)
                       .injectRaw(Collections.singletonMap(className, bytes.get())));
+      recordInjection(1, startTime);
       return result.get(className);
     }
   }
@@ -7,6 +7,7 @@ package io.opentelemetry.javaagent.tooling.muzzle;
 
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import io.opentelemetry.instrumentation.api.internal.cache.Cache;
+import io.opentelemetry.instrumentation.api.internal.cache.CacheStats;
 import io.opentelemetry.javaagent.bootstrap.InstrumentationHolder;
 import io.opentelemetry.javaagent.bootstrap.VirtualFieldAccessorMarker;
 import io.opentelemetry.javaagent.bootstrap.internal.AgentInstrumentationConfig;
@@ -33,19 +34,15 @@ import net.bytebuddy.pool.TypePool;
 import net.bytebuddy.utility.JavaModule;
 
 /**
+ * A {@link AgentBuilder.PoolStrategy} that caches type resolutions per class loader.
  *
+ * <p>Each class loader gets its own {@link LoaderResolutionCache}, held in a cache with weak class
+ * loader keys. This avoids allocating a composite loader and class name key for every lookup, keeps
+ * the resolutions of one class loader from evicting those of another, and drops all resolutions of
+ * a class loader at once when it is collected.
  *
- * <ul>
- *   There two core parts to the cache...
- *   <li>a cache of ClassLoader to WeakReference&lt;ClassLoader&gt;
- *   <li>a single cache of TypeResolutions for all ClassLoaders - keyed by a custom composite key of
- *       ClassLoader and class name
- * </ul>
- *
- * <p>This design was chosen to create a single limited size cache that can be adjusted for the
- * entire application -- without having to create a large number of WeakReference objects.
- *
- * <p>Eviction is handled through a size restriction
+ * <p>Eviction is handled through a size restriction within a class loader and a budget for the
+ * total size of the caches of all class loaders.
  */
 public class AgentCachingPoolStrategy implements AgentBuilder.PoolStrategy {
 
@@ -57,29 +54,17 @@ public class AgentCachingPoolStrategy implements AgentBuilder.PoolStrategy {
           .getBoolean("otel.instrumentation.internal-reflection.enabled", true);
   private static final Method findLoadedClassMethod = getFindLoadedClassMethod();
 
-  static final int TYPE_CAPACITY = 64;
-
-  static final int BOOTSTRAP_HASH = 7236344; // Just a random number
-
-  /**
-   * Cache of recent ClassLoader WeakReferences; used to...
-   *
-   * <ul>
-   *   <li>Reduced number of WeakReferences created
-   *   <li>Allow for quick fast path equivalence check of composite keys
-   * </ul>
-   */
-  final Cache<ClassLoader, WeakReference<ClassLoader>> loaderRefCache = Cache.weak();
-
-  /**
-   * Single shared Type.Resolution cache -- uses a composite key -- conceptually of loader & name
-   */
-  final Cache<TypeCacheKey, TypePool.Resolution> sharedResolutionCache =
-      Cache.bounded(TYPE_CAPACITY);
+  private final LoaderResolutionCache.Stats stats = new LoaderResolutionCache.Stats();
+  final LoaderResolutionCache.Budget budget =
+      new LoaderResolutionCache.Budget(LoaderResolutionCache.TOTAL_CAPACITY);
+  private final Cache<String, TypePool.Resolution> bootstrapResolutions =
+      Cache.bounded(LoaderResolutionCache.BOOTSTRAP_CAPACITY);
 
   // fast path for bootstrap
-  final SharedResolutionCacheAdapter bootstrapCacheProvider =
-      new SharedResolutionCacheAdapter(BOOTSTRAP_HASH, null, sharedResolutionCache);
+  final LoaderResolutionCache bootstrapCacheProvider =
+      new LoaderResolutionCache(null, bootstrapResolutions, stats, budget);
+
+  final Cache<ClassLoader, LoaderResolutionCache> loaderCaches = Cache.weak();
 
   private final AgentLocationStrategy locationStrategy;
 
@@ -146,170 +131,21 @@ public class AgentCachingPoolStrategy implements AgentBuilder.PoolStrategy {
     return typePool(classFileLocator, classLoader);
   }
 
-  private TypePool.CacheProvider getCacheProvider(ClassLoader classLoader) {
-    if (classLoader == null) {
-      return bootstrapCacheProvider;
-    }
-
-    WeakReference<ClassLoader> loaderRef =
-        loaderRefCache.computeIfAbsent(classLoader, WeakReference::new);
-
-    int loaderHash = System.identityHashCode(classLoader);
-    return new SharedResolutionCacheAdapter(loaderHash, loaderRef, sharedResolutionCache);
-  }
-
-  /**
-   * TypeCacheKey is key for the sharedResolutionCache. Conceptually, it is a mix of ClassLoader &
-   * class name.
-   *
-   * <p>For efficiency & GC purposes, it is actually composed of loaderHash &
-   * WeakReference&lt;ClassLoader&gt;
-   *
-   * <p>The loaderHash exists to avoid calling get & strengthening the Reference.
-   */
-  private static final class TypeCacheKey {
-    private final int loaderHash;
-    @Nullable private final WeakReference<ClassLoader> loaderRef;
-    private final String className;
-
-    private final int hashCode;
-
-    TypeCacheKey(int loaderHash, WeakReference<ClassLoader> loaderRef, String className) {
-      // classes in java package are always loaded from boot loader
-      // set loader to boot loader to avoid creating multiple cache entries
-      this.loaderHash = className.startsWith("java.") ? BOOTSTRAP_HASH : loaderHash;
-      this.loaderRef = className.startsWith("java.") ? null : loaderRef;
-      this.className = className;
-
-      hashCode = 31 * this.loaderHash + className.hashCode();
-    }
-
-    @Override
-    public boolean equals(@Nullable Object obj) {
-      if (obj == this) {
-        return true;
-      }
-      if (!(obj instanceof TypeCacheKey)) {
-        return false;
-      }
-
-      TypeCacheKey other = (TypeCacheKey) obj;
-
-      if (loaderHash != other.loaderHash) {
-        return false;
-      }
-
-      if (!className.equals(other.className)) {
-        return false;
-      }
-
-      // Fastpath loaderRef equivalence -- works because of WeakReference cache used
-      // Also covers the bootstrap null loaderRef case
-      if (loaderRef == other.loaderRef) {
-        return true;
-      } else if (loaderRef == null || other.loaderRef == null) {
-        return false;
-      }
-
-      // need to perform a deeper loader check -- requires calling Reference.get
-      // which can strengthen the Reference, so deliberately done last
-
-      // If either reference has gone null, they aren't considered equivalent
-      // Technically, this is a bit of violation of equals semantics, since
-      // two equivalent references can become not equivalent.
-
-      // In this case, it is fine because that means the ClassLoader is no
-      // longer live, so the entries will never match anyway and will fall
-      // out of the cache.
-      ClassLoader thisLoader = loaderRef.get();
-      if (thisLoader == null) {
-        return false;
-      }
-
-      ClassLoader otherLoader = other.loaderRef.get();
-      if (otherLoader == null) {
-        return false;
-      }
-
-      return thisLoader == otherLoader;
-    }
-
-    @Override
-    public int hashCode() {
-      return hashCode;
-    }
-
-    @Override
-    public String toString() {
-      return "TypeCacheKey{"
-          + "loaderHash="
-          + loaderHash
-          + ", loaderRef="
-          + loaderRef
-          + ", className='"
-          + className
-          + '\''
-          + '}';
-    }
+  /** Returns the hit, miss and eviction counts of the type resolution caches. */
+  public CacheStats getCacheStats() {
+    return new CacheStats(stats.hits.sum(), stats.misses.sum(), stats.evictions.sum());
   }
 
-  private static final class SharedResolutionCacheAdapter implements TypePool.CacheProvider {
-    private static final String OBJECT_NAME = "java.lang.Object";
-    private static final TypePool.Resolution OBJECT_RESOLUTION =
-        new TypePool.Resolution.Simple(TypeDescription.ForLoadedType.of(Object.class));
-
-    private final int loaderHash;
-    private final WeakReference<ClassLoader> loaderRef;
-    private final Cache<TypeCacheKey, TypePool.Resolution> sharedResolutionCache;
-
-    SharedResolutionCacheAdapter(
-        int loaderHash,
-        WeakReference<ClassLoader> loaderRef,
-        Cache<TypeCacheKey, TypePool.Resolution> sharedResolutionCache) {
-      this.loaderHash = loaderHash;
-      this.loaderRef = loaderRef;
-      this.sharedResolutionCache = sharedResolutionCache;
-    }
-
-    @Override
-    public TypePool.Resolution find(String className) {
-      if (OBJECT_NAME.equals(className)) {
-        return OBJECT_RESOLUTION;
-      }
-      // Skip cache for the type that is currently being transformed.
-      // If class has been transformed by another agent or by class loader it is possible that the
-      // cached TypeDescription isn't the same as the one built from the actual bytes that are
-      // being defined. For example if another agent adds an interface to the class then returning
-      // the cached description that does not have that interface would result in bytebuddy removing
-      // that interface.
-      if (AgentTooling.isTransforming(loaderRef != null ? loaderRef.get() : null, className)) {
-        return null;
-      }
-
-      TypePool.Resolution existingResolution =
-          sharedResolutionCache.get(new TypeCacheKey(loaderHash, loaderRef, className));
-      if (existingResolution != null) {
-        return existingResolution;
-      }
-
-      return null;
-    }
-
-    @Override
-    @CanIgnoreReturnValue
-    public TypePool.Resolution register(String className, TypePool.Resolution resolution) {
-      if (OBJECT_NAME.equals(className)) {
-        return resolution;
-      }
-
-      sharedResolutionCache.put(new TypeCacheKey(loaderHash, loaderRef, className), resolution);
-      return resolution;
-    }
-
-    @Override
-    public void clear() {
-      // Allowing the high-level eviction policy make the clearing decisions
+  // visible for testing
+  LoaderResolutionCache getCacheProvider(@Nullable ClassLoader classLoader) {
+    if (classLoader == null) {
+      return bootstrapCacheProvider;
     }
+    return loaderCaches.computeIfAbsent(
+        classLoader,
+        loader ->
+            new LoaderResolutionCache(
+                new WeakReference<>(loader), bootstrapResolutions, stats, budget));
   }
 
   /** Based on TypePool.Default.WithLazyResolution */
@@ -0,0 +1,296 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package io.opentelemetry.javaagent.tooling.muzzle;
+
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import io.opentelemetry.instrumentation.api.internal.StripedCounter;
+import io.opentelemetry.instrumentation.api.internal.cache.Cache;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.pool.TypePool;
+
+/**
+ * The type resolutions cached for a single class loader.
+ *
+ * <p>Resolutions are kept in a 4-way set-associative table made of parallel arrays indexed by the
+ * class name hash, so neither lookups nor entries need a key object. Failed resolutions, i.e. types
+ * that are not present in the class loader, are cached the same way as successful ones. The table
+ * starts small, since most class loaders only ever resolve a handful of types, and doubles up to
+ * {@link #MAX_CAPACITY} as long as the {@link Budget} shared by the caches of all class loaders
+ * allows it. Once it can't grow a new entry replaces the least recently used entry of its bucket.
+ *
+ * <p>Types of the bootstrap class loader, and types in {@code java} packages which are always
+ * loaded by it, are cached in a bounded cache that all class loaders share and that can be read
+ * without locking.
+ *
+ * <p>The cache is only reachable through a weak class loader key, so all of its entries are dropped
+ * at once when the class loader is collected, and its capacity is returned to the budget.
+ */
+final class LoaderResolutionCache implements TypePool.CacheProvider {
+
+  static final int INITIAL_CAPACITY = 16;
+  static final int MAX_CAPACITY = 1024;
+  static final int TOTAL_CAPACITY = 4 * 1024;
+  static final int BOOTSTRAP_CAPACITY = 1024;
+
+  private static final int WAYS = 4;
+
+  private static final String OBJECT_NAME = "java.lang.Object";
+  private static final TypePool.Resolution OBJECT_RESOLUTION =
+      new TypePool.Resolution.Simple(TypeDescription.ForLoadedType.of(Object.class));
+
+  // null for the bootstrap loader
+  @Nullable private final WeakReference<ClassLoader> loaderRef;
+  // classes in java package are always loaded from boot loader, this cache is used for them to
+  // avoid creating an entry for them in every class loader
+  private final Cache<String, TypePool.Resolution> bootstrapResolutions;
+  private final Stats stats;
+  private final Budget budget;
+  // null for the bootstrap loader, which only uses the bootstrap resolutions
+  @Nullable private final Budget.Reservation reservation;
+
+  // all guarded by this
+  private String[] names;
+  private TypePool.Resolution[] resolutions;
+  private int[] lastAccess;
+  private int clock;
+
+  LoaderResolutionCache(
+      @Nullable WeakReference<ClassLoader> loaderRef,
+      Cache<String, TypePool.Resolution> bootstrapResolutions,
+      Stats stats,
+      Budget budget) {
+    this.loaderRef = loaderRef;
+    this.bootstrapResolutions = bootstrapResolutions;
+    this.stats = stats;
+    this.budget = budget;
+    int capacity = loaderRef != null ? INITIAL_CAPACITY : 0;
+    names = new String[capacity];
+    resolutions = new TypePool.Resolution[capacity];
+    lastAccess = new int[capacity];
+    reservation = loaderRef != null ? budget.register(this, capacity) : null;
+  }
+
+  @Override
+  @Nullable
+  public TypePool.Resolution find(String className) {
+    if (OBJECT_NAME.equals(className)) {
+      return OBJECT_RESOLUTION;
+    }
+    // Skip cache for the type that is currently being transformed.
+    // If class has been transformed by another agent or by class loader it is possible that the
+    // cached TypeDescription isn't the same as the one built from the actual bytes that are
+    // being defined. For example if another agent adds an interface to the class then returning
+    // the cached description that does not have that interface would result in bytebuddy removing
+    // that interface.
+    if (AgentTooling.isTransforming(loaderRef != null ? loaderRef.get() : null, className)) {
+      return null;
+    }
+    if (isBootstrapType(className)) {
+      TypePool.Resolution resolution = bootstrapResolutions.get(className);
+      (resolution != null ? stats.hits : stats.misses).increment();
+      return resolution;
+    }
+    return get(className);
+  }
+
+  @Override
+  @CanIgnoreReturnValue
+  public TypePool.Resolution register(String className, TypePool.Resolution resolution) {
+    if (OBJECT_NAME.equals(className)) {
+      return resolution;
+    }
+    if (isBootstrapType(className)) {
+      bootstrapResolutions.put(className, resolution);
+    } else {
+      put(className, resolution);
+    }
+    return resolution;
+  }
+
+  @Override
+  public void clear() {
+    // Allowing the high-level eviction policy make the clearing decisions
+  }
+
+  private boolean isBootstrapType(String className) {
+    return reservation == null || className.startsWith("java.");
+  }
+
+  @Nullable
+  private synchronized TypePool.Resolution get(String className) {
+    int start = bucketStart(className, names.length);
+    for (int i = start; i < start + WAYS; i++) {
+      if (className.equals(names[i])) {
+        lastAccess[i] = ++clock;
+        stats.hits.increment();
+        return resolutions[i];
+      }
+    }
+    stats.misses.increment();
+    return null;
+  }
+
+  private synchronized void put(String className, TypePool.Resolution resolution) {
+    int slot = findSlot(className);
+    if (slot < 0
+        && names.length < MAX_CAPACITY
+        && budget.tryReserve(reservation, names.length)) {
+      resize(names.length * 2);
+      slot = findSlot(className);
+    }
+    if (slot < 0) {
+      slot = leastRecentlyUsed(bucketStart(className, names.length));
+      stats.evictions.increment();
+    }
+    names[slot] = className;
+    resolutions[slot] = resolution;
+    lastAccess[slot] = ++clock;
+  }
+
+  // returns the slot holding the class name or an empty slot in its bucket, or -1 if there is none
+  private int findSlot(String className) {
+    int start = bucketStart(className, names.length);
+    int empty = -1;
+    for (int i = start; i < start + WAYS; i++) {
+      if (names[i] == null) {
+        if (empty < 0) {
+          empty = i;
+        }
+      } else if (className.equals(names[i])) {
+        return i;
+      }
+    }
+    return empty;
+  }
+
+  private int leastRecentlyUsed(int start) {
+    int victim = start;
+    for (int i = start + 1; i < start + WAYS; i++) {
+      // compare the difference so that the clock can overflow
+      if (lastAccess[i] - lastAccess[victim] < 0) {
+        victim = i;
+      }
+    }
+    return victim;
+  }
+
+  private void resize(int capacity) {
+    String[] oldNames = names;
+    TypePool.Resolution[] oldResolutions = resolutions;
+    int[] oldLastAccess = lastAccess;
+    names = new String[capacity];
+    resolutions = new TypePool.Resolution[capacity];
+    lastAccess = new int[capacity];
+    for (int i = 0; i < oldNames.length; i++) {
+      if (oldNames[i] == null) {
+        continue;
+      }
+      // a bucket of the doubled table receives entries from a single old bucket, so there is
+      // always an empty slot left
+      int slot = findSlot(oldNames[i]);
+      names[slot] = oldNames[i];
+      resolutions[slot] = oldResolutions[i];
+      lastAccess[slot] = oldLastAccess[i];
+    }
+  }
+
+  private static int bucketStart(String className, int capacity) {
+    int hash = className.hashCode();
+    hash ^= hash >>> 16;
+    return (hash & (capacity / WAYS - 1)) * WAYS;
+  }
+
+  // visible for testing
+  synchronized int size() {
+    int size = 0;
+    for (String name : names) {
+      if (name != null) {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Bounds the total capacity of the caches of all class loaders. Every cache gets its initial
+   * capacity, growing it further has to be reserved from the budget. The capacity of a cache is
+   * returned once the cache is collected together with its class loader.
+   */
+  static final class Budget {
+    private final int capacity;
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final ReferenceQueue<LoaderResolutionCache> collected = new ReferenceQueue<>();
+    // keeps the reservations reachable until they are released
+    private final Set<Reservation> reservations = ConcurrentHashMap.newKeySet();
+
+    Budget(int capacity) {
+      this.capacity = capacity;
+    }
+
+    Reservation register(LoaderResolutionCache cache, int initialCapacity) {
+      releaseCollected();
+      Reservation reservation = new Reservation(cache, collected, initialCapacity);
+      reservations.add(reservation);
+      reserved.addAndGet(initialCapacity);
+      return reservation;
+    }
+
+    boolean tryReserve(Reservation reservation, int additionalCapacity) {
+      releaseCollected();
+      int current;
+      do {
+        current = reserved.get();
+        if (current + additionalCapacity > capacity) {
+          return false;
+        }
+      } while (!reserved.compareAndSet(current, current + additionalCapacity));
+      reservation.capacity.addAndGet(additionalCapacity);
+      return true;
+    }
+
+    // visible for testing
+    int reserved() {
+      releaseCollected();
+      return reserved.get();
+    }
+
+    private void releaseCollected() {
+      for (Reference<?> ref = collected.poll(); ref != null; ref = collected.poll()) {
+        Reservation reservation = (Reservation) ref;
+        if (reservations.remove(reservation)) {
+          reserved.addAndGet(-reservation.capacity.get());
+        }
+      }
+    }
+
+    static final class Reservation extends WeakReference<LoaderResolutionCache> {
+      // grows while the cache is reachable, read after it was collected
+      private final AtomicInteger capacity;
+
+      private Reservation(
+          LoaderResolutionCache cache,
+          ReferenceQueue<LoaderResolutionCache> queue,
+          int capacity) {
+        super(cache, queue);
+        this.capacity = new AtomicInteger(capacity);
+      }
+    }
+  }
+
+  /** Counters shared by the caches of all class loaders. */
+  static final class Stats {
+    final StripedCounter hits = new StripedCounter();
+    final StripedCounter misses = new StripedCounter();
+    final StripedCounter evictions = new StripedCounter();
+  }
+}
@@ -5,6 +5,7 @@
 
 package io.opentelemetry.javaagent.tooling.muzzle;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 
@@ -13,18 +14,29 @@ import io.opentelemetry.javaagent.tooling.muzzle.references.ClassRef;
 import io.opentelemetry.javaagent.tooling.muzzle.references.FieldRef;
 import io.opentelemetry.javaagent.tooling.muzzle.references.Flag;
 import io.opentelemetry.javaagent.tooling.muzzle.references.MethodRef;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import net.bytebuddy.description.field.FieldDescription;
 import net.bytebuddy.description.method.MethodDescription;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.pool.TypePool;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
 
 /** Matches a set of references against a class loader. */
@@ -87,6 +99,102 @@ public final class ReferenceMatcher {
     return mismatches;
   }
 
+  /**
+   * Returns a fingerprint of the referenced library classes and of all their supertypes, or {@code
+   * null} if some of them can't be read. Class loaders with the same fingerprint load the same class
+   * files for all these classes, so that the references are expected to match them in the same way.
+   *
+   * <p>The supertypes of the helper classes are fingerprinted too, helper classes are checked
+   * against the abstract methods they inherit. Classes in {@code java.*} packages are left out, only
+   * the bootstrap class loader can define them. The fingerprint is a SHA-256 digest, so that class
+   * loaders with different class files don't share a fingerprint by accident.
+   *
+   * @param loader Classloader to fingerprint (cannot be {@code null}, must pass "bootstrap proxy"
+   *     instead of bootstrap class loader)
+   */
+  @Nullable
+  public String libraryFingerprint(ClassLoader loader) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      return null;
+    }
+
+    Deque<String> pending = new ArrayDeque<>();
+    for (ClassRef reference : references.values()) {
+      if (helperClassPredicate.isHelperClass(reference.getClassName())) {
+        addLibraryClass(pending, reference.getSuperClassName());
+        for (String interfaceName : reference.getInterfaceNames()) {
+          addLibraryClass(pending, interfaceName);
+        }
+      } else {
+        pending.add(reference.getClassName());
+      }
+    }
+
+    Set<String> fingerprinted = new HashSet<>();
+    for (String className = pending.poll(); className != null; className = pending.poll()) {
+      if (className.startsWith("java.") || !fingerprinted.add(className)) {
+        continue;
+      }
+      byte[] classFile;
+      try {
+        classFile = readClassFile(loader, className);
+      } catch (IOException e) {
+        return null;
+      }
+      digest.update(className.getBytes(UTF_8));
+      // a missing class is fingerprinted too, it fails the match in the same way everywhere
+      if (classFile == null) {
+        digest.update((byte) 0);
+        continue;
+      }
+      digest.update((byte) 1);
+      digest.update(ByteBuffer.allocate(4).putInt(0, classFile.length));
+      digest.update(classFile);
+
+      ClassReader classReader;
+      try {
+        classReader = new ClassReader(classFile);
+      } catch (RuntimeException e) {
+        return null;
+      }
+      addLibraryClass(pending, classReader.getSuperName());
+      for (String interfaceName : classReader.getInterfaces()) {
+        addLibraryClass(pending, interfaceName);
+      }
+    }
+    return Base64.getEncoder().encodeToString(digest.digest());
+  }
+
+  // accepts both binary and internal class names
+  private void addLibraryClass(Deque<String> pending, @Nullable String className) {
+    if (className == null) {
+      return;
+    }
+    className = className.replace('/', '.');
+    if (!helperClassPredicate.isHelperClass(className)) {
+      pending.add(className);
+    }
+  }
+
+  @Nullable
+  private static byte[] readClassFile(ClassLoader loader, String className) throws IOException {
+    try (InputStream classFile =
+        loader.getResourceAsStream(className.replace('.', '/') + ".class")) {
+      if (classFile == null) {
+        return null;
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      for (int read = classFile.read(buffer); read != -1; read = classFile.read(buffer)) {
+        bytes.write(buffer, 0, read);
+      }
+      return bytes.toByteArray();
+    }
+  }
+
   // loader cannot be null, must pass "bootstrap proxy" instead of bootstrap class loader
   private static TypePool createTypePool(ClassLoader loader) {
     // ok to use locationStrategy() without fallback bootstrap proxy here since loader is non-null
@@ -14,6 +14,9 @@ import io.opentelemetry.javaagent.tooling.muzzle.references.Source
 import io.opentelemetry.test.AnotherTestInterface
 import io.opentelemetry.test.TestAbstractSuperClass
 import io.opentelemetry.test.TestInterface
+import java.nio.file.Files
+import java.util.jar.JarEntry
+import java.util.jar.JarOutputStream
 import muzzle.TestClasses
 import muzzle.TestClasses.Nested
 import org.objectweb.asm.Type
@@ -100,6 +103,69 @@ class ReferenceMatcherTest extends Specification {
     cl.count == countAfterFirstMatch
   }
 
+  def "library fingerprint identifies the referenced class files"() {
+    setup:
+    def collector = new ReferenceCollector({ false })
+    collector.collectReferencesFromAdvice(TestClasses.MethodBodyAdvice.name)
+    def refMatcher = createMatcher(collector.getReferences())
+    def sameJarClasspath = new URLClassLoader(((URLClassLoader) safeClasspath).getURLs(), (ClassLoader) null)
+    def directoryClasspath = new URLClassLoader(
+      [Nested.A.protectionDomain.codeSource.location] as URL[], (ClassLoader) null)
+    // a different library version in a jar with the same name
+    def tempDir = Files.createTempDirectory("fingerprint")
+    def sameNameJar = tempDir.resolve(new File(((URLClassLoader) safeClasspath).getURLs()[0].toURI()).name)
+    new JarOutputStream(Files.newOutputStream(sameNameJar)).withCloseable { jar ->
+      [Nested.A, Nested.B, Nested.SomeInterface, Nested.SomeImplementation].each { clazz ->
+        jar.putNextEntry(new JarEntry(Type.getInternalName(clazz) + ".class"))
+        // Nested.B with other content
+        jar.write(ClasspathUtils.convertToByteArray(clazz == Nested.B ? Nested.A : clazz))
+        jar.closeEntry()
+      }
+    }
+    def sameNameClasspath = new URLClassLoader([sameNameJar.toUri().toURL()] as URL[], (ClassLoader) null)
+
+    expect:
+    refMatcher.libraryFingerprint(safeClasspath) != null
+    refMatcher.libraryFingerprint(safeClasspath) == refMatcher.libraryFingerprint(sameJarClasspath)
+    refMatcher.libraryFingerprint(safeClasspath) != refMatcher.libraryFingerprint(unsafeClasspath)
+    refMatcher.libraryFingerprint(safeClasspath) != refMatcher.libraryFingerprint(sameNameClasspath)
+    refMatcher.libraryFingerprint(directoryClasspath) != null
+
+    cleanup:
+    sameNameClasspath?.close()
+    Files.deleteIfExists(sameNameJar)
+    Files.deleteIfExists(tempDir)
+  }
+
+  def "library fingerprint identifies the supertypes of referenced classes"() {
+    setup:
+    def refMatcher = createMatcher([(Nested.B2.name): ClassRef.builder(Nested.B2.name).build()])
+    def classpath = new URLClassLoader([ClasspathUtils.createJarWithClasses(Nested.B2, Nested.B)] as URL[],
+      (ClassLoader) null)
+    // the same referenced class, with a superclass of other content
+    def tempDir = Files.createTempDirectory("fingerprint")
+    def otherSuperClassJar = tempDir.resolve("library.jar")
+    new JarOutputStream(Files.newOutputStream(otherSuperClassJar)).withCloseable { jar ->
+      [Nested.B2, Nested.B].each { clazz ->
+        jar.putNextEntry(new JarEntry(Type.getInternalName(clazz) + ".class"))
+        jar.write(ClasspathUtils.convertToByteArray(clazz == Nested.B ? Nested.A : clazz))
+        jar.closeEntry()
+      }
+    }
+    def otherSuperClassClasspath = new URLClassLoader([otherSuperClassJar.toUri().toURL()] as URL[],
+      (ClassLoader) null)
+
+    expect:
+    refMatcher.libraryFingerprint(classpath) != null
+    refMatcher.libraryFingerprint(classpath) != refMatcher.libraryFingerprint(otherSuperClassClasspath)
+
+    cleanup:
+    classpath?.close()
+    otherSuperClassClasspath?.close()
+    Files.deleteIfExists(otherSuperClassJar)
+    Files.deleteIfExists(tempDir)
+  }
+
   def "matching ref #referenceName #referenceFlag against #classToCheck produces #expectedMismatches"() {
     setup:
     def ref = ClassRef.builder(referenceName)
@@ -0,0 +1,63 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package field;
+
+import static java.util.Collections.singletonList;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.nameStartsWith;
+
+import com.google.auto.service.AutoService;
+import io.opentelemetry.instrumentation.api.util.VirtualField;
+import io.opentelemetry.javaagent.extension.instrumentation.InstrumentationModule;
+import io.opentelemetry.javaagent.extension.instrumentation.TypeInstrumentation;
+import io.opentelemetry.javaagent.extension.instrumentation.TypeTransformer;
+import java.util.List;
+import library.LazyVirtualFieldKeyClass;
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+
+// the virtual field classes of this module are generated when LazyVirtualFieldTest first uses it
+@AutoService(InstrumentationModule.class)
+public class LazyVirtualFieldTestInstrumentationModule extends InstrumentationModule {
+  public LazyVirtualFieldTestInstrumentationModule() {
+    super("lazy-virtual-field-test");
+  }
+
+  @Override
+  public List<TypeInstrumentation> typeInstrumentations() {
+    return singletonList(new TestInstrumentation());
+  }
+
+  private static class TestInstrumentation implements TypeInstrumentation {
+
+    @Override
+    public ElementMatcher<TypeDescription> typeMatcher() {
+      return nameStartsWith("field.LazyVirtualFieldTest$Target");
+    }
+
+    @Override
+    public void transform(TypeTransformer transformer) {
+      transformer.applyAdviceToMethod(
+          named("setAndGet"),
+          LazyVirtualFieldTestInstrumentationModule.class.getName() + "$SetAndGetAdvice");
+    }
+  }
+
+  @SuppressWarnings("unused")
+  public static class SetAndGetAdvice {
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void onExit(
+        @Advice.Argument(0) LazyVirtualFieldKeyClass key,
+        @Advice.Argument(1) String value,
+        @Advice.Return(readOnly = false) String result) {
+      VirtualField<LazyVirtualFieldKeyClass, String> field =
+          VirtualField.find(LazyVirtualFieldKeyClass.class, String.class);
+      field.set(key, value);
+      result = field.get(key);
+    }
+  }
+}
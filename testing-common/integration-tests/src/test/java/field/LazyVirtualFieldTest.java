@@ -0,0 +1,89 @@
+/*
+ * Copyright The OpenTelemetry Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package field;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import library.LazyVirtualFieldKeyClass;
+import org.junit.jupiter.api.Test;
+
+class LazyVirtualFieldTest {
+
+  private static final String FIELD_ACCESSOR_PREFIX =
+      "io.opentelemetry.javaagent.bootstrap.field.VirtualFieldAccessor$";
+
+  @Test
+  void resolvesLazilyGeneratedClassesFromConcurrentThreads() throws Exception {
+    // the target classes and the key class are loaded on the threads, so that the virtual field
+    // classes of LazyVirtualFieldTestInstrumentationModule are generated while they're transformed
+    List<Callable<String>> targets =
+        asList(
+            () -> Target1.setAndGet(new LazyVirtualFieldKeyClass(), "value1"),
+            () -> Target2.setAndGet(new LazyVirtualFieldKeyClass(), "value2"),
+            () -> Target3.setAndGet(new LazyVirtualFieldKeyClass(), "value3"),
+            () -> Target4.setAndGet(new LazyVirtualFieldKeyClass(), "value4"));
+    ExecutorService executor = Executors.newFixedThreadPool(targets.size());
+    List<Future<String>> results = new ArrayList<>();
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      for (Callable<String> target : targets) {
+        results.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return target.call();
+                }));
+      }
+      start.countDown();
+
+      for (int i = 0; i < results.size(); i++) {
+        assertThat(results.get(i).get(10, SECONDS)).isEqualTo("value" + (i + 1));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // the real field was injected with the lazily generated accessor interface
+    assertThat(LazyVirtualFieldKeyClass.class.getInterfaces())
+        .extracting(Class::getName)
+        .contains("io.opentelemetry.javaagent.bootstrap.VirtualFieldInstalledMarker")
+        .anyMatch(name -> name.startsWith(FIELD_ACCESSOR_PREFIX));
+  }
+
+  // instrumented by LazyVirtualFieldTestInstrumentationModule
+  static class Target1 {
+    static String setAndGet(LazyVirtualFieldKeyClass key, String value) {
+      return null;
+    }
+  }
+
+  static class Target2 {
+    static String setAndGet(LazyVirtualFieldKeyClass key, String value) {
+      return null;
+    }
+  }
+
+  static class Target3 {
+    static String setAndGet(LazyVirtualFieldKeyClass key, String value) {
+      return null;
+    }
+  }
+
+  static class Target4 {
+    static String setAndGet(LazyVirtualFieldKeyClass key, String value) {
+      return null;
+    }
+  }
+}